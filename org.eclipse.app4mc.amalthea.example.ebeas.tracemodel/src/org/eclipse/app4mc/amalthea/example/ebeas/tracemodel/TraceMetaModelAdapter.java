@@ -21,6 +21,7 @@ import org.eclipse.app4mc.amalthea.example.ebeas.tracemodel.helper.TraceMetaMode
 import org.eclipse.app4mc.amalthea.example.ebeas.tracemodel.helper.TraceMetamodelCreationHelper;
 import org.eclipse.capra.core.adapters.AbstractMetaModelAdapter;
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.helpers.EMFHelper;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 
@@ -117,6 +118,13 @@ public class TraceMetaModelAdapter extends AbstractMetaModelAdapter
 		List<TraceLink> traces = tm.getItem();
 
 		for (TraceLink traceLink : traces) {
+			// Only links referring to both elements are compared in detail,
+			// which resolves their references
+			List<EObject> references = EMFHelper.getUnresolvedReferences(traceLink);
+			if (!EMFHelper.containsUnresolved(references, first)
+					|| !EMFHelper.containsUnresolved(references, second)) {
+				continue;
+			}
 			if (compareHelper.analyzeMUMLMsgTypeRepository2UMLInterface(traceLink, first, second)) {
 				traceString = "X";
 			} else if (compareHelper.analyzeMUMLSoftwareComponent2UMLClass(traceLink, first, second)) {
@@ -151,10 +159,8 @@ public class TraceMetaModelAdapter extends AbstractMetaModelAdapter
 			connections.add(new Connection(element, reachabilityHelper.getConnectedElements(trace), trace));
 		} else {
 			for (TraceLink trace : traces) {
-				List<EObject> connectedElements = reachabilityHelper.getConnectedElements(trace);
-
-				if (connectedElements.contains((EObject) element)) {
-					connections.add(new Connection(element, connectedElements, trace));
+				if (EMFHelper.containsUnresolved(EMFHelper.getUnresolvedReferences(trace), element)) {
+					connections.add(new Connection(element, reachabilityHelper.getConnectedElements(trace), trace));
 				}
 			}
 		}
@@ -179,9 +185,9 @@ public class TraceMetaModelAdapter extends AbstractMetaModelAdapter
 			for (TraceLink trace : traces) {
 				if (selectedRelationshipTypes.size() == 0
 						|| selectedRelationshipTypes.contains(trace.eClass().getName())) {
-					List<EObject> connectedElements = reachabilityHelper.getConnectedElements(trace);
-					if (connectedElements.contains((EObject) element)) {
-						connections.add(new Connection(element, connectedElements, trace));
+					if (EMFHelper.containsUnresolved(EMFHelper.getUnresolvedReferences(trace), element)) {
+						connections.add(
+								new Connection(element, reachabilityHelper.getConnectedElements(trace), trace));
 					}
 				}
 			}
@@ -190,63 +196,4 @@ public class TraceMetaModelAdapter extends AbstractMetaModelAdapter
 		return connections;
 	}
 
-	@Override
-	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel, int maximumDepth) {
-		ArrayList<Object> accumulator = new ArrayList<>();
-		return getTransitivelyConnectedElements(element, traceModel, accumulator, -2, maximumDepth);
-	}
-
-	private List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			ArrayList<Object> accumulator, int currentDepth, int maximumDepth) {
-		List<Connection> directElements = getConnectedElements(element, traceModel);
-		List<Connection> allElements = new ArrayList<>();
-
-		int currDepth = currentDepth + 1;
-		directElements.forEach(connection -> {
-			if (!accumulator.contains(connection.getTlink())) {
-				allElements.add(connection);
-				accumulator.add(connection.getTlink());
-				connection.getTargets().forEach(e -> {
-					if (maximumDepth == 0 || currDepth <= maximumDepth) {
-						allElements.addAll(
-								getTransitivelyConnectedElements(e, traceModel, accumulator, currDepth, maximumDepth));
-					}
-				});
-			}
-		});
-
-		return allElements;
-	}
-
-	@Override
-	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			List<String> selectedRelationshipTypes, int maximumDepth) {
-		List<Object> accumulator = new ArrayList<>();
-		return getTransitivelyConnectedElements(element, traceModel, accumulator, selectedRelationshipTypes, -2,
-				maximumDepth);
-	}
-
-	private List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			List<Object> accumulator, List<String> selectedRelationshipTypes, int currentDepth, int maximumDepth) {
-		List<Connection> directElements = getConnectedElements(element, traceModel, selectedRelationshipTypes);
-		List<Connection> allElements = new ArrayList<>();
-
-		int currDepth = currentDepth + 1;
-		directElements.forEach(connection -> {
-			if (!accumulator.contains(connection.getTlink())) {
-				allElements.add(connection);
-				accumulator.add(connection.getTlink());
-				connection.getTargets().forEach(e -> {
-					if (maximumDepth == 0 || currDepth <= maximumDepth) {
-						allElements.addAll(getTransitivelyConnectedElements(e, traceModel, accumulator,
-								selectedRelationshipTypes, currDepth, maximumDepth));
-					}
-
-				});
-			}
-		});
-
-		return allElements;
-	}
-
 }
@@ -1,53 +1,92 @@
 package org.eclipse.capra.core.adapters;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.capra.core.handlers.IArtifactHandler;
 import org.eclipse.capra.core.helpers.ArtifactHelper;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactModelSession;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 public abstract class AbstractMetaModelAdapter implements TraceMetaModelAdapter {
 
-	private List<Connection> getInternalElementsTransitive(EObject element, EObject traceModel,
-			List<Object> accumulator, List<String> selectedRelationshipTypes, int currentDepth, int maximumDepth,
-			List<Connection> existingTraces) {
-		List<Connection> directElements = getInternalElements(element, traceModel, selectedRelationshipTypes, true,
-				maximumDepth, existingTraces);
-		List<Connection> allElements = new ArrayList<>();
-		int currDepth = currentDepth + 1;
-		for (Connection connection : directElements) {
-			if (!accumulator.contains(connection.getTlink())) {
-				allElements.add(connection);
-				accumulator.add(connection.getTlink());
-				for (EObject e : connection.getTargets()) {
-					if (maximumDepth == 0 || currDepth < (maximumDepth + 2)) {
-						allElements.addAll(getInternalElementsTransitive(e, traceModel, accumulator,
-								selectedRelationshipTypes, currDepth, maximumDepth, existingTraces));
-					}
-				}
-			}
+	/**
+	 * The transitivity depth used by the trace views is offset from the number
+	 * of levels visited: trace links are collected up to two levels beyond the
+	 * depth, internal links up to one level beyond it.
+	 */
+	private static final int TRACE_LINK_DEPTH_OFFSET = 3;
+	private static final int INTERNAL_LINK_DEPTH_OFFSET = 2;
+
+	private static int toTraversalDepth(int transitivityDepth, int offset) {
+		return transitivityDepth == 0 ? 0 : transitivityDepth + offset;
+	}
+
+	/**
+	 * Creates the traces one at a time. Adapters should override this if they
+	 * can add all traces to the trace model at once.
+	 */
+	@Override
+	public EObject createTraces(EObject traceModel, List<TraceDescription<EObject>> traces) {
+		EObject root = traceModel;
+		for (TraceDescription<EObject> trace : traces) {
+			root = createTrace(trace.getTraceType(), root, trace.getSelection());
 		}
+		return root;
+	}
 
-		return allElements;
+	/**
+	 * Removes the traces from their containers one at a time. Adapters should
+	 * override this if they can remove all traces at once and know which
+	 * artifact wrappers have become unused.
+	 */
+	@Override
+	public void deleteTraces(List<EObject> traces, EObject traceModel) {
+		for (EObject trace : traces) {
+			EcoreUtil.remove(trace);
+		}
 	}
 
+	@Override
+	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
+			int transitivityDepth) {
+		return TransitiveTraversal.getTransitivelyConnectedElements(element,
+				e -> getConnectedElements(e, traceModel),
+				toTraversalDepth(transitivityDepth, TRACE_LINK_DEPTH_OFFSET));
+	}
+
+	@Override
+	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
+			List<String> selectedRelationshipTypes, int transitivityDepth) {
+		return TransitiveTraversal.getTransitivelyConnectedElements(element,
+				e -> getConnectedElements(e, traceModel, selectedRelationshipTypes),
+				toTraversalDepth(transitivityDepth, TRACE_LINK_DEPTH_OFFSET));
+	}
+
+	@Override
 	public List<Connection> getInternalElementsTransitive(EObject element, EObject traceModel,
 			List<String> selectedRelationshipTypes, int maximumDepth, List<Connection> existingTraces) {
-		List<Object> accumulator = new ArrayList<>();
-		return getInternalElementsTransitive(element, traceModel, accumulator, selectedRelationshipTypes, 0,
-				maximumDepth, existingTraces);
+		return TransitiveTraversal.getTransitivelyConnectedElements(element,
+				e -> getInternalElements(e, traceModel, selectedRelationshipTypes, true, maximumDepth,
+						existingTraces),
+				toTraversalDepth(maximumDepth, INTERNAL_LINK_DEPTH_OFFSET));
 	}
 
+	/**
+	 * Collects the internal links of the given element and of the targets of
+	 * its trace links. Elements that are the target of several trace links are
+	 * only visited once, since each visit can walk a whole model.
+	 */
 	@Override
 	public List<Connection> getInternalElements(EObject element, EObject traceModel,
 			List<String> selectedRelationshipTypes, boolean traceLinksTransitive, int transitivityDepth,
 			List<Connection> existingTraces) {
 		List<Connection> allElements = new ArrayList<>();
-		ArrayList<Integer> duplicationCheck = new ArrayList<>();
+		Set<Connection> duplicationCheck = new HashSet<>();
 		List<Connection> directElements;
 		if (traceLinksTransitive) {
 			directElements = getTransitivelyConnectedElements(element, traceModel, selectedRelationshipTypes,
@@ -55,69 +94,95 @@ public abstract class AbstractMetaModelAdapter implements TraceMetaModelAdapter
 		} else {
 			directElements = getConnectedElements(element, traceModel, selectedRelationshipTypes);
 		}
-		List<Integer> hashCodes = new ArrayList<>();
+		Set<Connection> existing = new HashSet<>(existingTraces);
 
-		for (Connection conn : existingTraces) {
-			int connectionHash = conn.getOrigin().hashCode() + conn.getTlink().hashCode();
-			for (EObject targ : conn.getTargets()) {
-				connectionHash += targ.hashCode();
-			}
-			hashCodes.add(connectionHash);
-		}
-
-		ResourceSet resourceSet = new ResourceSetImpl();
-		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject artifactModel = persistenceAdapter.getArtifactWrappers(resourceSet);
-		ArtifactHelper artifactHelper = new ArtifactHelper(artifactModel);
+		ArtifactHelper artifactHelper = ArtifactModelSession.getArtifactHelper();
+		// The selected types are compiled once for all elements
+		RelationshipFilter relationshipFilter = RelationshipFilter.of(selectedRelationshipTypes);
+		Set<EObject> investigated = new HashSet<>();
 
 		for (Connection conn : directElements) {
-			int connectionHash = conn.getOrigin().hashCode() + conn.getTlink().hashCode();
-			for (EObject targ : conn.getTargets()) {
-				connectionHash += targ.hashCode();
-			}
-			if (!hashCodes.contains(connectionHash)) {
+			if (!existing.contains(conn)) {
 				allElements.add(conn);
 			}
 			for (EObject o : conn.getTargets()) {
-				if (o.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
-					@SuppressWarnings("unchecked")
-					IArtifactHandler<Object> eastAdlHandler = (IArtifactHandler<Object>) artifactHelper
-							.getEastAdlHandler(o).orElse(null);
-					eastAdlHandler.addInternalLinks(o, allElements, duplicationCheck, selectedRelationshipTypes);
-				} else {
-					@SuppressWarnings("unchecked")
-					IArtifactHandler<Object> handler = (IArtifactHandler<Object>) artifactHelper.getHandler(o)
-							.orElse(null);
-					handler.addInternalLinks(o, allElements, duplicationCheck, selectedRelationshipTypes);
-				}
+				addInternalLinks(artifactHelper, o, allElements, duplicationCheck, relationshipFilter, investigated);
 			}
 		}
+		addInternalLinks(artifactHelper, element, allElements, duplicationCheck, relationshipFilter, investigated);
+		return allElements;
+	}
 
-		if (element.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
-			@SuppressWarnings("unchecked")
-			IArtifactHandler<Object> eastAdlHandler = (IArtifactHandler<Object>) artifactHelper
-					.getEastAdlHandler(element).orElse(null);
-			eastAdlHandler.addInternalLinks(element, allElements, duplicationCheck, selectedRelationshipTypes);
-		} else {
-			@SuppressWarnings("unchecked")
-			IArtifactHandler<Object> handler = (IArtifactHandler<Object>) artifactHelper.getHandler(element)
-					.orElse(null);
-			handler.addInternalLinks(element, allElements, duplicationCheck, selectedRelationshipTypes);
+	private static void addInternalLinks(ArtifactHelper artifactHelper, EObject element,
+			List<Connection> allElements, Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter,
+			Set<EObject> investigated) {
+		if (!investigated.add(element)) {
+			return;
+		}
+		IArtifactHandler<Object> handler = getInternalLinkHandler(artifactHelper, element);
+		if (handler != null) {
+			handler.addInternalLinks(element, allElements, duplicationCheck, relationshipFilter);
 		}
-		return allElements;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static IArtifactHandler<Object> getInternalLinkHandler(ArtifactHelper artifactHelper, EObject o) {
+		if (o.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
+			return (IArtifactHandler<Object>) artifactHelper.getEastAdlHandler(o).orElse(null);
+		}
+		return (IArtifactHandler<Object>) artifactHelper.getHandler(o).orElse(null);
 	}
 
 	public String isThereATraceBetween(EObject first, EObject second, EObject traceModel) {
 		return "";
 	}
 
+	@Override
+	public TraceMatrix getTraceMatrix(Collection<EObject> firstElements, Collection<EObject> secondElements,
+			EObject traceModel) {
+		TraceMatrix matrix = new TraceMatrix(firstElements, secondElements);
+		for (EObject first : firstElements) {
+			for (EObject second : secondElements) {
+				matrix.add(first, second, isThereATraceBetween(first, second, traceModel));
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Adds the internal connections between the elements of the matrix as
+	 * determined by {@link #isThereAnInternalTraceBetween}. Handlers that do
+	 * not provide internal traces (see
+	 * {@link IArtifactHandler#providesInternalTraces()}) are skipped for the
+	 * whole row.
+	 * 
+	 * @param matrix
+	 *            the matrix to add the internal connections to
+	 * @param traceModel
+	 *            Trace model to base decision on
+	 */
+	@SuppressWarnings("unchecked")
+	protected void addInternalTraces(TraceMatrix matrix, EObject traceModel) {
+		ArtifactHelper artifactHelper = ArtifactModelSession.getArtifactHelper();
+		for (EObject first : matrix.getFirstElements()) {
+			IArtifactHandler<Object> handler;
+			if (first.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
+				handler = (IArtifactHandler<Object>) artifactHelper.getEastAdlHandler(first).orElse(null);
+			} else {
+				handler = (IArtifactHandler<Object>) artifactHelper.getHandler(first).orElse(null);
+			}
+			if (handler != null && handler.providesInternalTraces()) {
+				for (EObject second : matrix.getSecondElements()) {
+					matrix.add(first, second, handler.isThereAnInternalTraceBetween(first, second, traceModel));
+				}
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel) {
-		ResourceSet resourceSet = new ResourceSetImpl();
-		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject artifactModel = persistenceAdapter.getArtifactWrappers(resourceSet);
-		ArtifactHelper artifactHelper = new ArtifactHelper(artifactModel);
+		ArtifactHelper artifactHelper = ArtifactModelSession.getArtifactHelper();
 		IArtifactHandler<Object> handler;
 		IArtifactHandler<Object> handlerSecondElement;
 		if (first.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
@@ -86,6 +86,40 @@ public interface ArtifactMetaModelAdapter {
 	 */
 	IPath getArtifactPath(EObject artifact);
 
+	/**
+	 * Get the display name of the wrapped artifact that was stored in the
+	 * given artifact.
+	 * 
+	 * @param artifact
+	 * @return the stored display name or <code>null</code> if none has been
+	 *         stored
+	 */
+	String getArtifactLabel(EObject artifact);
+
+	/**
+	 * Get the fingerprint of the wrapped artifact that was stored in the given
+	 * artifact along with its display name.
+	 * 
+	 * @param artifact
+	 * @return the stored fingerprint or <code>null</code> if none has been
+	 *         stored
+	 */
+	String getArtifactFingerprint(EObject artifact);
+
+	/**
+	 * Store the display name and a fingerprint of the wrapped artifact in the
+	 * given artifact, so that the wrapped artifact does not have to be
+	 * resolved to display it.
+	 * 
+	 * @param artifact
+	 * @param label
+	 *            the display name of the wrapped artifact
+	 * @param fingerprint
+	 *            identifies the state of the wrapped artifact the display name
+	 *            was determined for
+	 */
+	void setArtifactLabel(EObject artifact, String label, String fingerprint);
+
 	/**
 	 * Get an instance of the artifact handler.
 	 * 
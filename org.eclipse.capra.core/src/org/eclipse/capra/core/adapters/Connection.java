@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.eclipse.capra.core.adapters;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.eclipse.emf.ecore.EObject;
 
@@ -18,13 +21,19 @@ import org.eclipse.emf.ecore.EObject;
  * An minimal abstraction of a traceability link used in
  * {@link TraceMetaModelAdapter}, to retain independence of a concrete trace
  * metamodel.
+ * <p>
+ * Two connections are equal if they connect the same elements through the
+ * same link, regardless of which of them is the origin and of the order of
+ * the targets. A link from A to B is therefore the same connection as the
+ * link from B to A it was discovered as when investigating B. This allows
+ * collecting connections in hash-based sets to avoid duplicates.
  * 
  * @author Anthony Anjorin, Salome Maro
  */
 public class Connection {
-	private EObject origin;
-	private List<EObject> targets;
-	private EObject tlink;
+	private final EObject origin;
+	private final List<EObject> targets;
+	private final EObject tlink;
 
 	public Connection(EObject origin, List<EObject> targets, EObject tlink) {
 		this.origin = origin;
@@ -43,4 +52,41 @@ public class Connection {
 	public EObject getTlink() {
 		return tlink;
 	}
+
+	@Override
+	public int hashCode() {
+		// Independent of which end is the origin and of the order of the
+		// targets
+		int endsHash = Objects.hashCode(origin);
+		for (EObject target : targets) {
+			endsHash += Objects.hashCode(target);
+		}
+		return Objects.hashCode(tlink) * 31 + endsHash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Connection)) {
+			return false;
+		}
+		Connection other = (Connection) obj;
+		return Objects.equals(tlink, other.tlink) && targets.size() == other.targets.size()
+				&& countEnds().equals(other.countEnds());
+	}
+
+	/**
+	 * Counts how often each element is an end of this connection, i.e., its
+	 * origin or one of its targets.
+	 */
+	private Map<EObject, Integer> countEnds() {
+		Map<EObject, Integer> ends = new HashMap<>();
+		ends.merge(origin, 1, Integer::sum);
+		for (EObject target : targets) {
+			ends.merge(target, 1, Integer::sum);
+		}
+		return ends;
+	}
 }
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.adapters;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+
+/**
+ * The relationship types selected by the user, compiled once per query so
+ * that handlers can check candidate relationships in constant time. An empty
+ * selection accepts all relationships.
+ * <p>
+ * Handlers can also ask whether any relationship of a metamodel is selected
+ * at all, to skip looking for relationships of that metamodel entirely.
+ * Filters can be shared by threads expanding internal links concurrently.
+ */
+public class RelationshipFilter {
+
+	private static final RelationshipFilter ALL = new RelationshipFilter(Collections.emptySet());
+
+	private final Set<String> typeNames;
+	private final Map<EPackage, Boolean> acceptedPackages = new ConcurrentHashMap<>();
+
+	private RelationshipFilter(Set<String> typeNames) {
+		this.typeNames = typeNames;
+	}
+
+	/**
+	 * Compiles a filter for the given relationship types.
+	 *
+	 * @param relationshipTypes
+	 *            the names of the classes of the selected relationships, empty
+	 *            to select all relationships
+	 * @return the filter
+	 */
+	public static RelationshipFilter of(Collection<String> relationshipTypes) {
+		if (relationshipTypes.isEmpty()) {
+			return ALL;
+		}
+		return new RelationshipFilter(new HashSet<>(relationshipTypes));
+	}
+
+	/**
+	 * @return <code>true</code> if no relationship types have been selected,
+	 *         i.e., all relationships are accepted
+	 */
+	public boolean acceptsAll() {
+		return typeNames.isEmpty();
+	}
+
+	/**
+	 * Checks whether relationships of the given class have been selected.
+	 *
+	 * @param relationshipType
+	 *            the class of the relationship
+	 * @return <code>true</code> if the relationships are accepted
+	 */
+	public boolean accepts(EClass relationshipType) {
+		return typeNames.isEmpty() || typeNames.contains(relationshipType.getName());
+	}
+
+	/**
+	 * Checks whether the given relationship has been selected.
+	 *
+	 * @param relationship
+	 *            the relationship
+	 * @return <code>true</code> if the relationship is accepted
+	 */
+	public boolean accepts(EObject relationship) {
+		return accepts(relationship.eClass());
+	}
+
+	/**
+	 * Checks whether any class of the given metamodel has been selected.
+	 *
+	 * @param ePackage
+	 *            the package of the metamodel
+	 * @return <code>false</code> if no relationship of the metamodel can be
+	 *         accepted
+	 */
+	public boolean acceptsAnyOf(EPackage ePackage) {
+		if (typeNames.isEmpty()) {
+			return true;
+		}
+		return acceptedPackages.computeIfAbsent(ePackage,
+				p -> typeNames.stream().anyMatch(name -> p.getEClassifier(name) instanceof EClass));
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *  
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.adapters;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
+
+/**
+ * Describes a trace link that is yet to be created, used to create many trace
+ * links at once.
+ *
+ * @param <T>
+ *            the type of the objects to be connected, e.g., artifacts or
+ *            artifact wrappers
+ */
+public class TraceDescription<T> {
+	private EClass traceType;
+	private List<T> selection;
+
+	/**
+	 * @param traceType
+	 *            the type of the trace link
+	 * @param selection
+	 *            the objects the trace link is to connect
+	 */
+	public TraceDescription(EClass traceType, List<T> selection) {
+		this.traceType = traceType;
+		this.selection = selection;
+	}
+
+	public EClass getTraceType() {
+		return traceType;
+	}
+
+	public List<T> getSelection() {
+		return selection;
+	}
+}
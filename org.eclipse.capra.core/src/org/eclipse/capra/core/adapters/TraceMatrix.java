@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.adapters;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * A sparse traceability matrix between two collections of elements as
+ * computed by {@link TraceMetaModelAdapter#getTraceMatrix}. Only cells that
+ * contain a connection are stored, all other cells are reported as an empty
+ * String.
+ */
+public class TraceMatrix {
+	private static final String SPACER = ", ";
+
+	private Collection<EObject> firstElements;
+	private Collection<EObject> secondElements;
+	private Map<EObject, Map<EObject, String>> cells = new IdentityHashMap<>();
+
+	public TraceMatrix(Collection<EObject> firstElements, Collection<EObject> secondElements) {
+		this.firstElements = firstElements;
+		this.secondElements = secondElements;
+	}
+
+	public Collection<EObject> getFirstElements() {
+		return firstElements;
+	}
+
+	public Collection<EObject> getSecondElements() {
+		return secondElements;
+	}
+
+	/**
+	 * Returns the type of connection between the two elements in the format
+	 * used by {@link TraceMetaModelAdapter#isThereATraceBetween}.
+	 *
+	 * @param first
+	 *            element of the first collection
+	 * @param second
+	 *            element of the second collection
+	 * @return the connection String or an empty String if the elements are
+	 *         not connected
+	 */
+	public String get(EObject first, EObject second) {
+		Map<EObject, String> row = cells.get(first);
+		if (row == null) {
+			return "";
+		}
+		return row.getOrDefault(second, "");
+	}
+
+	/**
+	 * Adds a connection between the two elements, separating it from
+	 * connections already present in the cell.
+	 *
+	 * @param first
+	 *            element of the first collection
+	 * @param second
+	 *            element of the second collection
+	 * @param traceString
+	 *            the type of connection, ignored if empty
+	 */
+	public void add(EObject first, EObject second, String traceString) {
+		if (traceString == null || traceString.isEmpty()) {
+			return;
+		}
+		Map<EObject, String> row = cells.computeIfAbsent(first, f -> new IdentityHashMap<>());
+		row.merge(second, traceString, (existing, added) -> existing + SPACER + added);
+	}
+}
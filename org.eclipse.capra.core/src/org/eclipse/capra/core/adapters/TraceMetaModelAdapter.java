@@ -56,7 +56,20 @@ public interface TraceMetaModelAdapter {
 	EObject createTrace(EClass traceType, EObject traceModel, List<EObject> selection);
 
 	/**
-	 * Used to delete a trace
+	 * Used to create many traces at once, so that the trace model is only
+	 * changed once for all of them
+	 * 
+	 * @param traceModel
+	 *            The root of the trace model that should contain the traces
+	 * @param traces
+	 *            The types of the traces to be created and the objects to
+	 *            create them for
+	 * @return root of trace model that now contains the newly created traces
+	 */
+	EObject createTraces(EObject traceModel, List<TraceDescription<EObject>> traces);
+
+	/**
+	 * Used to delete all traces connecting two objects
 	 * 
 	 * @param traceModel
 	 *            Trace model to delete from
@@ -67,6 +80,18 @@ public interface TraceMetaModelAdapter {
 	 */
 	void deleteTrace(EObject first, EObject second, EObject traceModel);
 
+	/**
+	 * Used to delete several traces at once, so that the trace model is
+	 * changed once for all of them. Artifact wrappers that are no longer
+	 * referenced by any trace are removed as well.
+	 * 
+	 * @param traces
+	 *            The traces to be deleted
+	 * @param traceModel
+	 *            Trace model to delete from
+	 */
+	void deleteTraces(List<EObject> traces, EObject traceModel);
+
 	/**
 	 * Decide if two objects are connected according to the given trace model
 	 * and returns a String with the Type of connection for the trace matrix
@@ -101,6 +126,24 @@ public interface TraceMetaModelAdapter {
 	 */
 	String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel);
 
+	/**
+	 * Decide for all pairs of the given objects whether they are connected
+	 * according to the given trace model or internally, as done by
+	 * {@link #isThereATraceBetween} for a single pair. Implementations should
+	 * compute the matrix in a single pass over the trace model.
+	 * 
+	 * @param firstElements
+	 *            Objects forming the rows of the matrix
+	 * @param secondElements
+	 *            Objects forming the columns of the matrix
+	 * @param traceModel
+	 *            Trace model to base decision on
+	 * @return the sparse matrix containing the type of connection for each
+	 *         connected pair of objects
+	 */
+	TraceMatrix getTraceMatrix(Collection<EObject> firstElements, Collection<EObject> secondElements,
+			EObject traceModel);
+
 	/**
 	 * Determine a list of all objects connected to element according to the
 	 * given trace model
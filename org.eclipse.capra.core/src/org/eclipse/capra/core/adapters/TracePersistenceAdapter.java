@@ -69,7 +69,9 @@ public interface TracePersistenceAdapter {
 	 * Save the trace and artifact models. Implementations are expected to: (i)
 	 * save the trace model, (ii) check selectionForTraceCreation for artifact
 	 * wrappers that are not already contained in artifactWrappers, (iii) add
-	 * these new artifact wrappers to artifactWrappers before saving it as well
+	 * these new artifact wrappers to artifactWrappers before saving it as well.
+	 * Failures are reported by throwing an unchecked exception, so that callers
+	 * can discard the models that could not be saved.
 	 * 
 	 * @param traceModel
 	 *            The updated trace model to be saved
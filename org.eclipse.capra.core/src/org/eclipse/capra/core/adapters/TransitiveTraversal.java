@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.adapters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Collects the connections that can be reached transitively from an element.
+ * The traversal is breadth-first and iterative, so that it does not depend on
+ * the length of trace chains, and it uses identity-based sets to remember the
+ * links and elements it has already seen. Each link is reported once, at the
+ * lowest depth it can be reached at.
+ */
+public class TransitiveTraversal {
+
+	private TransitiveTraversal() {
+	}
+
+	/**
+	 * Determines all connections reachable from the given element.
+	 *
+	 * @param element
+	 *            the element to start from
+	 * @param connectionProvider
+	 *            returns the direct connections of an element
+	 * @param maximumDepth
+	 *            the number of levels of elements whose connections are
+	 *            collected, starting with the level containing only
+	 *            {@code element}. 0 means no limit.
+	 * @return the reachable connections in breadth-first order
+	 */
+	public static List<Connection> getTransitivelyConnectedElements(EObject element,
+			Function<EObject, List<Connection>> connectionProvider, int maximumDepth) {
+		List<Connection> allElements = new ArrayList<>();
+		Set<EObject> visitedLinks = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<EObject> visitedElements = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		List<EObject> currentLevel = new ArrayList<>();
+		currentLevel.add(element);
+		visitedElements.add(element);
+		for (int depth = 0; !currentLevel.isEmpty() && (maximumDepth == 0 || depth < maximumDepth); depth++) {
+			List<EObject> nextLevel = new ArrayList<>();
+			for (EObject current : currentLevel) {
+				for (Connection connection : connectionProvider.apply(current)) {
+					if (visitedLinks.add(connection.getTlink())) {
+						allElements.add(connection);
+						for (EObject target : connection.getTargets()) {
+							if (visitedElements.add(target)) {
+								nextLevel.add(target);
+							}
+						}
+					}
+				}
+			}
+			currentLevel = nextLevel;
+		}
+		return allElements;
+	}
+}
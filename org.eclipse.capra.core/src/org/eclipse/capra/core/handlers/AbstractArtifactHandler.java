@@ -12,19 +12,32 @@ package org.eclipse.capra.core.handlers;
 
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiFunction;
 
 import org.eclipse.capra.core.adapters.Connection;
-import org.eclipse.capra.core.helpers.EMFHelper;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
-import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 public abstract class AbstractArtifactHandler<T> implements IArtifactHandler<T> {
 
+	/**
+	 * The type argument of this handler, resolved once on first use.
+	 * {@code null} if it has not been resolved yet or could not be loaded.
+	 */
+	private volatile Class<?> genericType;
+	private volatile boolean genericTypeResolved = false;
+
 	@Override
 	public <R> Optional<R> withCastedHandler(Object artifact, BiFunction<IArtifactHandler<T>, T, R> handleFunction) {
 		if (canHandleArtifact(artifact)) {
@@ -44,59 +57,106 @@ public abstract class AbstractArtifactHandler<T> implements IArtifactHandler<T>
 	}
 
 	protected void includeContainmentLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
-		List<EStructuralFeature> containments = new ArrayList<>();
-		for (EStructuralFeature obj : investigatedElement.eClass().getEStructuralFeatures()) {
-			if (selectedRelationshipTypes.size() == 0 || selectedRelationshipTypes.contains(obj.eClass().getName())) {
-				if (EReference.class.isAssignableFrom(obj.getClass())) {
-					EReference ref = EReference.class.cast(obj);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+		if (!relationshipFilter.accepts(EcorePackage.Literals.EREFERENCE)) {
+			return;
+		}
+		for (EReference ref : getContainmentReferences(investigatedElement.eClass())) {
+			if (!investigatedElement.eIsSet(ref)) {
+				continue;
+			}
+			List<EObject> relatedElements;
+			if (ref.isMany()) {
+				@SuppressWarnings("unchecked")
+				EList<EObject> contents = (EList<EObject>) investigatedElement.eGet(ref, true);
+				relatedElements = new ArrayList<>(contents);
+			} else {
+				relatedElements = Collections.singletonList((EObject) investigatedElement.eGet(ref, true));
+			}
+			Connection conn = new Connection(investigatedElement, relatedElements, ref);
+			if (duplicationCheck.add(conn)) {
+				allElements.add(conn);
+			}
+		}
+	}
+
+	/**
+	 * Returns the containment references declared by the given class, which
+	 * are determined once per class.
+	 */
+	private static List<EReference> getContainmentReferences(EClass eClass) {
+		return ContainmentReferences.getCache(eClass).getReferences();
+	}
+
+	/**
+	 * Caches the containment references declared by a class. The cache is
+	 * attached to the class as an adapter, so that it is released together
+	 * with the class, and removes itself from the class if the features of the
+	 * class change.
+	 */
+	private static class ContainmentReferences extends AdapterImpl {
+
+		private final EClass eClass;
+		// Determined on the first query
+		private List<EReference> references;
+
+		private ContainmentReferences(EClass eClass) {
+			this.eClass = eClass;
+		}
+
+		// Classes are shared by all models, whose internal links can be added
+		// concurrently
+		private static synchronized ContainmentReferences getCache(EClass eClass) {
+			ContainmentReferences cache = (ContainmentReferences) EcoreUtil.getExistingAdapter(eClass,
+					ContainmentReferences.class);
+			if (cache == null) {
+				cache = new ContainmentReferences(eClass);
+				eClass.eAdapters().add(cache);
+			}
+			return cache;
+		}
+
+		private synchronized List<EReference> getReferences() {
+			if (references == null) {
+				List<EReference> containments = new ArrayList<>();
+				for (EReference ref : eClass.getEReferences()) {
 					if (ref.isContainment()) {
-						if (!containments.contains(obj)) {
-							List<EObject> relatedElements = new ArrayList<>();
-							int structuralFeatureHashCode = 0;
-							if (ref.getUpperBound() == -1) {
-								if (investigatedElement.eIsSet(obj)) {
-									@SuppressWarnings("unchecked")
-									EList<EObject> structuralFeatures = (EList<EObject>) investigatedElement.eGet(obj,
-											true);
-									for (EObject structuralFeature : structuralFeatures) {
-										structuralFeatureHashCode += structuralFeature.hashCode();
-										relatedElements.add(structuralFeature);
-									}
-								}
-							} else {
-								if (investigatedElement.eIsSet(obj)) {
-									EObject structuralFeature = (EObject) investigatedElement.eGet(obj, true);
-									relatedElements.add(structuralFeature);
-									structuralFeatureHashCode = structuralFeature.hashCode();
-								}
-							}
-
-							int connectionHash = investigatedElement.hashCode() + ref.hashCode()
-									+ structuralFeatureHashCode;
-							if (!duplicationCheck.contains(connectionHash) && relatedElements.size() > 0) {
-								Connection conn = new Connection(investigatedElement, relatedElements, ref);
-								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
-							}
-							containments.add(obj);
-						}
+						containments.add(ref);
 					}
 				}
+				references = containments;
+			}
+			return references;
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ContainmentReferences.class;
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			if (notification.getFeature() == EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES) {
+				// The next query attaches a new cache
+				synchronized (ContainmentReferences.class) {
+					eClass.eAdapters().remove(this);
+				}
 			}
 		}
 	}
 
 	@Override
 	public boolean canHandleArtifact(Object artifact) {
-		try {
-			Class<?> genericType = ((Class<?>) ((ParameterizedType) this.getClass().getGenericSuperclass())
-					.getActualTypeArguments()[0]);
-
-			return genericType.isAssignableFrom(artifact.getClass());
-		} catch (NoClassDefFoundError e) {
-			return false;
+		if (!genericTypeResolved) {
+			try {
+				genericType = ((Class<?>) ((ParameterizedType) this.getClass().getGenericSuperclass())
+						.getActualTypeArguments()[0]);
+			} catch (NoClassDefFoundError e) {
+				genericType = null;
+			}
+			genericTypeResolved = true;
 		}
+		return genericType != null && genericType.isAssignableFrom(artifact.getClass());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -107,7 +167,7 @@ public abstract class AbstractArtifactHandler<T> implements IArtifactHandler<T>
 
 	@Override
 	public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
 		// TODO Auto-generated method stub
 	}
 
@@ -116,60 +176,9 @@ public abstract class AbstractArtifactHandler<T> implements IArtifactHandler<T>
 		return "";
 	}
 
-	/**
-	 * Checks if a connection for a relation between two elements already exists
-	 * 
-	 * @param source
-	 *            The source element of the relation
-	 * @param targets
-	 *            The target element of the relation
-	 * @param relation
-	 *            The relation between the elements
-	 * @param duplicationCheck
-	 *            List of concatenated strings containing all possible
-	 *            combinations for each relationship added to the tracemodel
-	 * @return
-	 */
-	public static boolean isDuplicatedEntry(EObject source, List<EObject> targets, EObject relation,
-			List<String> duplicationCheck) {
-		String connectionString = EMFHelper.getNameAttribute(source);
-		for (EObject target : targets) {
-			connectionString += EMFHelper.getNameAttribute(target);
-		}
-		connectionString += EMFHelper.getNameAttribute(relation);
-		return duplicationCheck.contains(connectionString);
-	}
-
-	/**
-	 * Adds all possible relations-ship strings as a concatenated string for a
-	 * relation between two elements
-	 * 
-	 * @param source
-	 *            The source element of the relation
-	 * @param targets
-	 *            The target element of the relation
-	 * @param relation
-	 *            The relation between the elements
-	 * @param duplicationCheck
-	 *            The list of strings the potential relation-ship strings are
-	 *            added to
-	 */
-	public static void addPotentialStringsForConnection(EObject source, List<EObject> targets, EObject relation,
-			List<String> duplicationCheck) {
-		String potentialString = EMFHelper.getNameAttribute(source);
-		for (EObject target : targets) {
-			potentialString += EMFHelper.getNameAttribute(target);
-		}
-		potentialString += EMFHelper.getNameAttribute(relation);
-		duplicationCheck.add(potentialString);
-
-		potentialString = "";
-		for (EObject target : targets) {
-			potentialString += EMFHelper.getNameAttribute(target);
-		}
-		potentialString += EMFHelper.getNameAttribute(source);
-		potentialString += EMFHelper.getNameAttribute(relation);
-		duplicationCheck.add(potentialString);
+	@Override
+	public boolean providesInternalTraces() {
+		return false;
 	}
 
 }
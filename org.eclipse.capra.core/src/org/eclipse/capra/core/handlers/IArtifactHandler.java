@@ -10,13 +10,14 @@
  *******************************************************************************/
 package org.eclipse.capra.core.handlers;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiFunction;
 
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
 import org.eclipse.emf.ecore.EObject;
 
 /**
@@ -105,10 +106,13 @@ public interface IArtifactHandler<T> {
 	 * @param allElements
 	 *            List of all elements for Plant-uml view
 	 * @param duplicationCheck
-	 *            List of String for checking for duplication
+	 *            the connections found so far, used to avoid adding the same
+	 *            connection twice
+	 * @param relationshipFilter
+	 *            the relationship types selected by the user
 	 */
 	void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter);
 
 	/**
 	 * Decide if two objects are connected according to the given trace model
@@ -126,6 +130,17 @@ public interface IArtifactHandler<T> {
 	 */
 	String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel);
 
+	/**
+	 * Declares whether {@link #isThereAnInternalTraceBetween} can report
+	 * internal traces at all. The trace matrix only asks handlers that do for
+	 * the internal traces between its elements.
+	 *
+	 * @return <code>true</code> if the handler implements
+	 *         {@link #isThereAnInternalTraceBetween}, <code>false</code> if it
+	 *         never reports an internal trace
+	 */
+	boolean providesInternalTraces();
+
 	/**
 	 * Returns the type that is handled by
 	 * this<code>IArtifactHandler</code>.**@return the type that
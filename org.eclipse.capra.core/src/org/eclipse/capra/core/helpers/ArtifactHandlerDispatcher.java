@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.capra.core.handlers.PriorityHandler;
+
+/**
+ * Chooses the handler for an artifact among a fixed set of artifact handlers.
+ * <p>
+ * Handlers decide whether they can handle an artifact based on its type (see
+ * {@link IArtifactHandler}), so the handlers that can handle an artifact are
+ * determined once per runtime class of the artifact. If there are several of
+ * them, the {@link PriorityHandler} is asked for every artifact, since it
+ * receives the artifact and may choose differently for each instance.
+ */
+public class ArtifactHandlerDispatcher {
+
+	private final Collection<? extends IArtifactHandler<?>> handlers;
+	private final Optional<PriorityHandler> priorityHandler;
+	private final Map<Class<?>, List<IArtifactHandler<?>>> candidates = new ConcurrentHashMap<>();
+
+	/**
+	 * @param handlers
+	 *            the available artifact handlers
+	 * @param priorityHandler
+	 *            chooses among several handlers that can handle an artifact
+	 */
+	public ArtifactHandlerDispatcher(Collection<? extends IArtifactHandler<?>> handlers,
+			Optional<PriorityHandler> priorityHandler) {
+		this.handlers = handlers;
+		this.priorityHandler = priorityHandler;
+	}
+
+	/**
+	 * @return the available artifact handlers
+	 */
+	public Collection<? extends IArtifactHandler<?>> getHandlers() {
+		return handlers;
+	}
+
+	/**
+	 * Returns the handler for the given artifact.
+	 *
+	 * @param artifact
+	 *            the artifact to find a handler for
+	 * @return the only handler that can handle the artifact, the one chosen
+	 *         by the priority handler if there are several, or an empty
+	 *         {@link Optional} if there is none or no priority handler
+	 */
+	public Optional<IArtifactHandler<?>> getHandler(Object artifact) {
+		List<IArtifactHandler<?>> availableHandlers = getCandidates(artifact);
+		if (availableHandlers.isEmpty()) {
+			return Optional.empty();
+		} else if (availableHandlers.size() == 1) {
+			return Optional.of(availableHandlers.get(0));
+		} else {
+			return priorityHandler.map(h -> h.getSelectedHandler(availableHandlers, artifact));
+		}
+	}
+
+	/**
+	 * Returns the handlers that can handle artifacts of the runtime class of
+	 * the given artifact.
+	 */
+	private List<IArtifactHandler<?>> getCandidates(Object artifact) {
+		Class<?> artifactClass = artifact.getClass();
+		List<IArtifactHandler<?>> availableHandlers = candidates.get(artifactClass);
+		if (availableHandlers == null) {
+			availableHandlers = Collections.unmodifiableList(
+					handlers.stream().filter(h -> h.canHandleArtifact(artifact)).collect(toList()));
+			candidates.put(artifactClass, availableHandlers);
+		}
+		return availableHandlers;
+	}
+}
@@ -2,26 +2,20 @@ package org.eclipse.capra.core.helpers;
 
 import static java.util.stream.Collectors.toList;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.eclipse.capra.core.handlers.IArtifactHandler;
-import org.eclipse.capra.core.handlers.PriorityHandler;
 import org.eclipse.capra.handler.eastadl.EASTADLHandler;
 import org.eclipse.emf.ecore.EObject;
 
 public class ArtifactHelper {
 	private EObject artifactModel;
-	// Switch to Optional here to express potential absence in the type
-	private static Optional<PriorityHandler> priorityHandler = ExtensionPointHelper.getPriorityHandler();
-	
-	// This is a tricky type... It is not really necessary here, but let's take it as a generics tutorial example! 
-	// 
-	// I used it during development because this type can contain collections both of type IArtifactHandler<?> 
-	// AND of IArtifactHandler<Object>. The simpler type Collection<IArtifactHandler<?>> can only hold 
-	// IArtifactHandler<?>. 
-	private static Collection<? extends IArtifactHandler<?>> handlers = ExtensionPointHelper.getArtifactHandlers();
+	private static volatile long registryGeneration = ExtensionPointHelper.getRegistryGeneration();
+	// Chooses the handler for an artifact, remembering the handlers that can
+	// handle each runtime class of an artifact
+	private static volatile ArtifactHandlerDispatcher dispatcher = new ArtifactHandlerDispatcher(
+			ExtensionPointHelper.getArtifactHandlers(), ExtensionPointHelper.getPriorityHandler());
 
 	/**
 	 * @param artifactModel
@@ -41,7 +35,8 @@ public class ArtifactHelper {
 		return (List<EObject>) (Object)artifacts.stream()
 			.map(vagueArtifact -> 
 				getHandler(vagueArtifact).map(h -> h.withCastedHandlerUnchecked(vagueArtifact, 
-					(handler, artifact) -> handler.createWrapper(artifact, artifactModel))))
+					(handler, artifact) -> ArtifactLabels.storeLabel(handler.createWrapper(artifact, artifactModel),
+						handler, artifact))))
 			.filter(Optional::isPresent)
 			.map(Optional::get)
 			.collect(toList());
@@ -57,30 +52,37 @@ public class ArtifactHelper {
 	public EObject createWrapper(Object vagueArtifact) {
 		Optional<EObject> wrapped = getHandler(vagueArtifact).map(
 			vagueHandler -> vagueHandler.withCastedHandlerUnchecked(vagueArtifact, 
-				(handler, artifact) -> handler.createWrapper(artifact, artifactModel)));
+				(handler, artifact) -> ArtifactLabels.storeLabel(handler.createWrapper(artifact, artifactModel),
+					handler, artifact)));
 		
 		return wrapped.orElse(null);
 	}
 	
 	// Returns handler for same type as the argument
 	public <T> Optional<IArtifactHandler<?>> getHandler(Object artifact) {
+		refreshHandlers();
+		return dispatcher.getHandler(artifact);
+	}
 
-		List<IArtifactHandler<?>> availableHandlers = handlers.stream()
-			.filter(h -> h.canHandleArtifact(artifact))
-			.collect(toList());
-		
-		if (availableHandlers.isEmpty()) {
-			return Optional.empty();
-		} else if (availableHandlers.size() == 1) {
-			return Optional.of(availableHandlers.get(0));
-		} else {
-			return priorityHandler
-				.map(h -> h.getSelectedHandler(availableHandlers, artifact));
+	// Reloads the handlers and forgets which handlers can handle which
+	// classes if the extension registry has changed since they were loaded
+	private static void refreshHandlers() {
+		if (ExtensionPointHelper.getRegistryGeneration() == registryGeneration) {
+			return;
+		}
+		synchronized (ArtifactHelper.class) {
+			long generation = ExtensionPointHelper.getRegistryGeneration();
+			if (generation != registryGeneration) {
+				dispatcher = new ArtifactHandlerDispatcher(ExtensionPointHelper.getArtifactHandlers(),
+						ExtensionPointHelper.getPriorityHandler());
+				registryGeneration = generation;
+			}
 		}
 	}
 
 	public <T> Optional<IArtifactHandler<?>> getEastAdlHandler(Object artifact) {
-		List<IArtifactHandler<?>> availableHandlers = handlers.stream()
+		refreshHandlers();
+		List<IArtifactHandler<?>> availableHandlers = dispatcher.getHandlers().stream()
 				.filter(h -> h.getClass().isAssignableFrom(EASTADLHandler.class)).collect(toList());
 		return Optional.of(availableHandlers.get(0));
 	}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
+import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Provides the display names of artifacts. The display name of a wrapped
+ * artifact is determined by resolving the wrapper through its handler, e.g.,
+ * by looking up a Java element, which is too expensive to be repeated
+ * whenever a view is rendered. Therefore, the display name is stored in the
+ * wrapper along with a fingerprint of the artifact when the wrapper is
+ * created. The fingerprint is the modification stamp of the workspace file
+ * containing the artifact, which can be determined without resolving the
+ * wrapper. A stored display name is only used as long as the fingerprint of
+ * the artifact has not changed, e.g., by editing the file while the listeners
+ * that refresh the stored display names were not running.
+ * <p>
+ * Other display names are cached by the handler and URI of the wrapper. Only
+ * the display names used most recently are kept, so that the cache does not
+ * grow with every artifact that has ever been displayed, e.g., of projects
+ * that have been closed since. The listeners that are notified about changes
+ * of the wrapped artifacts refresh the stored display names and invalidate
+ * the cached ones, and all cached display names are discarded if the
+ * registered artifact handlers change.
+ */
+public class ArtifactLabels {
+
+	private static final int MAX_LABELS = 10000;
+	// Characters separating the URI of an artifact from the URIs of the
+	// artifacts contained in it
+	private static final String URI_SEPARATORS = "/#";
+
+	// Keyed by the name of the artifact handler and the URI of the wrapper, in
+	// the order of their last use. Guarded by itself.
+	private static final Map<List<String>, String> labels = new LinkedHashMap<List<String>, String>(16, 0.75f,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<String>, String> eldest) {
+			return size() > MAX_LABELS;
+		}
+	};
+	private static volatile long registryGeneration = ExtensionPointHelper.getRegistryGeneration();
+
+	private ArtifactLabels() {
+	}
+
+	/**
+	 * Returns the display name of the given artifact as provided by its
+	 * artifact handler. For artifact wrappers, the display name of the wrapped
+	 * artifact is returned.
+	 *
+	 * @param artifact
+	 *            an artifact or an artifact wrapper
+	 * @return the display name, or the string representation of the artifact
+	 *         if no handler provides a display name
+	 */
+	public static String getDisplayName(Object artifact) {
+		if (artifact instanceof EObject) {
+			String label = getWrapperLabel((EObject) artifact);
+			if (label != null) {
+				return label;
+			}
+		}
+		return getHandlerDisplayName(artifact).orElseGet(artifact::toString);
+	}
+
+	/**
+	 * Returns the display name of the artifact wrapped by the given wrapper.
+	 * The wrapped artifact is only resolved if no display name has been
+	 * stored in the wrapper for the current fingerprint of the artifact. If it
+	 * cannot be resolved, the stored display name or the name of the wrapper
+	 * is returned.
+	 *
+	 * @param wrapper
+	 *            the artifact wrapper
+	 * @return the display name or <code>null</code> if the object is not an
+	 *         artifact wrapper
+	 */
+	public static String getWrapperLabel(EObject wrapper) {
+		Optional<ArtifactMetaModelAdapter> adapter = ExtensionPointHelper.getArtifactWrapperMetaModelAdapter();
+		if (!adapter.isPresent()) {
+			return null;
+		}
+		String handlerName = adapter.get().getArtifactHandler(wrapper);
+		String uri = adapter.get().getArtifactUri(wrapper);
+		if (handlerName == null || uri == null) {
+			return null;
+		}
+		String stored = adapter.get().getArtifactLabel(wrapper);
+		if (stored != null
+				&& Objects.equals(adapter.get().getArtifactFingerprint(wrapper), getFingerprint(adapter.get(), wrapper))) {
+			return stored;
+		}
+		refresh();
+		List<String> key = Arrays.asList(handlerName, uri);
+		synchronized (labels) {
+			String cached = labels.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		// Resolved without holding the lock, since this may take a while
+		String label;
+		IArtifactHandler<?> handler = adapter.get().getArtifactHandlerInstance(wrapper);
+		Object artifact = handler != null ? handler.resolveWrapper(wrapper) : null;
+		if (artifact == null) {
+			// The wrapped artifact is not available
+			label = stored != null ? stored : String.valueOf(adapter.get().getArtifactName(wrapper));
+		} else {
+			label = handler.withCastedHandler(artifact, (h, a) -> h.getDisplayName(a)).orElseGet(artifact::toString);
+		}
+		synchronized (labels) {
+			labels.put(key, label);
+		}
+		return label;
+	}
+
+	/**
+	 * Stores the display name and the fingerprint of the given artifact in
+	 * its wrapper. The wrapper is only modified if the display name or the
+	 * fingerprint has changed.
+	 *
+	 * @param wrapper
+	 *            the wrapper of the artifact
+	 * @param handler
+	 *            the handler that created the wrapper
+	 * @param artifact
+	 *            the wrapped artifact
+	 * @return the wrapper
+	 */
+	public static <T> EObject storeLabel(EObject wrapper, IArtifactHandler<T> handler, T artifact) {
+		Optional<ArtifactMetaModelAdapter> adapter = ExtensionPointHelper.getArtifactWrapperMetaModelAdapter();
+		if (wrapper == null || !adapter.isPresent() || adapter.get().getArtifactHandler(wrapper) == null) {
+			return wrapper;
+		}
+		String label = handler.getDisplayName(artifact);
+		String fingerprint = getFingerprint(adapter.get(), wrapper);
+		if (label != null && (!label.equals(adapter.get().getArtifactLabel(wrapper))
+				|| !fingerprint.equals(adapter.get().getArtifactFingerprint(wrapper)))) {
+			adapter.get().setArtifactLabel(wrapper, label, fingerprint);
+		}
+		return wrapper;
+	}
+
+	/**
+	 * Determines the display names of the artifacts with the given URIs again
+	 * and stores them in their wrappers. Must be called while the artifact
+	 * model is being modified, e.g., in {@link TraceModelSession#write}.
+	 *
+	 * @param artifactModel
+	 *            the artifact model containing the wrappers
+	 * @param artifactHandler
+	 *            the name of the artifact handler
+	 * @param artifactUris
+	 *            the URIs of the changed artifacts
+	 * @return <code>true</code> if any wrapper has been modified
+	 */
+	public static boolean refreshLabels(EObject artifactModel, String artifactHandler,
+			Collection<String> artifactUris) {
+		Optional<ArtifactMetaModelAdapter> adapter = ExtensionPointHelper.getArtifactWrapperMetaModelAdapter();
+		if (!adapter.isPresent()) {
+			return false;
+		}
+		boolean changed = false;
+		for (String uri : artifactUris) {
+			invalidate(artifactHandler, uri);
+			EObject wrapper = adapter.get().getArtifact(artifactModel, artifactHandler, uri);
+			if (wrapper == null) {
+				continue;
+			}
+			String stored = adapter.get().getArtifactLabel(wrapper);
+			String storedFingerprint = adapter.get().getArtifactFingerprint(wrapper);
+			IArtifactHandler<?> handler = adapter.get().getArtifactHandlerInstance(wrapper);
+			Object artifact = handler != null ? handler.resolveWrapper(wrapper) : null;
+			if (artifact != null) {
+				storeResolvedLabel(wrapper, handler, artifact);
+				changed |= !Objects.equals(adapter.get().getArtifactLabel(wrapper), stored)
+						|| !Objects.equals(adapter.get().getArtifactFingerprint(wrapper), storedFingerprint);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Discards the cached display names of the artifact with the given handler
+	 * and URI and of the artifacts whose URI continues the given URI after a
+	 * <code>/</code> or <code>#</code>, i.e., for most handlers, of the
+	 * artifacts contained in it.
+	 *
+	 * @param artifactHandler
+	 *            the name of the artifact handler
+	 * @param artifactUri
+	 *            the URI of the changed artifact
+	 */
+	public static void invalidate(String artifactHandler, String artifactUri) {
+		synchronized (labels) {
+			labels.keySet()
+					.removeIf(key -> key.get(0).equals(artifactHandler) && isContainedIn(key.get(1), artifactUri));
+		}
+	}
+
+	/**
+	 * Discards all cached display names.
+	 */
+	public static void invalidateAll() {
+		synchronized (labels) {
+			labels.clear();
+		}
+	}
+
+	// Whether the URI is the container URI or continues it after a separator
+	private static boolean isContainedIn(String uri, String containerUri) {
+		if (!uri.startsWith(containerUri)) {
+			return false;
+		}
+		if (uri.length() == containerUri.length()) {
+			return true;
+		}
+		return URI_SEPARATORS.indexOf(uri.charAt(containerUri.length())) >= 0 || (!containerUri.isEmpty()
+				&& URI_SEPARATORS.indexOf(containerUri.charAt(containerUri.length() - 1)) >= 0);
+	}
+
+	// Forgets all display names if the extension registry has changed since
+	// they were determined
+	private static void refresh() {
+		long generation = ExtensionPointHelper.getRegistryGeneration();
+		if (generation != registryGeneration) {
+			invalidateAll();
+			registryGeneration = generation;
+		}
+	}
+
+	private static <T> void storeResolvedLabel(EObject wrapper, IArtifactHandler<T> handler, Object artifact) {
+		handler.withCastedHandler(artifact, (h, a) -> storeLabel(wrapper, h, a));
+	}
+
+	// The modification stamp of the workspace file containing the wrapped
+	// artifact, if there is one
+	private static String getFingerprint(ArtifactMetaModelAdapter adapter, EObject wrapper) {
+		IResource resource = null;
+		try {
+			IPath path = adapter.getArtifactPath(wrapper);
+			if (path != null) {
+				resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+			}
+		} catch (RuntimeException e) {
+			// Wrappers without a path are not stored in a workspace file
+		}
+		long stamp = resource != null ? resource.getModificationStamp() : IResource.NULL_STAMP;
+		return Long.toHexString(stamp);
+	}
+
+	private static Optional<String> getHandlerDisplayName(Object artifact) {
+		return ExtensionPointHelper.getArtifactHandlers().stream()
+				.map(handler -> handler.withCastedHandler(artifact, (h, a) -> h.getDisplayName(a)))
+				.filter(Optional::isPresent).map(Optional::get).findFirst();
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Provides a shared, read-only copy of the artifact model for queries that
+ * only need to look up artifact handlers, e.g., when computing internal links
+ * or traceability matrices. The model is the one owned by the
+ * {@link TraceModelSession} and is therefore only reloaded when its files have
+ * changed on disk.
+ * <p>
+ * Callers must not modify the returned model. Operations that create or
+ * change artifact wrappers have to use {@link TraceModelSession#write}.
+ */
+public class ArtifactModelSession {
+
+	private static EObject artifactModel;
+	private static ArtifactHelper artifactHelper;
+
+	private ArtifactModelSession() {
+	}
+
+	/**
+	 * Returns the shared artifact model, reloading it if it has changed since
+	 * it was last loaded.
+	 *
+	 * @return the artifact model
+	 */
+	public static EObject getArtifactModel() {
+		// Not synchronized while waiting for the session to avoid deadlocks
+		EObject model = TraceModelSession.read((traceModel, artifacts) -> artifacts);
+		synchronized (ArtifactModelSession.class) {
+			if (model != artifactModel) {
+				artifactModel = model;
+				artifactHelper = null;
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Returns an {@link ArtifactHelper} for the shared artifact model.
+	 *
+	 * @return the artifact helper
+	 */
+	public static ArtifactHelper getArtifactHelper() {
+		EObject model = getArtifactModel();
+		synchronized (ArtifactModelSession.class) {
+			if (artifactHelper == null || model != artifactModel) {
+				artifactModel = model;
+				artifactHelper = new ArtifactHelper(model);
+			}
+			return artifactHelper;
+		}
+	}
+}
@@ -11,11 +11,17 @@
 package org.eclipse.capra.core.helpers;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EModelElement;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 import org.eclipse.uml2.uml.Message;
 
 /**
@@ -213,4 +219,93 @@ public class EMFHelper {
 	public static boolean objectIsOfUML2Package(EObject obj) {
 		return obj.getClass().getPackage().getName().equals("org.eclipse.uml2.uml.internal.impl");
 	}
+
+	/**
+	 * Returns all objects the given object refers to through non-containment
+	 * references without resolving proxies. This allows comparing the objects
+	 * using {@link #containsUnresolved} without loading their resources.
+	 *
+	 * @param eObject
+	 *            the referring object
+	 * @return the referenced objects, which might be proxies
+	 */
+	public static List<EObject> getUnresolvedReferences(final EObject eObject) {
+		List<EObject> references = new ArrayList<>();
+		for (Iterator<EObject> targets = ((InternalEList<EObject>) eObject.eCrossReferences())
+				.basicIterator(); targets.hasNext();) {
+			references.add(targets.next());
+		}
+		return references;
+	}
+
+	/**
+	 * Determines whether the given list contains the given object without
+	 * resolving proxies in the list. Proxies are considered to be equal to
+	 * the object if they refer to its URI.
+	 *
+	 * @param list
+	 *            the list to search, usually the value of a reference
+	 * @param eObject
+	 *            the object to search for
+	 * @return <code>true</code> if the list contains the object or a proxy
+	 *         for it
+	 */
+	public static boolean containsUnresolved(final List<? extends EObject> list, final EObject eObject) {
+		List<? extends EObject> candidates = list instanceof InternalEList
+				? ((InternalEList<? extends EObject>) list).basicList() : list;
+		URI uri = null;
+		for (EObject candidate : candidates) {
+			if (candidate == eObject) {
+				return true;
+			}
+			if (candidate.eIsProxy() || eObject.eIsProxy()) {
+				if (uri == null) {
+					uri = EcoreUtil.getURI(eObject);
+				}
+				if (uri.equals(EcoreUtil.getURI(candidate))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves all proxies contained in the given model that refer to objects
+	 * in the resource with the given URI. This is required before objects are
+	 * removed from or moved within that resource if it identifies its objects
+	 * by their position, since the proxies would refer to other objects
+	 * afterwards.
+	 *
+	 * @param model
+	 *            the root of the referring model, whose contents are all
+	 *            visited
+	 * @param resourceUri
+	 *            the URI of the resource the proxies refer to
+	 */
+	public static void resolveReferencesTo(final EObject model, final URI resourceUri) {
+		for (Iterator<EObject> contents = model.eAllContents(); contents.hasNext();) {
+			EObject object = contents.next();
+			for (EReference reference : object.eClass().getEAllReferences()) {
+				if (reference.isContainment() || reference.isDerived() || !reference.isResolveProxies()) {
+					continue;
+				}
+				if (reference.isMany()) {
+					InternalEList<?> targets = (InternalEList<?>) object.eGet(reference, false);
+					for (int i = 0; i < targets.size(); i++) {
+						if (isProxyInto((EObject) targets.basicGet(i), resourceUri)) {
+							targets.get(i);
+						}
+					}
+				} else if (isProxyInto((EObject) object.eGet(reference, false), resourceUri)) {
+					object.eGet(reference, true);
+				}
+			}
+		}
+	}
+
+	private static boolean isProxyInto(EObject object, URI resourceUri) {
+		return object != null && object.eIsProxy()
+				&& resourceUri.equals(((InternalEObject) object).eProxyURI().trimFragment());
+	}
 }
@@ -16,7 +16,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
@@ -25,11 +27,17 @@ import org.eclipse.capra.core.handlers.IArtifactHandler;
 import org.eclipse.capra.core.handlers.PriorityHandler;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionDelta;
 import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryChangeEvent;
+import org.eclipse.core.runtime.IRegistryChangeListener;
 import org.eclipse.core.runtime.Platform;
 
 /**
  * Provides functionality to work with relevant Capra extension points.
+ * Executable extensions are instantiated once and cached. The cache for an
+ * extension point is discarded when the extension registry reports changes
+ * to it.
  */
 public class ExtensionPointHelper {
 
@@ -44,6 +52,18 @@ public class ExtensionPointHelper {
 	private static final String PRIORITY_HANDLER_ID = "org.eclipse.capra.configuration.priorityHandlers";
 	private static final String PRIORITY_HANDLER_CONFIG = "class";
 
+	/**
+	 * Instantiated extensions, keyed by extension point ID and attribute.
+	 */
+	private static final Map<String, List<Object>> extensionCache = new ConcurrentHashMap<>();
+	/**
+	 * Instantiated single extensions, keyed by extension point ID, extension ID
+	 * and attribute.
+	 */
+	private static final Map<String, Object> singleExtensionCache = new ConcurrentHashMap<>();
+	private static IRegistryChangeListener registryListener = null;
+	private static volatile long registryGeneration = 0;
+
 	/**
 	 * Gets all extensions from the extension point ID and attribute passed.
 	 *
@@ -56,14 +76,24 @@ public class ExtensionPointHelper {
 	 * @return List of extensions
 	 */
 	public static List<Object> getExtensions(final String ID, final String CONFIG) {
+		String key = ID + "/" + CONFIG;
+		List<Object> extensions = extensionCache.get(key);
+		if (extensions != null) {
+			return extensions;
+		}
 		try {
-			IConfigurationElement[] configs = Platform.getExtensionRegistry().getConfigurationElementsFor(ID);
+			IExtensionRegistry registry = Platform.getExtensionRegistry();
+			registerRegistryListener(registry);
+			long generation = registryGeneration;
+			IConfigurationElement[] configs = registry.getConfigurationElementsFor(ID);
 
-			List<Object> extensions = new ArrayList<>();
+			// Created without holding the lock, since this activates the
+			// contributing plug-ins, which may look up extensions themselves
+			extensions = new ArrayList<>();
 			for (IConfigurationElement config : configs)
 				extensions.add(config.createExecutableExtension(CONFIG));
 
-			return extensions;
+			return publish(extensionCache, key, Collections.unmodifiableList(extensions), generation);
 		} catch (Exception ex) {
 			return Collections.emptyList();
 		}
@@ -77,17 +107,77 @@ public class ExtensionPointHelper {
 	 * @return extension
 	 */
 	public static Optional<IArtifactHandler<?>> getExtension(String extensionID, String ID, String CONFIG) {
+		String key = ID + "/" + extensionID + "/" + CONFIG;
+		Object cached = singleExtensionCache.get(key);
+		if (cached != null) {
+			return Optional.of((IArtifactHandler<?>) cached);
+		}
 		try {
 			IExtensionRegistry registry = Platform.getExtensionRegistry();
+			registerRegistryListener(registry);
+			long generation = registryGeneration;
 			IExtension extension = registry.getExtension(ID, extensionID);
 			IConfigurationElement[] elements = extension.getConfigurationElements();
-			return Optional.of((IArtifactHandler<?>) elements[0].createExecutableExtension(CONFIG));
+			IArtifactHandler<?> handler = (IArtifactHandler<?>) elements[0].createExecutableExtension(CONFIG);
+			return Optional.of((IArtifactHandler<?>) publish(singleExtensionCache, key, handler, generation));
 		} catch (Exception e) {
 			// Don't catch Exception! It can easily hide bugs!
 			return Optional.empty();
 		}
 	}
 
+	/**
+	 * Caches the given extensions unless another thread has cached extensions
+	 * for the same key in the meantime, in which case those are returned. The
+	 * extensions are not cached if the registry changed since they were read.
+	 */
+	private static <V> V publish(Map<String, V> cache, String key, V value, long generation) {
+		synchronized (extensionCache) {
+			if (generation != registryGeneration) {
+				return value;
+			}
+			V existing = cache.putIfAbsent(key, value);
+			return existing != null ? existing : value;
+		}
+	}
+
+	/**
+	 * Returns a counter that is incremented whenever the extension registry
+	 * changes. Callers that derive data from the returned extensions can use it
+	 * to detect that their data is outdated.
+	 *
+	 * @return the current generation of the extension registry
+	 */
+	public static long getRegistryGeneration() {
+		return registryGeneration;
+	}
+
+	/**
+	 * Registers a listener that discards the cached extensions of all
+	 * extension points that are affected by a change of the registry.
+	 */
+	private static void registerRegistryListener(IExtensionRegistry registry) {
+		synchronized (extensionCache) {
+			if (registryListener != null) {
+				return;
+			}
+			registryListener = new IRegistryChangeListener() {
+				@Override
+				public void registryChanged(IRegistryChangeEvent event) {
+					synchronized (extensionCache) {
+						registryGeneration++;
+						for (IExtensionDelta delta : event.getExtensionDeltas()) {
+							String prefix = delta.getExtensionPoint().getUniqueIdentifier() + "/";
+							extensionCache.keySet().removeIf(key -> key.startsWith(prefix));
+							singleExtensionCache.keySet().removeIf(key -> key.startsWith(prefix));
+						}
+					}
+				}
+			};
+			registry.addRegistryChangeListener(registryListener);
+		}
+	}
+
 	/**
 	 * Gets the configured {@link TraceMetaModelAdapter}.
 	 *
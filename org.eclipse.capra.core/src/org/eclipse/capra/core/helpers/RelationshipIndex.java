@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Maintains an index from the elements of a model to the relationships that
+ * refer to them, so that artifact handlers can retrieve the relationships of an
+ * element without walking the whole model, e.g., for every cell of the
+ * traceability matrix. Handlers only supply a {@link RelationshipExtractor}
+ * that determines the elements a relationship refers to. Each model has one
+ * index per class of extractor.
+ * <p>
+ * The index is attached as an adapter to the resource of the model, or to the
+ * root container of the model if it is not contained in a resource. It is
+ * built on the first query. Since the elements a relationship refers to are
+ * often held by separate objects, e.g., the ports of a connector, any change
+ * of the model discards the index, which is then rebuilt on the next query.
+ * When the resource is unloaded, e.g., because the editor of the model has
+ * been closed, the index removes itself from the model.
+ */
+public class RelationshipIndex extends EContentAdapter {
+
+	/**
+	 * Determines the elements a relationship refers to.
+	 */
+	public interface RelationshipExtractor {
+
+		/**
+		 * Returns the elements the given object connects if it is a
+		 * relationship.
+		 *
+		 * @param content
+		 *            an object of the model
+		 * @return the elements the object refers to, an empty list if it is
+		 *         not a relationship. May contain <code>null</code> for
+		 *         missing ends.
+		 */
+		List<? extends EObject> getRelatedElements(EObject content);
+	}
+
+	private final Notifier owner;
+	private final RelationshipExtractor extractor;
+	// Null if the index has to be rebuilt
+	private Map<EObject, Set<EObject>> element2Relationships;
+
+	private RelationshipIndex(Notifier owner, RelationshipExtractor extractor) {
+		this.owner = owner;
+		this.extractor = extractor;
+	}
+
+	/**
+	 * Returns the index of the given extractor for the model containing the
+	 * given element.
+	 *
+	 * @param element
+	 *            an element of the model
+	 * @param extractor
+	 *            determines the elements a relationship refers to
+	 * @return the index of the model
+	 */
+	public static synchronized RelationshipIndex getIndex(EObject element, RelationshipExtractor extractor) {
+		EObject root = EcoreUtil.getRootContainer(element);
+		Notifier owner = root.eResource() != null ? root.eResource() : root;
+		RelationshipIndex index = (RelationshipIndex) EcoreUtil.getExistingAdapter(owner, extractor.getClass());
+		if (index == null) {
+			index = new RelationshipIndex(owner, extractor);
+			owner.eAdapters().add(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the relationships that refer to the given element.
+	 *
+	 * @param element
+	 *            the element to look up
+	 * @return the relationships in the order they are contained in the model
+	 */
+	public synchronized List<EObject> getRelationships(EObject element) {
+		return new ArrayList<>(getIndexed(element));
+	}
+
+	/**
+	 * Returns the relationships that refer to both given elements.
+	 *
+	 * @param first
+	 *            the first element
+	 * @param second
+	 *            the second element
+	 * @return the relationships in the order they are contained in the model
+	 */
+	public synchronized List<EObject> getRelationshipsBetween(EObject first, EObject second) {
+		Set<EObject> firstRelationships = getIndexed(first);
+		Set<EObject> secondRelationships = getIndexed(second);
+		List<EObject> relationships = new ArrayList<>();
+		// The smaller set determines the work, both are in model order
+		boolean firstIsSmaller = firstRelationships.size() <= secondRelationships.size();
+		Set<EObject> candidates = firstIsSmaller ? firstRelationships : secondRelationships;
+		Set<EObject> others = firstIsSmaller ? secondRelationships : firstRelationships;
+		for (EObject relationship : candidates) {
+			if (others.contains(relationship)) {
+				relationships.add(relationship);
+			}
+		}
+		return relationships;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == extractor.getClass();
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch() || notification.getEventType() == Notification.REMOVING_ADAPTER) {
+			return;
+		}
+		if (notification.getNotifier() instanceof Resource) {
+			int featureID = notification.getFeatureID(Resource.class);
+			if (featureID == Resource.RESOURCE__IS_LOADED && !notification.getNewBooleanValue()) {
+				// The contents have already been removed, and with them the
+				// index from the elements of the model
+				owner.eAdapters().remove(this);
+			} else if (featureID != Resource.RESOURCE__CONTENTS) {
+				// E.g., the modification flag or the errors of the resource
+				return;
+			}
+		}
+		element2Relationships = null;
+	}
+
+	private Set<EObject> getIndexed(EObject element) {
+		if (element2Relationships == null) {
+			build();
+		}
+		return element2Relationships.getOrDefault(element, Collections.emptySet());
+	}
+
+	private void build() {
+		element2Relationships = new IdentityHashMap<>();
+		Iterator<EObject> modelContents = owner instanceof Resource ? ((Resource) owner).getAllContents()
+				: ((EObject) owner).eAllContents();
+		while (modelContents.hasNext()) {
+			EObject content = modelContents.next();
+			for (EObject element : extractor.getRelatedElements(content)) {
+				if (element != null) {
+					element2Relationships.computeIfAbsent(element, e -> new LinkedHashSet<>()).add(content);
+				}
+			}
+		}
+	}
+}
@@ -12,16 +12,27 @@ package org.eclipse.capra.core.helpers;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.TraceDescription;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
 import org.eclipse.capra.core.handlers.IAnnotateArtifact;
 import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
  * Helper class for creating traces
@@ -50,49 +61,168 @@ public class TraceHelper {
 	}
 
 	/**
-	 * Annotate artifacts represented by wrappers
+	 * Creates many traces at once. The wrappers of all artifacts are created in
+	 * one pass, so that artifacts occurring in several traces are only wrapped
+	 * once, and all traces are added to the trace model together. Traces that
+	 * connect fewer than two artifacts with a handler are left out.
+	 *
+	 * @param traces
+	 *            the types of the traces and the artifacts to connect
+	 * @param artifactHelper
+	 *            helper for the artifact model to add the wrappers to
+	 * @return the wrappers of the artifacts connected by the created traces,
+	 *         empty if no trace has been created
+	 */
+	public List<EObject> createTraces(List<? extends TraceDescription<?>> traces, ArtifactHelper artifactHelper) {
+		Map<Object, EObject> wrappers = new IdentityHashMap<>();
+		for (TraceDescription<?> trace : traces) {
+			for (Object artifact : trace.getSelection()) {
+				if (!wrappers.containsKey(artifact)) {
+					// Null for artifacts without a handler, which are left out
+					wrappers.put(artifact, TraceModelSession.resolve(artifactHelper.createWrapper(artifact)));
+				}
+			}
+		}
+
+		List<TraceDescription<EObject>> resolved = new ArrayList<>();
+		for (TraceDescription<?> trace : traces) {
+			List<EObject> selection = new ArrayList<>();
+			for (Object artifact : trace.getSelection()) {
+				EObject wrapper = wrappers.get(artifact);
+				if (wrapper != null) {
+					selection.add(wrapper);
+				}
+			}
+			if (selection.size() >= 2) {
+				resolved.add(new TraceDescription<>(trace.getTraceType(), selection));
+			}
+		}
+		if (resolved.isEmpty()) {
+			return new ArrayList<>();
+		}
+		traceAdapter.createTraces(traceModel, resolved);
+		return new ArrayList<>(new LinkedHashSet<>(
+				resolved.stream().flatMap(t -> t.getSelection().stream()).collect(Collectors.toList())));
+	}
+
+	/**
+	 * Creates many traces in the shared trace model, saving it once for all
+	 * of them. The connected artifacts are annotated afterwards.
+	 *
+	 * @param traces
+	 *            the types of the traces and the artifacts to connect
+	 * @return <code>true</code> if any trace has been created
+	 * @see #createTraces(List, ArtifactHelper)
+	 */
+	public static boolean createAndSaveTraces(List<? extends TraceDescription<?>> traces) {
+		List<EObject> wrappers = new ArrayList<>();
+		return TraceModelSession.writeInBackground((traceModel, artifactModel) -> {
+			wrappers.addAll(new TraceHelper(traceModel).createTraces(traces, new ArtifactHelper(artifactModel)));
+			// Wrappers created for traces that have been left out are removed
+			// again if nothing has been created
+			return !wrappers.isEmpty();
+		}, (traceModel, artifactModel) -> new TraceHelper(traceModel).prepareAnnotations(wrappers));
+	}
+
+	/**
+	 * Determines the annotations of the artifacts represented by the given
+	 * wrappers and returns an operation that applies them, one source file at
+	 * a time. Changes to the files are reported to the workspace once per
+	 * file.
+	 * <p>
+	 * The annotations are determined from the trace model, so this method
+	 * must be called while the models are accessible. The returned operation
+	 * only refers to copies of the wrappers and must be run after the models
+	 * have been released, since annotating acquires workspace locks and
+	 * listeners to the resulting changes might be waiting for the models.
 	 *
 	 * @param wrappers
+	 *            the wrappers of the artifacts to annotate
+	 * @return the operation annotating the artifacts
 	 */
-	public void annotateTrace(List<EObject> wrappers) {
-		// Annotate if possible
+	public Runnable prepareAnnotations(List<EObject> wrappers) {
+		Map<IPath, List<Runnable>> annotationsByFile = new LinkedHashMap<>();
 		for (EObject wrapper : wrappers) {
 			IArtifactHandler<?> handler = artifactAdapter.getArtifactHandlerInstance(wrapper);
-
 			if (handler instanceof IAnnotateArtifact) {
 				IAnnotateArtifact h = (IAnnotateArtifact) handler;
+				String annotation;
 				try {
-					// Get unique connected artifacts, not including this
-					// element
-					// TODO: maybe add an adapter method for this?
-					Set<EObject> connectedElements = new HashSet<EObject>();
-					List<String> selectedRelationshipTypes = new ArrayList<>();
-					final StringBuilder annotation = new StringBuilder();
-					List<Connection> connections = traceAdapter.getConnectedElements(wrapper, traceModel,
-							selectedRelationshipTypes);
-					connections.forEach(c -> {
-						c.getTargets().forEach(t -> {
-							if (t != wrapper) {
-								connectedElements.add(t);
-							}
-						});
-					});
-
-					// Build annotation string
-					connectedElements.forEach(e -> {
-						if (annotation.length() > 0) {
-							annotation.append(", ");
-						}
-						String name = artifactAdapter.getArtifactName(e);
-						annotation.append(name);
-					});
-
-					h.annotateArtifact(wrapper, annotation.toString());
+					annotation = getAnnotation(wrapper);
 				} catch (Exception e) {
 					// Ignore
+					continue;
+				}
+				IPath path = null;
+				try {
+					path = artifactAdapter.getArtifactPath(wrapper);
+				} catch (Exception e) {
+					// Annotated without grouping
 				}
+				// Handlers only read the URI of the wrapper, which is therefore
+				// copied along with the other data of the wrapper
+				EObject copy = EcoreUtil.copy(wrapper);
+				annotationsByFile.computeIfAbsent(path, p -> new ArrayList<>()).add(() -> {
+					try {
+						h.annotateArtifact(copy, annotation);
+					} catch (Exception e) {
+						// Ignore
+					}
+				});
 			}
 		}
+		return () -> {
+			for (List<Runnable> group : annotationsByFile.values()) {
+				try {
+					// No scheduling rule, since jobs holding one might be
+					// waiting for the trace model
+					ResourcesPlugin.getWorkspace().run(monitor -> group.forEach(Runnable::run), null,
+							IWorkspace.AVOID_UPDATE, null);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Annotate artifacts represented by wrappers
+	 *
+	 * @param wrappers
+	 */
+	public void annotateTrace(List<EObject> wrappers) {
+		prepareAnnotations(wrappers).run();
+	}
+
+	/**
+	 * Returns the names of the artifacts connected to the artifact represented
+	 * by the given wrapper, not including the artifact itself.
+	 */
+	private String getAnnotation(EObject wrapper) {
+		// Get unique connected artifacts, not including this element
+		// TODO: maybe add an adapter method for this?
+		Set<EObject> connectedElements = new HashSet<EObject>();
+		List<String> selectedRelationshipTypes = new ArrayList<>();
+		final StringBuilder annotation = new StringBuilder();
+		List<Connection> connections = traceAdapter.getConnectedElements(wrapper, traceModel,
+				selectedRelationshipTypes);
+		connections.forEach(c -> {
+			c.getTargets().forEach(t -> {
+				if (t != wrapper) {
+					connectedElements.add(t);
+				}
+			});
+		});
+
+		// Build annotation string
+		connectedElements.forEach(e -> {
+			if (annotation.length() > 0) {
+				annotation.append(", ");
+			}
+			String name = artifactAdapter.getArtifactName(e);
+			annotation.append(name);
+		});
+		return annotation.toString();
 	}
 
 }
@@ -0,0 +1,657 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Owns the one loaded copy of the trace model and the artifact model that is
+ * shared across the workspace. The models are loaded through the configured
+ * {@link TracePersistenceAdapter} on first access and only reloaded if their
+ * files have been changed by someone else than this session. Models that are
+ * referenced by trace links and loaded into the session are unloaded when
+ * their files change, so that they are loaded again on the next access.
+ * Changes of files in the workspace are noticed through resource change
+ * events, so that queries only compare the files with the loaded models after
+ * a change has been reported.
+ * <p>
+ * The models are only accessible from within an operation passed to one of
+ * the following methods:
+ * <ul>
+ * <li>{@link #read} runs queries concurrently with other queries.</li>
+ * <li>{@link #preview} runs an operation exclusively that may create artifact
+ * wrappers or trace links for display purposes. All elements it adds to the
+ * models are removed afterwards.</li>
+ * <li>{@link #write} runs a modification exclusively and saves both models
+ * afterwards.</li>
+ * <li>{@link #writeInBackground} runs a modification exclusively and saves
+ * both models in a background job. Saves requested in quick succession are
+ * combined into one.</li>
+ * </ul>
+ * Proxies are resolved when a resource is loaded into the session, since
+ * resolving a proxy replaces it in the list that refers to it, which must not
+ * happen while queries iterate over the same list.
+ * <p>
+ * Queries must not request exclusive access. Operations must not keep model
+ * elements beyond their own scope, except for displaying them, and should not
+ * acquire workspace scheduling rules, since jobs holding such a rule might be
+ * waiting for the session.
+ */
+public class TraceModelSession {
+
+	private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private static final String PLUGIN_ID = "org.eclipse.capra.core";
+	// Delay of background saves to combine modifications made in quick
+	// succession
+	private static final long SAVE_DELAY = 500;
+	private static final SaveJob saveJob = new SaveJob();
+
+	private static volatile ResourceSet resourceSet;
+	private static EObject traceModel;
+	private static EObject artifactModel;
+	// Identifies the state of the files the models were loaded from, null if
+	// the models have not been persisted yet
+	private static String fingerprint;
+	// Time stamps of the other resources at the time they were loaded
+	private static final Map<Resource, Long> timeStamps = new ConcurrentHashMap<>();
+	// URIs of the loaded resources, to recognize changes of their files
+	private static final Set<URI> loadedUris = ConcurrentHashMap.newKeySet();
+	// The workspace folders of the models, whose files all contribute to the
+	// fingerprint
+	private static volatile Set<IPath> modelFolders = Collections.emptySet();
+	// Whether a model is stored outside of the workspace, so that changes to it
+	// are not reported by the workspace
+	private static volatile boolean untracked;
+	// Number of reported changes of relevant files and the number up to which
+	// the files have been compared with the loaded models
+	private static final AtomicLong fileChanges = new AtomicLong();
+	private static final AtomicLong checkedChanges = new AtomicLong(-1);
+	private static final IResourceChangeListener changeListener = TraceModelSession::resourceChanged;
+	private static boolean listening;
+	// Whether the models have been modified without being saved yet
+	private static boolean savePending;
+	// Operations to run once the pending modifications have been saved
+	private static final List<BiFunction<EObject, EObject, Runnable>> afterSave = new ArrayList<>();
+
+	private TraceModelSession() {
+	}
+
+	/**
+	 * Runs a query on the shared models. Queries run concurrently with each
+	 * other and must not change the models.
+	 *
+	 * @param query
+	 *            receives the trace model and the artifact model
+	 * @return the result of the query
+	 */
+	public static <T> T read(BiFunction<EObject, EObject, T> query) {
+		boolean nested = lock.getReadHoldCount() > 0 || lock.isWriteLockedByCurrentThread();
+		lock.readLock().lock();
+		try {
+			if (!nested && isStale()) {
+				// The lock cannot be upgraded, so the models are refreshed with
+				// the write lock, which is then downgraded again
+				lock.readLock().unlock();
+				lock.writeLock().lock();
+				try {
+					refresh();
+				} finally {
+					lock.readLock().lock();
+					lock.writeLock().unlock();
+				}
+			}
+			return query.apply(traceModel, artifactModel);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Runs an operation exclusively that may add elements to the shared
+	 * models, e.g., by creating artifact wrappers for elements that are to be
+	 * displayed. All elements added to the models are removed again after the
+	 * operation has completed.
+	 *
+	 * @param operation
+	 *            receives the trace model and the artifact model
+	 * @return the result of the operation
+	 */
+	public static <T> T preview(BiFunction<EObject, EObject, T> operation) {
+		lock.writeLock().lock();
+		try {
+			refresh();
+			List<List<EObject>> contents = getContents();
+			try {
+				return operation.apply(traceModel, artifactModel);
+			} finally {
+				revertAdditions(contents);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Runs a modification exclusively and saves the shared models afterwards.
+	 * If the modification reports that it has not changed anything, elements
+	 * it has added to the models are removed again instead. If it fails or the
+	 * models cannot be saved, the models are discarded and loaded again on the
+	 * next access.
+	 *
+	 * @param modification
+	 *            receives the trace model and the artifact model and returns
+	 *            whether the models are to be saved
+	 * @return <code>true</code> if the models have been saved
+	 */
+	public static boolean write(BiPredicate<EObject, EObject> modification) {
+		lock.writeLock().lock();
+		try {
+			refresh();
+			List<List<EObject>> contents = getContents();
+			boolean changed;
+			try {
+				changed = modification.test(traceModel, artifactModel);
+			} catch (RuntimeException e) {
+				discard();
+				throw e;
+			}
+			if (!changed) {
+				revertAdditions(contents);
+				return false;
+			}
+			save();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Runs a modification exclusively like {@link #write}, but saves the
+	 * shared models in a background job. Modifications made before the job
+	 * runs are saved together. Until then, queries already see the modified
+	 * models. If saving fails, the models are discarded, which reverts all
+	 * modifications that have not been saved.
+	 *
+	 * @param modification
+	 *            receives the trace model and the artifact model and returns
+	 *            whether the models are to be saved
+	 * @param onSaved
+	 *            a query to run after the models have been saved, or
+	 *            <code>null</code>. It returns an operation that is run after
+	 *            the models have been released, e.g., to annotate the traced
+	 *            artifacts, which must not access the models.
+	 * @return <code>true</code> if the models have been modified
+	 */
+	public static boolean writeInBackground(BiPredicate<EObject, EObject> modification,
+			BiFunction<EObject, EObject, Runnable> onSaved) {
+		lock.writeLock().lock();
+		try {
+			refresh();
+			List<List<EObject>> contents = getContents();
+			boolean changed;
+			try {
+				changed = modification.test(traceModel, artifactModel);
+			} catch (RuntimeException e) {
+				discard();
+				throw e;
+			}
+			if (!changed) {
+				revertAdditions(contents);
+				return false;
+			}
+			savePending = true;
+			if (onSaved != null) {
+				afterSave.add(onSaved);
+			}
+			saveJob.schedule(SAVE_DELAY);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Waits until all modifications made through {@link #writeInBackground}
+	 * have been saved and the operations to run afterwards have completed.
+	 * Must not be called from within an operation.
+	 */
+	public static void awaitSaved() {
+		saveJob.wakeUp();
+		try {
+			saveJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Discards the shared models, e.g., after their files have been replaced
+	 * in a way that does not change their time stamps. They are loaded again
+	 * on the next access.
+	 */
+	public static void invalidate() {
+		lock.writeLock().lock();
+		try {
+			discard();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the object that corresponds to the given object in the models of
+	 * this session, loading its resource into the session if necessary. This
+	 * is required to look up trace links for objects that have been loaded
+	 * elsewhere, e.g., by an editor. Must only be called from within an
+	 * operation.
+	 *
+	 * @param object
+	 *            the object to look up
+	 * @return the corresponding object or the given object if it has not been
+	 *         persisted
+	 */
+	public static EObject resolve(EObject object) {
+		if (object == null || resourceSet == null || object.eResource() == null
+				|| object.eResource().getResourceSet() == resourceSet) {
+			return object;
+		}
+		URI uri = EcoreUtil.getURI(object);
+		try {
+			EObject resolved = resourceSet.getEObject(uri, true);
+			return resolved != null ? resolved : object;
+		} catch (RuntimeException e) {
+			// The resource might not have been saved yet, so it must not be
+			// kept in the session either
+			synchronized (resourceSet) {
+				Resource resource = resourceSet.getResource(uri.trimFragment(), false);
+				if (resource != null) {
+					resourceSet.getResources().remove(resource);
+				}
+			}
+			return object;
+		}
+	}
+
+	private static boolean isStale() {
+		if (savePending) {
+			// Reloading would lose the modifications
+			return false;
+		}
+		if (traceModel == null || fingerprint == null) {
+			return true;
+		}
+		long changes = fileChanges.get();
+		if (changes == checkedChanges.get() && !untracked) {
+			return false;
+		}
+		if (!fingerprint.equals(computeFingerprint())) {
+			return true;
+		}
+		for (Resource resource : getResources()) {
+			if (isChanged(resource)) {
+				return true;
+			}
+		}
+		checkedChanges.accumulateAndGet(changes, Math::max);
+		return false;
+	}
+
+	// Must be called with the write lock
+	private static void refresh() {
+		if (savePending) {
+			return;
+		}
+		// Changes reported from now on are compared on the next access
+		long changes = fileChanges.get();
+		if (traceModel == null || fingerprint == null) {
+			load();
+		} else if (changes != checkedChanges.get() || untracked) {
+			if (!fingerprint.equals(computeFingerprint())) {
+				load();
+			} else {
+				boolean unloaded = false;
+				for (Resource resource : getResources()) {
+					if (isChanged(resource)) {
+						// Trace links referring to the resource become proxies
+						// again
+						resource.unload();
+						timeStamps.remove(resource);
+						unloaded = true;
+					}
+				}
+				if (unloaded) {
+					EcoreUtil.resolveAll(resourceSet);
+				}
+			}
+		}
+		checkedChanges.accumulateAndGet(changes, Math::max);
+	}
+
+	private static void load() {
+		discard();
+		if (!listening) {
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(changeListener,
+					IResourceChangeEvent.POST_CHANGE);
+			listening = true;
+		}
+		resourceSet = new SessionResourceSet();
+		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+		traceModel = persistenceAdapter.getTraceModel(resourceSet);
+		artifactModel = persistenceAdapter.getArtifactWrappers(resourceSet);
+		fingerprint = computeFingerprint();
+		// Models might have been loaded without demand
+		EcoreUtil.resolveAll(resourceSet);
+	}
+
+	// Must be called with the write lock
+	private static void save() {
+		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+		try {
+			persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+		} catch (RuntimeException e) {
+			// The models no longer correspond to their files
+			discard();
+			throw e;
+		}
+		savePending = false;
+		// Models that had not been saved before are saved in a resource of
+		// their own and need to be brought back into the session
+		for (EObject model : Arrays.asList(traceModel, artifactModel)) {
+			Resource resource = model.eResource();
+			if (resource != null && resource.getResourceSet() != resourceSet) {
+				resourceSet.getResources().add(resource);
+			}
+		}
+		fingerprint = computeFingerprint();
+		// Resources stored along with the models, e.g., their shards,
+		// have been written by this session as well
+		timeStamps.replaceAll((resource, timeStamp) -> getTimeStamp(resource.getURI()));
+	}
+
+	private static void discard() {
+		resourceSet = null;
+		traceModel = null;
+		artifactModel = null;
+		fingerprint = null;
+		timeStamps.clear();
+		loadedUris.clear();
+		modelFolders = Collections.emptySet();
+		untracked = false;
+		savePending = false;
+		afterSave.clear();
+	}
+
+	private static List<Resource> getResources() {
+		// Other queries might be loading resources at the same time
+		synchronized (resourceSet) {
+			return new ArrayList<>(resourceSet.getResources());
+		}
+	}
+
+	/**
+	 * Counts changes of files in the folders of the models and of files loaded
+	 * into the session. Changes of markers only are ignored.
+	 */
+	private static void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null || resourceSet == null) {
+			return;
+		}
+		Set<IPath> folders = modelFolders;
+		boolean[] affected = new boolean[1];
+		try {
+			delta.accept(d -> {
+				if (affected[0]) {
+					return false;
+				}
+				if (d.getResource().getType() == IResource.FILE
+						&& (d.getKind() != IResourceDelta.CHANGED || (d.getFlags() & ~IResourceDelta.MARKERS) != 0)) {
+					IPath path = d.getFullPath();
+					affected[0] = folders.contains(path.removeLastSegments(1))
+							|| loadedUris.contains(URI.createPlatformResourceURI(path.toString(), true));
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+			affected[0] = true;
+		}
+		if (affected[0]) {
+			fileChanges.incrementAndGet();
+		}
+	}
+
+	private static boolean isChanged(Resource resource) {
+		if (!resource.isLoaded() || resource == traceModel.eResource() || resource == artifactModel.eResource()) {
+			return false;
+		}
+		long timeStamp = getTimeStamp(resource.getURI());
+		Long known = timeStamps.putIfAbsent(resource, timeStamp);
+		return known != null && known != timeStamp;
+	}
+
+	/**
+	 * Models are often stored along with other files, e.g., journals, that
+	 * contribute to their state. Therefore all files in the folders of the
+	 * models are taken into account for workspace resources.
+	 */
+	private static String computeFingerprint() {
+		StringBuilder result = new StringBuilder();
+		Set<IContainer> folders = new LinkedHashSet<>();
+		boolean outsideWorkspace = false;
+		for (EObject model : Arrays.asList(traceModel, artifactModel)) {
+			Resource resource = model.eResource();
+			if (resource == null) {
+				return null;
+			}
+			URI uri = resource.getURI();
+			if (uri.isPlatformResource()) {
+				folders.add(ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(uri.toPlatformString(true)))
+						.getParent());
+			} else {
+				result.append(uri).append('@').append(getTimeStamp(uri)).append(';');
+				outsideWorkspace = true;
+			}
+		}
+		Set<IPath> folderPaths = new HashSet<>();
+		folders.forEach(folder -> folderPaths.add(folder.getFullPath()));
+		modelFolders = folderPaths;
+		untracked = outsideWorkspace;
+		try {
+			for (IContainer folder : folders) {
+				if (folder.exists()) {
+					for (IResource member : folder.members()) {
+						if (member.getType() == IResource.FILE) {
+							result.append(member.getFullPath()).append('@').append(member.getLocalTimeStamp())
+									.append('/').append(member.getModificationStamp()).append(';');
+						}
+					}
+				}
+			}
+		} catch (CoreException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return result.toString();
+	}
+
+	private static long getTimeStamp(URI uri) {
+		Map<String, ?> attributes = URIConverter.INSTANCE.getAttributes(uri,
+				Collections.singletonMap(URIConverter.OPTION_REQUESTED_ATTRIBUTES,
+						Collections.singleton(URIConverter.ATTRIBUTE_TIME_STAMP)));
+		Object stamp = attributes.get(URIConverter.ATTRIBUTE_TIME_STAMP);
+		return stamp instanceof Long ? (Long) stamp : URIConverter.NULL_TIME_STAMP;
+	}
+
+	// Contained objects are not resolved, since they might be stored in
+	// resources of their own
+	private static List<List<EObject>> getContents() {
+		return Arrays.asList(new ArrayList<>(getBasicContents(traceModel)),
+				new ArrayList<>(getBasicContents(artifactModel)));
+	}
+
+	private static List<EObject> getBasicContents(EObject model) {
+		return ((InternalEList<EObject>) model.eContents()).basicList();
+	}
+
+	private static void revertAdditions(List<List<EObject>> contents) {
+		List<EObject> models = Arrays.asList(traceModel, artifactModel);
+		for (int i = 0; i < models.size(); i++) {
+			Map<EObject, Boolean> previous = new IdentityHashMap<>();
+			contents.get(i).forEach(object -> previous.put(object, Boolean.TRUE));
+			for (EObject object : new ArrayList<>(getBasicContents(models.get(i)))) {
+				if (!previous.containsKey(object)) {
+					EcoreUtil.remove(object);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the modifications made through {@link #writeInBackground} and runs
+	 * the operations waiting for them.
+	 */
+	private static class SaveJob extends Job {
+
+		SaveJob() {
+			super("Saving trace links");
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			SubMonitor progress = SubMonitor.convert(monitor, "Saving trace links", 2);
+			List<BiFunction<EObject, EObject, Runnable>> queries;
+			lock.writeLock().lock();
+			try {
+				if (savePending) {
+					save();
+				}
+				queries = new ArrayList<>(afterSave);
+				afterSave.clear();
+			} catch (RuntimeException e) {
+				return new Status(IStatus.ERROR, PLUGIN_ID,
+						"Unable to save trace links, unsaved modifications have been discarded", e);
+			} finally {
+				lock.writeLock().unlock();
+			}
+			progress.worked(1);
+
+			if (!queries.isEmpty()) {
+				progress.subTask("Annotating traced artifacts");
+				// The operations acquire workspace locks, so they are run after
+				// releasing the models to avoid waiting for each other with
+				// workspace listeners that write to the models
+				List<Runnable> operations = read((traceModel, artifactModel) -> {
+					List<Runnable> result = new ArrayList<>();
+					for (BiFunction<EObject, EObject, Runnable> query : queries) {
+						Runnable operation = query.apply(traceModel, artifactModel);
+						if (operation != null) {
+							result.add(operation);
+						}
+					}
+					return result;
+				});
+				operations.forEach(Runnable::run);
+			}
+			progress.worked(1);
+			return Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Records the time stamp of a resource of the session when it is loaded.
+	 */
+	private static final Adapter loadTracker = new AdapterImpl() {
+		@Override
+		public void notifyChanged(Notification msg) {
+			if (msg.getFeatureID(Resource.class) == Resource.RESOURCE__IS_LOADED) {
+				Resource resource = (Resource) msg.getNotifier();
+				if (msg.getNewBooleanValue()) {
+					timeStamps.put(resource, getTimeStamp(resource.getURI()));
+					loadedUris.add(resource.getURI());
+				} else {
+					loadedUris.remove(resource.getURI());
+				}
+			}
+		}
+	};
+
+	/**
+	 * Loads resources one at a time, since queries may load resources
+	 * concurrently, e.g., through {@link TraceModelSession#resolve}. The
+	 * proxies of a resource are resolved while it is loaded, which loads the
+	 * resources it refers to as well, so that queries only see resolved
+	 * lists.
+	 */
+	private static class SessionResourceSet extends ResourceSetImpl {
+		@Override
+		public synchronized Resource getResource(URI uri, boolean loadOnDemand) {
+			return super.getResource(uri, loadOnDemand);
+		}
+
+		@Override
+		protected void demandLoad(Resource resource) throws IOException {
+			super.demandLoad(resource);
+			EcoreUtil.resolveAll(resource);
+		}
+
+		@Override
+		public Resource createResource(URI uri, String contentType) {
+			Resource resource = super.createResource(uri, contentType);
+			if (resource != null) {
+				resource.eAdapters().add(loadTracker);
+			}
+			return resource;
+		}
+	}
+}
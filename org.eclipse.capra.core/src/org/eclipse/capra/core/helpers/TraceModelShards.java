@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.core.helpers;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Describes how trace links are distributed over several resources, called
+ * shards, when a trace model is stored sharded. Every link is stored in the
+ * shard named after the keys of the elements it refers to, where the key of an
+ * element is the workspace project of its resource. Since artifact wrappers
+ * are all stored in the same resource, the key of a wrapper is the project of
+ * the artifact it wraps instead. The trace model itself
+ * only holds proxies to the links, which are resolved when needed. Since the
+ * name of a shard reveals its keys, the links of an element can be found by
+ * only resolving the proxies into shards with the key of the element.
+ */
+public class TraceModelShards {
+
+	/**
+	 * Appended to the name of the trace model file to name the folder that
+	 * contains its shards.
+	 */
+	public static final String FOLDER_SUFFIX = ".shards";
+
+	private static final String KEY_SEPARATOR = "+";
+	// Encoded "%2B", so that file names of shards remain unambiguous
+	private static final String ESCAPED_KEY_SEPARATOR = "%252B";
+	// Key of elements that are not stored in the workspace
+	private static final String DEFAULT_KEY = "_";
+
+	private TraceModelShards() {
+	}
+
+	/**
+	 * Returns the key of the shards that contain the links to elements stored
+	 * in the resource with the given URI.
+	 *
+	 * @param uri
+	 *            the URI of an element or its resource
+	 * @return the key of the element
+	 */
+	public static String getKey(URI uri) {
+		if (uri.isPlatformResource() && uri.segmentCount() > 1) {
+			// Project names might contain the separator of the keys
+			return uri.segment(1).replace(KEY_SEPARATOR, ESCAPED_KEY_SEPARATOR);
+		}
+		return DEFAULT_KEY;
+	}
+
+	/**
+	 * Returns the key of the shards that contain the links to the given
+	 * element. For artifact wrappers, this is the project of the wrapped
+	 * artifact, if its path starts with one. For other elements, it is the key
+	 * of their URI.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the key of the element
+	 * @see #getKey(URI)
+	 */
+	public static String getKey(EObject element) {
+		if (!element.eIsProxy()) {
+			String key = getArtifactKey(element);
+			if (key != null) {
+				return key;
+			}
+		}
+		return getKey(EcoreUtil.getURI(element));
+	}
+
+	/**
+	 * Returns the keys of all shards that might contain links to the given
+	 * element. Besides the key of the element, links to artifact wrappers can
+	 * be stored with the key of the artifact model, e.g., if the wrapper could
+	 * not be resolved when the link was stored.
+	 *
+	 * @param element
+	 *            the element
+	 * @return the keys of the element
+	 */
+	public static Set<String> getLookupKeys(EObject element) {
+		Set<String> keys = new LinkedHashSet<>();
+		keys.add(getKey(element));
+		keys.add(getKey(EcoreUtil.getURI(element)));
+		return keys;
+	}
+
+	/**
+	 * Returns the name of the shard the given link is to be stored in, without
+	 * a file extension. References are only resolved to determine the name if
+	 * they refer to resources that are already loaded, e.g., the artifact
+	 * model.
+	 *
+	 * @param link
+	 *            the trace link
+	 * @return the name of the shard
+	 */
+	public static String getShardName(EObject link) {
+		Set<String> keys = new TreeSet<>();
+		for (Iterator<EObject> targets = ((InternalEList<EObject>) link.eCrossReferences()).basicIterator(); targets
+				.hasNext();) {
+			keys.add(getKey(resolveLoaded(link, targets.next())));
+		}
+		if (keys.isEmpty()) {
+			keys.add(DEFAULT_KEY);
+		}
+		return String.join(KEY_SEPARATOR, keys);
+	}
+
+	private static String getArtifactKey(EObject element) {
+		Optional<ArtifactMetaModelAdapter> adapter = ExtensionPointHelper.getArtifactWrapperMetaModelAdapter();
+		if (!adapter.isPresent()) {
+			return null;
+		}
+		IPath path;
+		try {
+			path = adapter.get().getArtifactPath(element);
+		} catch (RuntimeException e) {
+			// Wrappers without a path are keyed by their URI
+			return null;
+		}
+		if (path == null) {
+			return null;
+		}
+		// Paths of artifacts outside of the workspace do not start with a
+		// project, e.g., file system paths or the addresses of tasks
+		if (!path.isAbsolute() || path.getDevice() != null || path.segmentCount() < 2
+				|| path.segment(0).contains(":")) {
+			return DEFAULT_KEY;
+		}
+		return URI.encodeSegment(path.segment(0), false).replace(KEY_SEPARATOR, ESCAPED_KEY_SEPARATOR);
+	}
+
+	private static EObject resolveLoaded(EObject link, EObject target) {
+		if (!target.eIsProxy() || link.eResource() == null || link.eResource().getResourceSet() == null) {
+			return target;
+		}
+		URI uri = ((InternalEObject) target).eProxyURI();
+		Resource resource = link.eResource().getResourceSet().getResource(uri.trimFragment(), false);
+		if (resource == null || !resource.isLoaded()) {
+			return target;
+		}
+		EObject resolved = resource.getEObject(uri.fragment());
+		return resolved != null ? resolved : target;
+	}
+
+	/**
+	 * Determines whether the shard with the given URI might contain links to
+	 * elements with the given key. URIs that do not refer to a shard might
+	 * contain any link.
+	 *
+	 * @param uri
+	 *            the URI of the shard or of an object contained in it
+	 * @param key
+	 *            the key of an element as returned by {@link #getLookupKeys}
+	 * @return <code>true</code> if the shard might contain links to the
+	 *         element
+	 */
+	public static boolean mayContain(URI uri, String key) {
+		int segments = uri.segmentCount();
+		if (segments < 2 || !uri.segment(segments - 2).endsWith(FOLDER_SUFFIX)) {
+			return true;
+		}
+		String name = uri.trimFileExtension().lastSegment();
+		return Arrays.asList(name.split("\\" + KEY_SEPARATOR)).contains(key);
+	}
+}
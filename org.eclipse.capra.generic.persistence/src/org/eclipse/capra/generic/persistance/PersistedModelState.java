@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *  
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.persistance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Remembers which top-level objects of a model root have been written to disk,
+ * either as part of the snapshot or of its journal. It is attached to the root
+ * of a loaded or saved model and observes all changes so that a later save can
+ * decide whether appending the newly added objects to the journal is enough.
+ * It also records which top-level objects have changed, so that only the
+ * shards containing them have to be written for a sharded model.
+ * <p>
+ * Top-level objects stored in shards are not resolved by this adapter.
+ */
+class PersistedModelState extends EContentAdapter {
+
+	private final EObject root;
+	private final String snapshotHash;
+	private final long snapshotModificationStamp;
+	private final Map<EReference, List<EObject>> persisted = new LinkedHashMap<>();
+	private final Set<EObject> persistedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<EObject> changedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+	private int journalRecords;
+	private boolean dirty = false;
+
+	private PersistedModelState(EObject root, String snapshotHash, long snapshotModificationStamp,
+			int journalRecords) {
+		this.root = root;
+		this.snapshotHash = snapshotHash;
+		this.snapshotModificationStamp = snapshotModificationStamp;
+		this.journalRecords = journalRecords;
+		markPersisted();
+	}
+
+	/**
+	 * Attaches a new state to the given root, replacing any existing one. All
+	 * current contents of the root are considered persisted.
+	 *
+	 * @param snapshotHash
+	 *            the hash of the contents of the snapshot, see
+	 *            {@link TraceModelJournal}
+	 * @param snapshotModificationStamp
+	 *            the modification stamp of the snapshot file in the workspace,
+	 *            which changes whenever the file is written
+	 */
+	static PersistedModelState attach(EObject root, String snapshotHash, long snapshotModificationStamp,
+			int journalRecords) {
+		PersistedModelState existing = get(root);
+		if (existing != null) {
+			root.eAdapters().remove(existing);
+		}
+		PersistedModelState state = new PersistedModelState(root, snapshotHash, snapshotModificationStamp,
+				journalRecords);
+		root.eAdapters().add(state);
+		return state;
+	}
+
+	static PersistedModelState get(EObject root) {
+		return (PersistedModelState) EcoreUtil.getExistingAdapter(root, PersistedModelState.class);
+	}
+
+	String getSnapshotHash() {
+		return snapshotHash;
+	}
+
+	long getSnapshotModificationStamp() {
+		return snapshotModificationStamp;
+	}
+
+	int getJournalRecords() {
+		return journalRecords;
+	}
+
+	/**
+	 * Determines the objects added to the root since the last write.
+	 *
+	 * @return the added objects per containment reference or
+	 *         <code>null</code> if the model changed in any other way and has
+	 *         to be written completely
+	 */
+	Map<EReference, List<EObject>> getAddedObjects() {
+		if (dirty) {
+			return null;
+		}
+		Map<EReference, List<EObject>> added = new LinkedHashMap<>();
+		for (EReference reference : root.eClass().getEAllContainments()) {
+			List<EObject> current = getContents(reference);
+			List<EObject> previous = persisted.getOrDefault(reference, Collections.emptyList());
+			if (current.size() < previous.size()) {
+				return null;
+			}
+			for (int i = 0; i < previous.size(); i++) {
+				if (current.get(i) != previous.get(i)) {
+					return null;
+				}
+			}
+			if (current.size() > previous.size()) {
+				added.put(reference, new ArrayList<>(current.subList(previous.size(), current.size())));
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the top-level objects whose contents have changed since the last
+	 * write.
+	 */
+	Set<EObject> getChangedObjects() {
+		return changedObjects;
+	}
+
+	/**
+	 * Forces the next save to write a complete snapshot.
+	 */
+	void markDirty() {
+		dirty = true;
+	}
+
+	/**
+	 * Records that the objects added since the last write have been appended
+	 * to the journal.
+	 */
+	void markAppended() {
+		journalRecords++;
+		markPersisted();
+	}
+
+	private void markPersisted() {
+		persisted.clear();
+		persistedObjects.clear();
+		changedObjects.clear();
+		for (EReference reference : root.eClass().getEAllContainments()) {
+			List<EObject> contents = new ArrayList<>(getContents(reference));
+			persisted.put(reference, contents);
+			persistedObjects.addAll(contents);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<EObject> getContents(EReference reference) {
+		Object value = root.eGet(reference, false);
+		if (reference.isMany()) {
+			return ((InternalEList<EObject>) value).basicList();
+		}
+		return value == null ? Collections.emptyList() : Collections.singletonList((EObject) value);
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == PersistedModelState.class;
+	}
+
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch() || notification.getEventType() == Notification.RESOLVE
+				|| notification.getEventType() == Notification.REMOVING_ADAPTER) {
+			return;
+		}
+		Object notifier = notification.getNotifier();
+		if (notifier == root) {
+			int eventType = notification.getEventType();
+			boolean added = eventType == Notification.ADD || eventType == Notification.ADD_MANY;
+			if (!(added && notification.getFeature() instanceof EReference
+					&& ((EReference) notification.getFeature()).isContainment())) {
+				dirty = true;
+			}
+		} else if (notifier instanceof EObject) {
+			EObject topLevel = (EObject) notifier;
+			while (topLevel.eContainer() != null && topLevel.eContainer() != root) {
+				topLevel = topLevel.eContainer();
+			}
+			changedObjects.add(topLevel);
+			if (persistedObjects.contains(topLevel)) {
+				// Objects already written can only be updated by a new snapshot
+				dirty = true;
+			}
+		}
+	}
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.persistance;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+public class PersistencePreferences {
+
+	public static final IScopeContext SCOPE_CONTEXT = InstanceScope.INSTANCE;
+	public static final String PREFERENCE_NODE = "org.eclipse.capra.generic.persistence";
+
+	// Storage format of the trace and artifact models, one of TraceModelFormat
+	public static final String STORAGE_FORMAT = "STORAGE_FORMAT";
+	public static final String STORAGE_FORMAT_DEFAULT = TraceModelFormat.XMI.name();
+
+	// Whether the trace links are stored in shards per traced project
+	public static final String SHARD_TRACE_MODEL = "SHARD_TRACE_MODEL";
+	public static final boolean SHARD_TRACE_MODEL_DEFAULT = false;
+
+	public static IEclipsePreferences getPreferences() {
+		return SCOPE_CONTEXT.getNode(PREFERENCE_NODE);
+	}
+
+}
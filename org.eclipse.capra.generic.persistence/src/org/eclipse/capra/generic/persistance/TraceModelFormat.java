@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *  
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.persistance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMLParserPoolImpl;
+
+/**
+ * The formats the trace and artifact models can be stored in, together with
+ * the options used to load and save them.
+ */
+public enum TraceModelFormat {
+
+	/**
+	 * XML Metadata Interchange, the default format.
+	 */
+	XMI("xmi"),
+
+	/**
+	 * The compact binary format of EMF, which loads and saves considerably
+	 * faster than XMI.
+	 */
+	BINARY("capra");
+
+	// Parsers are expensive to create, so they are shared between all loads
+	private static final XMLParserPoolImpl PARSER_POOL = new XMLParserPoolImpl();
+
+	private final String fileExtension;
+
+	private TraceModelFormat(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+	/**
+	 * Returns the options to pass to {@code Resource.load} for a resource in
+	 * this format.
+	 *
+	 * @param resourceSet
+	 *            the resource set the resource is loaded into
+	 */
+	public Map<Object, Object> getLoadOptions(ResourceSet resourceSet) {
+		Map<Object, Object> options = new HashMap<>();
+		if (this == XMI) {
+			options.put(XMLResource.OPTION_USE_PARSER_POOL, PARSER_POOL);
+			options.put(XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, getNameToFeatureMap(resourceSet));
+			options.put(XMLResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
+			options.put(XMLResource.OPTION_USE_DEPRECATED_METHODS, Boolean.FALSE);
+		} else {
+			options.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, 64 * 1024);
+		}
+		return options;
+	}
+
+	/**
+	 * Returns the options to pass to {@code Resource.save} for a resource in
+	 * this format.
+	 */
+	public Map<Object, Object> getSaveOptions() {
+		Map<Object, Object> options = new HashMap<>();
+		if (this == XMI) {
+			options.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, new ArrayList<>());
+			options.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+		} else {
+			options.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, 64 * 1024);
+		}
+		return options;
+	}
+
+	/**
+	 * Returns the name-to-feature map of the given resource set. It is kept in
+	 * the load options of the resource set, so that the features looked up by
+	 * one load are reused by all later loads of the session, including
+	 * demand-loads. The map is synchronized, since several threads can load
+	 * resources of the same resource set.
+	 */
+	private static Map<String, EStructuralFeature> getNameToFeatureMap(ResourceSet resourceSet) {
+		Map<Object, Object> loadOptions = resourceSet.getLoadOptions();
+		synchronized (loadOptions) {
+			@SuppressWarnings("unchecked")
+			Map<String, EStructuralFeature> nameToFeatureMap = (Map<String, EStructuralFeature>) loadOptions
+					.get(XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP);
+			if (nameToFeatureMap == null) {
+				nameToFeatureMap = Collections.synchronizedMap(new HashMap<>());
+				loadOptions.put(XMLResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, nameToFeatureMap);
+			}
+			return nameToFeatureMap;
+		}
+	}
+
+	/**
+	 * Returns the format configured in the {@link PersistencePreferences}.
+	 */
+	public static TraceModelFormat getConfiguredFormat() {
+		String format = PersistencePreferences.getPreferences().get(PersistencePreferences.STORAGE_FORMAT,
+				PersistencePreferences.STORAGE_FORMAT_DEFAULT);
+		try {
+			return valueOf(format);
+		} catch (IllegalArgumentException e) {
+			return XMI;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *  
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.persistance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * An append-only journal stored next to a model snapshot. Each record contains
+ * the top-level objects that were added to the root of the model by one save,
+ * serialised as an XMI document whose root has the same type as the model
+ * root. References to objects outside of a record are stored as regular EMF
+ * cross-document references, so they are resolved against the snapshot once
+ * the record has been replayed.
+ * <p>
+ * The journal starts with a hash of the contents of the snapshot it belongs
+ * to. A journal whose hash does not match the snapshot, e.g., because the
+ * snapshot has been rewritten by other means, is ignored. Unlike the time stamp
+ * of the file, the hash also detects a rewrite within the resolution of the
+ * file system clock and is not affected if only the time stamp changes.
+ */
+class TraceModelJournal {
+
+	private static final byte NEWLINE = '\n';
+
+	private final IFile file;
+	private final URI uri;
+
+	TraceModelJournal(IFile file) {
+		this.file = file;
+		this.uri = URI.createPlatformResourceURI(file.getFullPath().toString(), true);
+	}
+
+	boolean exists() {
+		return file.exists();
+	}
+
+	/**
+	 * Replays all records written for the given snapshot by adding their
+	 * objects to the root.
+	 *
+	 * @return the number of replayed records, or -1 if the journal does not
+	 *         belong to the snapshot or could not be replayed completely and
+	 *         the model has to be compacted
+	 */
+	@SuppressWarnings("unchecked")
+	int replay(EObject root, String snapshotHash) {
+		if (!file.exists()) {
+			return 0;
+		}
+		byte[] contents;
+		try (InputStream in = file.getContents(true)) {
+			contents = readAll(in);
+		} catch (IOException | CoreException e) {
+			e.printStackTrace();
+			return -1;
+		}
+
+		int position = indexOf(contents, 0);
+		if (position < 0
+				|| !new String(contents, 0, position, StandardCharsets.US_ASCII).trim().equals(snapshotHash)) {
+			// Left over from an older snapshot, which has to be replaced
+			// before anything can be appended again
+			return -1;
+		}
+		position++;
+
+		int records = 0;
+		while (position < contents.length) {
+			int end = indexOf(contents, position);
+			if (end < 0) {
+				return -1;
+			}
+			int length = (int) parseLong(contents, position, end);
+			position = end + 1;
+			if (length < 0 || position + length > contents.length) {
+				// Incomplete record, e.g., after a crash while appending
+				return -1;
+			}
+			try {
+				Resource record = new XMIResourceImpl(uri);
+				record.load(new ByteArrayInputStream(contents, position, length), null);
+				EObject recordRoot = record.getContents().get(0);
+				for (EReference reference : root.eClass().getEAllContainments()) {
+					if (reference.isMany()) {
+						List<EObject> added = new ArrayList<>((List<EObject>) recordRoot.eGet(reference));
+						((List<EObject>) root.eGet(reference)).addAll(added);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				return -1;
+			}
+			position += length;
+			records++;
+		}
+		return records;
+	}
+
+	/**
+	 * Appends a record with copies of the given objects.
+	 *
+	 * @param root
+	 *            the root of the model the objects have been added to
+	 * @param added
+	 *            the added objects per containment reference of the root
+	 * @param snapshotHash
+	 *            the hash of the snapshot, used if a new journal is started
+	 */
+	@SuppressWarnings("unchecked")
+	void append(EObject root, Map<EReference, List<EObject>> added, String snapshotHash)
+			throws IOException, CoreException {
+		EObject recordRoot = EcoreUtil.create(root.eClass());
+		Copier copier = new Copier();
+		for (Map.Entry<EReference, List<EObject>> entry : added.entrySet()) {
+			((List<EObject>) recordRoot.eGet(entry.getKey())).addAll(copier.copyAll(entry.getValue()));
+		}
+		copier.copyReferences();
+		Resource record = new XMIResourceImpl(uri);
+		record.getContents().add(recordRoot);
+		ByteArrayOutputStream serialised = new ByteArrayOutputStream();
+		record.save(serialised, null);
+
+		ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		if (!file.exists()) {
+			entry.write(snapshotHash.getBytes(StandardCharsets.US_ASCII));
+			entry.write(NEWLINE);
+		}
+		entry.write(Integer.toString(serialised.size()).getBytes(StandardCharsets.US_ASCII));
+		entry.write(NEWLINE);
+		serialised.writeTo(entry);
+
+		InputStream source = new ByteArrayInputStream(entry.toByteArray());
+		if (file.exists()) {
+			file.appendContents(source, true, false, null);
+		} else {
+			file.create(source, true, null);
+		}
+	}
+
+	void delete() throws CoreException {
+		if (file.exists()) {
+			file.delete(true, false, null);
+		}
+	}
+
+	/**
+	 * Computes the hash of the contents of the given snapshot, which identifies
+	 * the snapshot a journal belongs to.
+	 */
+	static String getSnapshotHash(IFile snapshot) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		try (InputStream in = snapshot.getContents(true)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} catch (CoreException e) {
+			throw new IOException(e);
+		}
+		StringBuilder hash = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hash.toString();
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static int indexOf(byte[] contents, int from) {
+		for (int i = from; i < contents.length; i++) {
+			if (contents[i] == NEWLINE) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static long parseLong(byte[] contents, int from, int to) {
+		try {
+			return Long.parseLong(new String(contents, from, to - from, StandardCharsets.US_ASCII).trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.persistance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.capra.core.helpers.TraceModelShards;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Stores the top-level objects of a model root in several resources, the
+ * shards, located in a folder next to the model file. Only objects contained
+ * in references that resolve proxies can be stored in a shard. The model file
+ * then only holds proxies to them, which are resolved when the objects are
+ * accessed. The shard of an object is determined by
+ * {@link TraceModelShards#getShardName}.
+ * <p>
+ * Only shards that have been loaded can have changed, so shards that have not
+ * been loaded are never written.
+ */
+class TraceModelSharding {
+
+	private final URI folderUri;
+	private final TraceModelFormat format;
+
+	/**
+	 * @param modelUri
+	 *            the URI of the model file
+	 * @param format
+	 *            the format the shards are stored in
+	 */
+	TraceModelSharding(URI modelUri, TraceModelFormat format) {
+		this.folderUri = modelUri.trimSegments(1)
+				.appendSegment(modelUri.lastSegment() + TraceModelShards.FOLDER_SUFFIX);
+		this.format = format;
+	}
+
+	/**
+	 * Determines whether the objects of the given root can be stored in
+	 * shards.
+	 */
+	static boolean isShardable(EObject root) {
+		return !getShardedReferences(root).isEmpty();
+	}
+
+	/**
+	 * Determines whether any object of the given root is stored in a shard.
+	 * Proxies are not resolved.
+	 */
+	static boolean isSharded(EObject root) {
+		for (EReference reference : getShardedReferences(root)) {
+			InternalEList<EObject> children = getChildren(root, reference);
+			for (int i = 0; i < children.size(); i++) {
+				InternalEObject child = (InternalEObject) children.basicGet(i);
+				if (child.eIsProxy() || child.eDirectResource() != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves all objects of the given root, loading all shards.
+	 */
+	static void resolveAll(EObject root) {
+		for (EReference reference : getShardedReferences(root)) {
+			InternalEList<EObject> children = getChildren(root, reference);
+			for (int i = 0; i < children.size(); i++) {
+				children.get(i);
+			}
+		}
+	}
+
+	/**
+	 * Moves all objects of the given root to their shards and writes the
+	 * shards that have changed. Shards that are no longer needed are deleted.
+	 * Must be called before the model file itself is saved, since the model
+	 * file refers to the objects in their shards.
+	 *
+	 * @param root
+	 *            the root of the model, which has to be contained in a
+	 *            resource
+	 * @param changedObjects
+	 *            the objects whose contents have changed since the shards were
+	 *            last written
+	 * @param rewriteLoaded
+	 *            whether all shards that have been loaded are to be written,
+	 *            e.g., because the objects they refer to have been moved
+	 */
+	void save(EObject root, Set<EObject> changedObjects, boolean rewriteLoaded) throws IOException, CoreException {
+		ResourceSet resourceSet = root.eResource().getResourceSet();
+		Set<Resource> changed = new LinkedHashSet<>();
+		resolveLoaded(root, resourceSet);
+		for (EReference reference : getShardedReferences(root)) {
+			InternalEList<EObject> children = getChildren(root, reference);
+			for (int i = 0; i < children.size(); i++) {
+				InternalEObject child = (InternalEObject) children.basicGet(i);
+				if (child.eIsProxy()) {
+					continue;
+				}
+				URI shardUri = folderUri
+						.appendSegment(TraceModelShards.getShardName(child) + "." + format.getFileExtension());
+				Resource current = child.eDirectResource();
+				if (current == null || !shardUri.equals(current.getURI())) {
+					if (current != null) {
+						changed.add(current);
+					}
+					Resource shard = getShard(resourceSet, shardUri);
+					shard.getContents().add(child);
+					changed.add(shard);
+				} else if (rewriteLoaded || changedObjects.contains(child)) {
+					changed.add(current);
+				}
+			}
+		}
+
+		// Shards loaded above might contain objects whose proxies have not
+		// been resolved yet, which must not be mistaken for removed objects
+		resolveLoaded(root, resourceSet);
+		for (Resource resource : new ArrayList<>(resourceSet.getResources())) {
+			if (!resource.isLoaded() || !folderUri.equals(resource.getURI().trimSegments(1))) {
+				continue;
+			}
+			for (EObject object : new ArrayList<>(resource.getContents())) {
+				// Objects removed from the root remain in their shard
+				if (object.eContainer() != root) {
+					resource.getContents().remove(object);
+					changed.add(resource);
+				}
+			}
+			if (rewriteLoaded) {
+				changed.add(resource);
+			}
+		}
+
+		for (Resource shard : changed) {
+			IFile file = getFile(shard.getURI());
+			if (shard.getContents().isEmpty()) {
+				if (file.exists()) {
+					file.delete(true, false, null);
+				}
+			} else {
+				IFolder folder = (IFolder) file.getParent();
+				if (!folder.exists()) {
+					folder.create(true, true, null);
+				}
+				shard.save(format.getSaveOptions());
+			}
+		}
+	}
+
+	/**
+	 * Moves all objects of the given root from their shards back into the
+	 * resource of the root. Shards are not deleted, since objects whose shard
+	 * could not be loaded remain proxies.
+	 *
+	 * @return <code>true</code> if any object has been moved
+	 */
+	static boolean gather(EObject root) {
+		boolean gathered = false;
+		for (EReference reference : getShardedReferences(root)) {
+			InternalEList<EObject> children = getChildren(root, reference);
+			for (int i = 0; i < children.size(); i++) {
+				InternalEObject child = (InternalEObject) children.basicGet(i);
+				if (child.eIsProxy()) {
+					child = (InternalEObject) children.get(i);
+				}
+				Resource shard = child.eDirectResource();
+				if (shard != null) {
+					// The object is attached to the resource of the root again
+					shard.getContents().remove(child);
+					gathered = true;
+				}
+			}
+		}
+		return gathered;
+	}
+
+	/**
+	 * Deletes all shards.
+	 */
+	void delete() throws CoreException {
+		IFolder folder = ResourcesPlugin.getWorkspace().getRoot().getFolder(new Path(folderUri.toPlatformString(true)));
+		if (folder.exists()) {
+			folder.delete(true, false, null);
+		}
+	}
+
+	private void resolveLoaded(EObject root, ResourceSet resourceSet) {
+		for (EReference reference : getShardedReferences(root)) {
+			InternalEList<EObject> children = getChildren(root, reference);
+			for (int i = 0; i < children.size(); i++) {
+				InternalEObject child = (InternalEObject) children.basicGet(i);
+				if (child.eIsProxy()) {
+					Resource shard = resourceSet.getResource(child.eProxyURI().trimFragment(), false);
+					if (shard != null && shard.isLoaded()) {
+						children.get(i);
+					}
+				}
+			}
+		}
+	}
+
+	private Resource getShard(ResourceSet resourceSet, URI uri) throws IOException {
+		Resource shard = resourceSet.getResource(uri, false);
+		if (shard == null) {
+			shard = resourceSet.createResource(uri);
+		}
+		if (!shard.isLoaded() && getFile(uri).exists()) {
+			shard.load(format.getLoadOptions(resourceSet));
+		}
+		return shard;
+	}
+
+	private static IFile getFile(URI uri) {
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(uri.toPlatformString(true)));
+	}
+
+	private static List<EReference> getShardedReferences(EObject root) {
+		List<EReference> references = new ArrayList<>();
+		for (EReference reference : root.eClass().getEAllContainments()) {
+			if (reference.isMany() && reference.isResolveProxies() && !reference.isDerived()) {
+				references.add(reference);
+			}
+		}
+		return references;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static InternalEList<EObject> getChildren(EObject root, EReference reference) {
+		return (InternalEList<EObject>) root.eGet(reference, false);
+	}
+}
@@ -11,11 +11,16 @@
 package org.eclipse.capra.generic.persistance;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
+import org.eclipse.capra.core.helpers.EMFHelper;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -23,6 +28,7 @@ import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
@@ -32,21 +38,60 @@ import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
  * {@link org.eclipse.capra.core.adapters.TracePersistenceAdapter} creates a
  * special project in the workspace to house the trace link model and the
  * artifact model.
+ * <p>
+ * Saving a model that has only been extended since it was loaded appends the
+ * new objects to a journal next to the model file instead of rewriting the
+ * whole file. The journal is replayed when the model is loaded and compacted
+ * into the model file once it has grown to {@link #COMPACTION_THRESHOLD}
+ * records or when the model has been changed in any other way.
+ * <p>
+ * The models are stored in the {@link TraceModelFormat} configured in the
+ * {@link PersistencePreferences}. Models stored in another format are still
+ * loaded and migrated to the configured format the next time they are saved.
+ * <p>
+ * If enabled in the {@link PersistencePreferences}, the trace links are stored
+ * in shards next to the trace model file as described by
+ * {@link TraceModelSharding}, so that only the links of the projects being
+ * looked at are loaded. Sharded models are not journaled; instead only the
+ * shards that have changed are written. Since trace links refer to artifact
+ * wrappers by position, references to artifact wrappers must be resolved
+ * before wrappers are removed from the artifact model.
  */
 public class TracePersistenceAdapter implements org.eclipse.capra.core.adapters.TracePersistenceAdapter {
 
 	private static final String DEFAULT_PROJECT_NAME = "__WorkspaceTraceModels";
-	private static final String DEFAULT_TRACE_MODEL_NAME = "traceModel.xmi";
-	private static final String DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME = "artifactWrappers.xmi";
+	private static final String DEFAULT_TRACE_MODEL_NAME = "traceModel";
+	private static final String DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME = "artifactWrappers";
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final int COMPACTION_THRESHOLD = 64;
 
 	private Optional<EObject> loadModel(ResourceSet resourceSet, String modelName) {
-		if (projectExist(DEFAULT_PROJECT_NAME) && fileExists(DEFAULT_PROJECT_NAME + "/" + modelName)) {
+		Optional<TraceModelFormat> format = getStoredFormat(modelName);
+		if (projectExist(DEFAULT_PROJECT_NAME) && format.isPresent()) {
 			try {
-				URI uri = URI.createPlatformResourceURI(DEFAULT_PROJECT_NAME + "/" + modelName, true);
-				Resource resource = resourceSet.getResource(uri, true);
-				resource.load(null);
+				if (modelName.equals(DEFAULT_TRACE_MODEL_NAME)) {
+					preloadArtifacts(resourceSet, format.get());
+				}
+				String fileName = getFileName(modelName, format.get());
+				URI uri = getURI(fileName);
+				Resource resource = resourceSet.getResource(uri, false);
+				if (resource == null) {
+					resource = resourceSet.createResource(uri);
+				}
+				resource.load(format.get().getLoadOptions(resourceSet));
 
-				return Optional.of(resource.getContents().get(0));
+				EObject root = resource.getContents().get(0);
+				if (PersistedModelState.get(root) == null) {
+					IFile file = getFile(fileName);
+					String hash = TraceModelJournal.getSnapshotHash(file);
+					int records = getJournal(fileName).replay(root, hash);
+					PersistedModelState state = PersistedModelState.attach(root, hash, file.getModificationStamp(),
+							Math.max(records, 0));
+					if (records < 0) {
+						state.markDirty();
+					}
+				}
+				return Optional.of(root);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -54,16 +99,75 @@ public class TracePersistenceAdapter implements org.eclipse.capra.core.adapters.
 		return Optional.empty();
 	}
 
+	/**
+	 * Trace links can refer to artifact wrappers that are only stored in the
+	 * journal of the artifact model or that are stored in a different format
+	 * after an incomplete migration. These references must not be resolved by
+	 * demand-loading the referenced file alone, so the artifact model is
+	 * loaded first. References to other formats are redirected to it.
+	 */
+	private void preloadArtifacts(ResourceSet resourceSet, TraceModelFormat traceFormat) {
+		Optional<TraceModelFormat> format = getStoredFormat(DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME);
+		if (!format.isPresent()) {
+			return;
+		}
+		String fileName = getFileName(DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME, format.get());
+		if (resourceSet.getResource(getURI(fileName), false) == null
+				&& (format.get() != traceFormat || getJournal(fileName).exists())) {
+			for (TraceModelFormat other : TraceModelFormat.values()) {
+				if (other != format.get()) {
+					resourceSet.getURIConverter().getURIMap().put(
+							getURI(getFileName(DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME, other)), getURI(fileName));
+				}
+			}
+			loadModel(resourceSet, DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME);
+		}
+	}
+
+	/**
+	 * Returns the format the model is currently stored in, preferring the
+	 * configured format if the model exists in several.
+	 */
+	private Optional<TraceModelFormat> getStoredFormat(String modelName) {
+		TraceModelFormat configured = TraceModelFormat.getConfiguredFormat();
+		if (getFile(getFileName(modelName, configured)).exists()) {
+			return Optional.of(configured);
+		}
+		for (TraceModelFormat format : TraceModelFormat.values()) {
+			if (getFile(getFileName(modelName, format)).exists()) {
+				return Optional.of(format);
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static String getFileName(String modelName, TraceModelFormat format) {
+		return modelName + "." + format.getFileExtension();
+	}
+
+	private static URI getURI(String fileName) {
+		return URI.createPlatformResourceURI(DEFAULT_PROJECT_NAME + "/" + fileName, true);
+	}
+
+	private IFile getFile(String fileName) {
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(DEFAULT_PROJECT_NAME + "/" + fileName));
+	}
+
+	private TraceModelJournal getJournal(String fileName) {
+		return new TraceModelJournal(getFile(fileName + JOURNAL_SUFFIX));
+	}
+
+	private static boolean isShardingEnabled() {
+		return PersistencePreferences.getPreferences().getBoolean(PersistencePreferences.SHARD_TRACE_MODEL,
+				PersistencePreferences.SHARD_TRACE_MODEL_DEFAULT);
+	}
+
 	@Override
 	public EObject getTraceModel(ResourceSet resourceSet) {
 		TraceMetaModelAdapter adapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
 		return loadModel(resourceSet, DEFAULT_TRACE_MODEL_NAME).orElse(adapter.createModel());
 	}
 
-	private boolean fileExists(String path) {
-		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(path)).exists();
-	}
-
 	private boolean projectExist(String defaultProjectName) {
 		return ResourcesPlugin.getWorkspace().getRoot().getProject(defaultProjectName).exists();
 	}
@@ -82,23 +186,100 @@ public class TracePersistenceAdapter implements org.eclipse.capra.core.adapters.
 	public void saveTracesAndArtifacts(EObject traceModel, EObject artifactModel) {
 		try {
 			ResourceSet resourceSet = new ResourceSetImpl();
+			ensureProjectExists(DEFAULT_PROJECT_NAME);
+			TraceModelFormat format = TraceModelFormat.getConfiguredFormat();
 
-			URI uri = URI.createPlatformResourceURI(DEFAULT_PROJECT_NAME + "/" + DEFAULT_TRACE_MODEL_NAME, true);
-			Resource resource = resourceSet.createResource(uri);
-			resource.getContents().add(traceModel);
+			// Trace links that still refer to the artifact model at its old
+			// location have to be resolved before it is migrated
+			Resource artifactResource = artifactModel.eResource();
+			URI artifactUri = getURI(getFileName(DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME, format));
+			if (artifactResource != null && !artifactUri.equals(artifactResource.getURI())) {
+				EMFHelper.resolveReferencesTo(traceModel, artifactResource.getURI());
+			}
 
-			uri = URI.createPlatformResourceURI(DEFAULT_PROJECT_NAME + "/" + DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME, true);
-			Resource resourceForArtifacts = resourceSet.createResource(uri);
-			resourceForArtifacts.getContents().add(artifactModel);
+			// Artifacts first, so that new trace links can refer to their
+			// final location. Trace links refer to artifact wrappers by
+			// position, so a rewritten artifact model requires rewriting the
+			// trace model as well.
+			boolean artifactsRewritten = saveModel(resourceSet, artifactModel, DEFAULT_ARTIFACT_WRAPPER_MODEL_NAME,
+					format, false);
+			saveModel(resourceSet, traceModel, DEFAULT_TRACE_MODEL_NAME, format, artifactsRewritten);
+		} catch (IOException | CoreException e) {
+			throw new IllegalStateException("Unable to save trace model!", e);
+		}
+	}
 
-			ensureProjectExists(DEFAULT_PROJECT_NAME);
+	/**
+	 * Saves a model either by appending to its journal or by writing a new
+	 * snapshot.
+	 * 
+	 * @return <code>true</code> if a new snapshot has been written
+	 */
+	private boolean saveModel(ResourceSet resourceSet, EObject model, String modelName, TraceModelFormat format,
+			boolean forceSnapshot) throws IOException, CoreException {
+		String fileName = getFileName(modelName, format);
+		URI uri = getURI(fileName);
+		IFile file = getFile(fileName);
+		TraceModelJournal journal = getJournal(fileName);
+		PersistedModelState state = PersistedModelState.get(model);
+		TraceModelSharding sharding = new TraceModelSharding(uri, format);
+		boolean sharded = modelName.equals(DEFAULT_TRACE_MODEL_NAME) && isShardingEnabled()
+				&& TraceModelSharding.isShardable(model);
+		boolean migrated = model.eResource() != null && !uri.equals(model.eResource().getURI());
+		// Shards refer to artifact wrappers by position as well
+		boolean rewriteShards = forceSnapshot;
+		if (sharded) {
+			forceSnapshot = true;
+			if (migrated) {
+				TraceModelSharding.resolveAll(model);
+			}
+		} else if (TraceModelSharding.isSharded(model)) {
+			forceSnapshot |= TraceModelSharding.gather(model);
+		}
 
-			resourceForArtifacts.save(null);
-			resource.save(null);
-		} catch (Exception e) {
-			System.err.println("Unable to save trace model!");
-			e.printStackTrace();
+		// Append to the journal only if the model was read from or written to
+		// the current snapshot and has not changed other than by additions
+		if (!forceSnapshot && state != null && model.eResource() != null && uri.equals(model.eResource().getURI())
+				&& file.exists() && file.getModificationStamp() == state.getSnapshotModificationStamp()
+				&& state.getJournalRecords() < COMPACTION_THRESHOLD) {
+			Map<EReference, List<EObject>> added = state.getAddedObjects();
+			if (added != null) {
+				if (!added.isEmpty()) {
+					journal.append(model, added, state.getSnapshotHash());
+					state.markAppended();
+				}
+				return false;
+			}
+		}
+
+		Resource resource = model.eResource();
+		if (resource == null || !uri.equals(resource.getURI())) {
+			resource = resourceSet.createResource(uri);
+			resource.getContents().add(model);
+		}
+		if (sharded) {
+			sharding.save(model, state != null ? state.getChangedObjects() : Collections.emptySet(), rewriteShards);
+		}
+		resource.save(format.getSaveOptions());
+		journal.delete();
+		if (!TraceModelSharding.isSharded(model)) {
+			sharding.delete();
+		}
+		PersistedModelState.attach(model, TraceModelJournal.getSnapshotHash(file), file.getModificationStamp(), 0);
+
+		// The model has been migrated if it was stored in another format
+		for (TraceModelFormat other : TraceModelFormat.values()) {
+			if (other != format) {
+				String otherFileName = getFileName(modelName, other);
+				getJournal(otherFileName).delete();
+				new TraceModelSharding(getURI(otherFileName), other).delete();
+				IFile otherFile = getFile(otherFileName);
+				if (otherFile.exists()) {
+					otherFile.delete(true, false, null);
+				}
+			}
 		}
+		return true;
 	}
 
 	@Override
@@ -140,6 +140,24 @@ public interface GenericArtifactMetaModelPackage extends EPackage {
 	 */
 	int ARTIFACT_WRAPPER__ARTIFACT_HANDLER = 3;
 
+	/**
+	 * The feature id for the '<em><b>Label</b></em>' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 * @ordered
+	 */
+	int ARTIFACT_WRAPPER__LABEL = 4;
+
+	/**
+	 * The feature id for the '<em><b>Fingerprint</b></em>' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 * @ordered
+	 */
+	int ARTIFACT_WRAPPER__FINGERPRINT = 5;
+
 	/**
 	 * The number of structural features of the '<em>Artifact Wrapper</em>' class.
 	 * <!-- begin-user-doc -->
@@ -147,7 +165,7 @@ public interface GenericArtifactMetaModelPackage extends EPackage {
 	 * @generated
 	 * @ordered
 	 */
-	int ARTIFACT_WRAPPER_FEATURE_COUNT = 4;
+	int ARTIFACT_WRAPPER_FEATURE_COUNT = 6;
 
 	/**
 	 * The number of operations of the '<em>Artifact Wrapper</em>' class.
@@ -234,6 +252,28 @@ public interface GenericArtifactMetaModelPackage extends EPackage {
 	 */
 	EAttribute getArtifactWrapper_ArtifactHandler();
 
+	/**
+	 * Returns the meta object for the attribute '{@link org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper#getLabel <em>Label</em>}'.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @return the meta object for the attribute '<em>Label</em>'.
+	 * @see org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper#getLabel()
+	 * @see #getArtifactWrapper()
+	 * @generated
+	 */
+	EAttribute getArtifactWrapper_Label();
+
+	/**
+	 * Returns the meta object for the attribute '{@link org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper#getFingerprint <em>Fingerprint</em>}'.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @return the meta object for the attribute '<em>Fingerprint</em>'.
+	 * @see org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper#getFingerprint()
+	 * @see #getArtifactWrapper()
+	 * @generated
+	 */
+	EAttribute getArtifactWrapper_Fingerprint();
+
 	/**
 	 * Returns the factory that creates the instances of the model.
 	 * <!-- begin-user-doc -->
@@ -317,6 +357,22 @@ public interface GenericArtifactMetaModelPackage extends EPackage {
 		 */
 		EAttribute ARTIFACT_WRAPPER__ARTIFACT_HANDLER = eINSTANCE.getArtifactWrapper_ArtifactHandler();
 
+		/**
+		 * The meta object literal for the '<em><b>Label</b></em>' attribute feature.
+		 * <!-- begin-user-doc -->
+		 * <!-- end-user-doc -->
+		 * @generated
+		 */
+		EAttribute ARTIFACT_WRAPPER__LABEL = eINSTANCE.getArtifactWrapper_Label();
+
+		/**
+		 * The meta object literal for the '<em><b>Fingerprint</b></em>' attribute feature.
+		 * <!-- begin-user-doc -->
+		 * <!-- end-user-doc -->
+		 * @generated
+		 */
+		EAttribute ARTIFACT_WRAPPER__FINGERPRINT = eINSTANCE.getArtifactWrapper_Fingerprint();
+
 	}
 
 } //GenericArtifactMetaModelPackage
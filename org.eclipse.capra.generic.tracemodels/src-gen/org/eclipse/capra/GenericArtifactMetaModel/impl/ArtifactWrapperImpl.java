@@ -24,6 +24,8 @@ import org.eclipse.emf.ecore.impl.MinimalEObjectImpl;
  *   <li>{@link org.eclipse.capra.GenericArtifactMetaModel.impl.ArtifactWrapperImpl#getUri <em>Uri</em>}</li>
  *   <li>{@link org.eclipse.capra.GenericArtifactMetaModel.impl.ArtifactWrapperImpl#getName <em>Name</em>}</li>
  *   <li>{@link org.eclipse.capra.GenericArtifactMetaModel.impl.ArtifactWrapperImpl#getArtifactHandler <em>Artifact Handler</em>}</li>
+ *   <li>{@link org.eclipse.capra.GenericArtifactMetaModel.impl.ArtifactWrapperImpl#getLabel <em>Label</em>}</li>
+ *   <li>{@link org.eclipse.capra.GenericArtifactMetaModel.impl.ArtifactWrapperImpl#getFingerprint <em>Fingerprint</em>}</li>
  * </ul>
  *
  * @generated
@@ -109,6 +111,46 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 	 */
 	protected String artifactHandler = ARTIFACT_HANDLER_EDEFAULT;
 
+	/**
+	 * The default value of the '{@link #getLabel() <em>Label</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getLabel()
+	 * @generated
+	 * @ordered
+	 */
+	protected static final String LABEL_EDEFAULT = null;
+
+	/**
+	 * The cached value of the '{@link #getLabel() <em>Label</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getLabel()
+	 * @generated
+	 * @ordered
+	 */
+	protected String label = LABEL_EDEFAULT;
+
+	/**
+	 * The default value of the '{@link #getFingerprint() <em>Fingerprint</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getFingerprint()
+	 * @generated
+	 * @ordered
+	 */
+	protected static final String FINGERPRINT_EDEFAULT = null;
+
+	/**
+	 * The cached value of the '{@link #getFingerprint() <em>Fingerprint</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getFingerprint()
+	 * @generated
+	 * @ordered
+	 */
+	protected String fingerprint = FINGERPRINT_EDEFAULT;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -212,6 +254,48 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 			eNotify(new ENotificationImpl(this, Notification.SET, GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__ARTIFACT_HANDLER, oldArtifactHandler, artifactHandler));
 	}
 
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public void setLabel(String newLabel) {
+		String oldLabel = label;
+		label = newLabel;
+		if (eNotificationRequired())
+			eNotify(new ENotificationImpl(this, Notification.SET, GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__LABEL, oldLabel, label));
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public void setFingerprint(String newFingerprint) {
+		String oldFingerprint = fingerprint;
+		fingerprint = newFingerprint;
+		if (eNotificationRequired())
+			eNotify(new ENotificationImpl(this, Notification.SET, GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__FINGERPRINT, oldFingerprint, fingerprint));
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -228,6 +312,10 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 				return getName();
 			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__ARTIFACT_HANDLER:
 				return getArtifactHandler();
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__LABEL:
+				return getLabel();
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__FINGERPRINT:
+				return getFingerprint();
 		}
 		return super.eGet(featureID, resolve, coreType);
 	}
@@ -252,6 +340,12 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__ARTIFACT_HANDLER:
 				setArtifactHandler((String)newValue);
 				return;
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__LABEL:
+				setLabel((String)newValue);
+				return;
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__FINGERPRINT:
+				setFingerprint((String)newValue);
+				return;
 		}
 		super.eSet(featureID, newValue);
 	}
@@ -276,6 +370,12 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__ARTIFACT_HANDLER:
 				setArtifactHandler(ARTIFACT_HANDLER_EDEFAULT);
 				return;
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__LABEL:
+				setLabel(LABEL_EDEFAULT);
+				return;
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__FINGERPRINT:
+				setFingerprint(FINGERPRINT_EDEFAULT);
+				return;
 		}
 		super.eUnset(featureID);
 	}
@@ -296,6 +396,10 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 				return NAME_EDEFAULT == null ? name != null : !NAME_EDEFAULT.equals(name);
 			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__ARTIFACT_HANDLER:
 				return ARTIFACT_HANDLER_EDEFAULT == null ? artifactHandler != null : !ARTIFACT_HANDLER_EDEFAULT.equals(artifactHandler);
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__LABEL:
+				return LABEL_EDEFAULT == null ? label != null : !LABEL_EDEFAULT.equals(label);
+			case GenericArtifactMetaModelPackage.ARTIFACT_WRAPPER__FINGERPRINT:
+				return FINGERPRINT_EDEFAULT == null ? fingerprint != null : !FINGERPRINT_EDEFAULT.equals(fingerprint);
 		}
 		return super.eIsSet(featureID);
 	}
@@ -318,6 +422,10 @@ public class ArtifactWrapperImpl extends MinimalEObjectImpl.Container implements
 		result.append(name);
 		result.append(", ArtifactHandler: ");
 		result.append(artifactHandler);
+		result.append(", label: ");
+		result.append(label);
+		result.append(", fingerprint: ");
+		result.append(fingerprint);
 		result.append(')');
 		return result.toString();
 	}
@@ -163,6 +163,24 @@ public class GenericArtifactMetaModelPackageImpl extends EPackageImpl implements
 		return (EAttribute)artifactWrapperEClass.getEStructuralFeatures().get(3);
 	}
 
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public EAttribute getArtifactWrapper_Label() {
+		return (EAttribute)artifactWrapperEClass.getEStructuralFeatures().get(4);
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public EAttribute getArtifactWrapper_Fingerprint() {
+		return (EAttribute)artifactWrapperEClass.getEStructuralFeatures().get(5);
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -199,6 +217,8 @@ public class GenericArtifactMetaModelPackageImpl extends EPackageImpl implements
 		createEAttribute(artifactWrapperEClass, ARTIFACT_WRAPPER__URI);
 		createEAttribute(artifactWrapperEClass, ARTIFACT_WRAPPER__NAME);
 		createEAttribute(artifactWrapperEClass, ARTIFACT_WRAPPER__ARTIFACT_HANDLER);
+		createEAttribute(artifactWrapperEClass, ARTIFACT_WRAPPER__LABEL);
+		createEAttribute(artifactWrapperEClass, ARTIFACT_WRAPPER__FINGERPRINT);
 	}
 
 	/**
@@ -242,6 +262,8 @@ public class GenericArtifactMetaModelPackageImpl extends EPackageImpl implements
 		initEAttribute(getArtifactWrapper_Uri(), theEcorePackage.getEString(), "uri", null, 0, 1, ArtifactWrapper.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, !IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
 		initEAttribute(getArtifactWrapper_Name(), theEcorePackage.getEString(), "name", null, 0, 1, ArtifactWrapper.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, !IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
 		initEAttribute(getArtifactWrapper_ArtifactHandler(), theEcorePackage.getEString(), "ArtifactHandler", null, 0, 1, ArtifactWrapper.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, !IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
+		initEAttribute(getArtifactWrapper_Label(), theEcorePackage.getEString(), "label", null, 0, 1, ArtifactWrapper.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, !IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
+		initEAttribute(getArtifactWrapper_Fingerprint(), theEcorePackage.getEString(), "fingerprint", null, 0, 1, ArtifactWrapper.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, !IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
 
 		// Create resource
 		createResource(eNS_URI);
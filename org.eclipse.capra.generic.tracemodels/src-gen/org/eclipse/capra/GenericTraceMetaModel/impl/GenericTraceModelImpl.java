@@ -70,7 +70,7 @@ public class GenericTraceModelImpl extends MinimalEObjectImpl.Container implemen
 	 */
 	public EList<RelatedTo> getTraces() {
 		if (traces == null) {
-			traces = new EObjectContainmentEList<RelatedTo>(RelatedTo.class, this, GenericTraceMetaModelPackage.GENERIC_TRACE_MODEL__TRACES);
+			traces = new EObjectContainmentEList.Resolving<RelatedTo>(RelatedTo.class, this, GenericTraceMetaModelPackage.GENERIC_TRACE_MODEL__TRACES);
 		}
 		return traces;
 	}
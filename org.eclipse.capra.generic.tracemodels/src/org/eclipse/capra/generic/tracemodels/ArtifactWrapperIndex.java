@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.tracemodels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.GenericArtifactMetaModel.GenericArtifactMetaModelPackage;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Indexes the {@link ArtifactWrapper} instances of an
+ * {@link ArtifactWrapperContainer} by artifact handler and URI. The index is
+ * attached to the container as an adapter and kept in sync with the model
+ * through EMF notifications, so that wrappers are found without scanning the
+ * whole container. URIs are kept sorted, so that the wrappers of all artifacts
+ * below a hierarchical URI can be looked up as well.
+ */
+public class ArtifactWrapperIndex extends EContentAdapter {
+
+	private final Map<List<String>, Set<ArtifactWrapper>> key2Wrappers = new HashMap<>();
+	private final TreeMap<String, Set<ArtifactWrapper>> uri2Wrappers = new TreeMap<>();
+	private final Map<ArtifactWrapper, List<String>> wrapper2Key = new IdentityHashMap<>();
+
+	private ArtifactWrapperIndex() {
+	}
+
+	/**
+	 * Returns the index for the given container. The index is built on first
+	 * access and maintained afterwards.
+	 *
+	 * @param container
+	 *            the container to return the index for
+	 * @return the index attached to the container
+	 */
+	public static synchronized ArtifactWrapperIndex getIndex(ArtifactWrapperContainer container) {
+		ArtifactWrapperIndex index = (ArtifactWrapperIndex) EcoreUtil.getExistingAdapter(container,
+				ArtifactWrapperIndex.class);
+		if (index == null) {
+			index = new ArtifactWrapperIndex();
+			container.eAdapters().add(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the wrapper with the given artifact handler and URI.
+	 *
+	 * @param artifactHandler
+	 *            the name of the artifact handler
+	 * @param artifactUri
+	 *            the URI of the wrapped artifact
+	 * @return the first wrapper that was indexed for the handler and URI or
+	 *         <code>null</code> if there is none
+	 */
+	public synchronized ArtifactWrapper getArtifact(String artifactHandler, String artifactUri) {
+		Set<ArtifactWrapper> wrappers = key2Wrappers.get(Arrays.asList(artifactHandler, artifactUri));
+		if (wrappers == null) {
+			return null;
+		}
+		return wrappers.iterator().next();
+	}
+
+	/**
+	 * Returns all wrappers with the given URI, regardless of their handler.
+	 *
+	 * @param artifactUri
+	 *            the URI of the wrapped artifact
+	 * @return the wrappers with the URI in the order they were indexed
+	 */
+	public synchronized List<ArtifactWrapper> getArtifacts(String artifactUri) {
+		Set<ArtifactWrapper> wrappers = artifactUri == null ? null : uri2Wrappers.get(artifactUri);
+		if (wrappers == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(wrappers);
+	}
+
+	/**
+	 * Returns all wrappers with the given artifact handler whose URI starts with
+	 * the given prefix, e.g., the wrappers of an element and of all its children
+	 * if the handler uses hierarchical URIs.
+	 *
+	 * @param artifactHandler
+	 *            the name of the artifact handler
+	 * @param uriPrefix
+	 *            the prefix of the URIs of the wrapped artifacts
+	 * @return the wrappers ordered by URI
+	 */
+	public synchronized List<ArtifactWrapper> getArtifactsWithUriPrefix(String artifactHandler, String uriPrefix) {
+		List<ArtifactWrapper> result = new ArrayList<>();
+		for (Set<ArtifactWrapper> wrappers : uri2Wrappers
+				.subMap(uriPrefix, true, uriPrefix + Character.MAX_VALUE, false).values()) {
+			for (ArtifactWrapper wrapper : wrappers) {
+				if (artifactHandler.equals(wrapper2Key.get(wrapper).get(0))) {
+					result.add(wrapper);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ArtifactWrapperIndex.class;
+	}
+
+	@Override
+	protected synchronized void addAdapter(Notifier notifier) {
+		super.addAdapter(notifier);
+		if (notifier instanceof ArtifactWrapper) {
+			indexWrapper((ArtifactWrapper) notifier);
+		}
+	}
+
+	@Override
+	protected synchronized void removeAdapter(Notifier notifier) {
+		super.removeAdapter(notifier);
+		if (notifier instanceof ArtifactWrapper) {
+			unindexWrapper((ArtifactWrapper) notifier);
+		}
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		Object feature = notification.getFeature();
+		if (notification.getNotifier() instanceof ArtifactWrapper
+				&& (feature == GenericArtifactMetaModelPackage.Literals.ARTIFACT_WRAPPER__URI
+						|| feature == GenericArtifactMetaModelPackage.Literals.ARTIFACT_WRAPPER__ARTIFACT_HANDLER)) {
+			ArtifactWrapper wrapper = (ArtifactWrapper) notification.getNotifier();
+			unindexWrapper(wrapper);
+			indexWrapper(wrapper);
+		}
+	}
+
+	private void indexWrapper(ArtifactWrapper wrapper) {
+		List<String> key = Arrays.asList(wrapper.getArtifactHandler(), wrapper.getUri());
+		wrapper2Key.put(wrapper, key);
+		key2Wrappers.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(wrapper);
+		if (wrapper.getUri() != null) {
+			uri2Wrappers.computeIfAbsent(wrapper.getUri(), u -> new LinkedHashSet<>()).add(wrapper);
+		}
+	}
+
+	private void unindexWrapper(ArtifactWrapper wrapper) {
+		List<String> key = wrapper2Key.remove(wrapper);
+		if (key == null) {
+			return;
+		}
+		remove(key2Wrappers, key, wrapper);
+		if (key.get(1) != null) {
+			remove(uri2Wrappers, key.get(1), wrapper);
+		}
+	}
+
+	private static <K> void remove(Map<K, Set<ArtifactWrapper>> map, K key, ArtifactWrapper wrapper) {
+		Set<ArtifactWrapper> wrappers = map.get(key);
+		if (wrappers != null) {
+			wrappers.remove(wrapper);
+			if (wrappers.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+}
@@ -34,11 +34,7 @@ public class GenericArtifactMetaModelAdapter extends AbstractArtifactMetaModelAd
 
 	public EObject getArtifact(EObject artifactModel, String artifactHandler, String artifactUri) {
 		ArtifactWrapperContainer container = getContainer(artifactModel);
-		for (ArtifactWrapper artifact : container.getArtifacts()) {
-			if (getArtifactHandler(artifact).equals(artifactHandler) && getArtifactUri(artifact).equals(artifactUri))
-				return artifact;
-		}
-		return null;
+		return ArtifactWrapperIndex.getIndex(container).getArtifact(artifactHandler, artifactUri);
 	}
 
 	@Override
@@ -86,6 +82,33 @@ public class GenericArtifactMetaModelAdapter extends AbstractArtifactMetaModelAd
 		return null;
 	}
 
+	@Override
+	public String getArtifactLabel(EObject artifact) {
+		if (artifact instanceof ArtifactWrapper) {
+			ArtifactWrapper wrapper = (ArtifactWrapper) artifact;
+			return wrapper.getLabel();
+		}
+		return null;
+	}
+
+	@Override
+	public String getArtifactFingerprint(EObject artifact) {
+		if (artifact instanceof ArtifactWrapper) {
+			ArtifactWrapper wrapper = (ArtifactWrapper) artifact;
+			return wrapper.getFingerprint();
+		}
+		return null;
+	}
+
+	@Override
+	public void setArtifactLabel(EObject artifact, String label, String fingerprint) {
+		if (artifact instanceof ArtifactWrapper) {
+			ArtifactWrapper wrapper = (ArtifactWrapper) artifact;
+			wrapper.setLabel(label);
+			wrapper.setFingerprint(fingerprint);
+		}
+	}
+
 	@Override
 	public IPath getArtifactPath(EObject artifact) {
 		if (artifact instanceof ArtifactWrapper) {
@@ -12,22 +12,41 @@ package org.eclipse.capra.generic.tracemodels;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelPackage;
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
 import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
 import org.eclipse.capra.core.adapters.AbstractMetaModelAdapter;
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.TraceDescription;
+import org.eclipse.capra.core.adapters.TraceMatrix;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.core.helpers.EMFHelper;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 
 /**
  * Provides generic functionality to deal with traceability meta models.
+ * <p>
+ * Queries compare traced items without resolving them, so that the models
+ * containing them are only loaded once the items of a connection are
+ * accessed.
  */
 public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements TraceMetaModelAdapter {
 
@@ -52,6 +71,23 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 	@Override
 	public EObject createTrace(EClass traceType, EObject traceModel, List<EObject> selection) {
 		GenericTraceModel TM = (GenericTraceModel) traceModel;
+		TM.getTraces().add(createLink(traceType, selection));
+		return TM;
+	}
+
+	@Override
+	public EObject createTraces(EObject traceModel, List<TraceDescription<EObject>> traces) {
+		GenericTraceModel root = (GenericTraceModel) traceModel;
+		List<RelatedTo> links = new ArrayList<>();
+		for (TraceDescription<EObject> trace : traces) {
+			links.add(createLink(trace.getTraceType(), trace.getSelection()));
+		}
+		// Adapters of the trace model are notified only once
+		root.getTraces().addAll(links);
+		return root;
+	}
+
+	private RelatedTo createLink(EClass traceType, List<EObject> selection) {
 		EObject trace = GenericTraceMetaModelFactory.eINSTANCE.create(traceType);
 		RelatedTo RelatedToTrace = (RelatedTo) trace;
 		RelatedToTrace.getItem().addAll(selection);
@@ -64,40 +100,96 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 		String name = "";
 		
 		for (Object obj : selection) {
-				name = name + " " + ExtensionPointHelper.getArtifactHandlers().stream()
-						.map(handler -> handler.withCastedHandler(obj, (h, e) -> h.getDisplayName(e)))
-						.filter(Optional::isPresent)
-						.map(Optional::get)
-						.findFirst()
-						.orElseGet(obj::toString);
+				name = name + " " + ArtifactLabels.getDisplayName(obj);
 		}
 		
 		RelatedToTrace.setName(name.toString());
-		TM.getTraces().add(RelatedToTrace);
-		return TM;
+		return RelatedToTrace;
 	}
 
 	@Override
 	public void deleteTrace(EObject first, EObject second, EObject traceModel) {
-		// TODO Auto-generated method stub
+		GenericTraceModel root = (GenericTraceModel) traceModel;
+		List<EObject> toDelete = new ArrayList<>();
+		for (RelatedTo trace : TraceModelIndex.getIndex(root).getTraces(first)) {
+			if (EMFHelper.containsUnresolved(trace.getItem(), second)) {
+				toDelete.add(trace);
+			}
+		}
+		deleteTraces(toDelete, traceModel);
+	}
+
+	@Override
+	public void deleteTraces(List<EObject> traces, EObject traceModel) {
+		GenericTraceModel root = (GenericTraceModel) traceModel;
+		Set<EObject> toDelete = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<EObject> items = new ArrayList<>();
+		for (EObject trace : traces) {
+			if (trace instanceof RelatedTo && trace.eContainer() == root && toDelete.add(trace)) {
+				items.addAll(((InternalEList<EObject>) ((RelatedTo) trace).getItem()).basicList());
+			}
+		}
+		if (toDelete.isEmpty()) {
+			return;
+		}
+		// Adapters of the trace model are notified only once
+		root.getTraces().removeAll(toDelete);
+
+		TraceModelIndex index = TraceModelIndex.getIndex(root);
+		Set<ArtifactWrapper> unused = new LinkedHashSet<>();
+		for (EObject item : items) {
+			EObject wrapper = resolveIfLoaded(item, root);
+			if (wrapper instanceof ArtifactWrapper && wrapper.eResource() != null
+					&& index.getTraces(wrapper).isEmpty()) {
+				unused.add((ArtifactWrapper) wrapper);
+			}
+		}
+		if (unused.isEmpty()) {
+			return;
+		}
+		// Traces refer to artifact wrappers by position, so references to the
+		// remaining wrappers have to be resolved before any of them is removed
+		Set<Resource> wrapperResources = new LinkedHashSet<>();
+		for (ArtifactWrapper wrapper : unused) {
+			wrapperResources.add(wrapper.eResource());
+		}
+		for (Resource resource : wrapperResources) {
+			EMFHelper.resolveReferencesTo(root, resource.getURI());
+		}
+		for (ArtifactWrapper wrapper : unused) {
+			EcoreUtil.remove(wrapper);
+		}
+	}
 
+	/**
+	 * Resolves the given item if it is a proxy into a resource that has
+	 * already been loaded, as the artifact model always is. Other items are
+	 * returned as they are, so that no model is loaded just to find out that
+	 * the item is not an artifact wrapper.
+	 */
+	private static EObject resolveIfLoaded(EObject item, EObject context) {
+		if (!item.eIsProxy() || context.eResource() == null || context.eResource().getResourceSet() == null) {
+			return item;
+		}
+		ResourceSet resourceSet = context.eResource().getResourceSet();
+		Resource resource = resourceSet.getResource(((InternalEObject) item).eProxyURI().trimFragment(), false);
+		if (resource == null || !resource.isLoaded()) {
+			return item;
+		}
+		return EcoreUtil.resolve(item, resourceSet);
 	}
 
 	@Override
 	public List<Connection> getConnectedElements(EObject element, EObject tracemodel) {
 		GenericTraceModel root = (GenericTraceModel) tracemodel;
 		List<Connection> connections = new ArrayList<>();
-		List<RelatedTo> traces = root.getTraces();
 
 		if (element instanceof RelatedTo) {
 			RelatedTo trace = (RelatedTo) element;
 			connections.add(new Connection(element, trace.getItem(), trace));
 		} else {
-
-			for (RelatedTo trace : traces) {
-				if (trace.getItem().contains(element)) {
-					connections.add(new Connection(element, trace.getItem(), trace));
-				}
+			for (RelatedTo trace : TraceModelIndex.getIndex(root).getTraces(element)) {
+				connections.add(new Connection(element, trace.getItem(), trace));
 			}
 		}
 		return connections;
@@ -108,7 +200,6 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 			List<String> selectedRelationshipTypes) {
 		GenericTraceModel root = (GenericTraceModel) tracemodel;
 		List<Connection> connections = new ArrayList<>();
-		List<RelatedTo> traces = root.getTraces();
 
 		if (selectedRelationshipTypes.size() == 0 || selectedRelationshipTypes
 				.contains(GenericTraceMetaModelPackage.eINSTANCE.getRelatedTo().getName())) {
@@ -116,11 +207,8 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 				RelatedTo trace = (RelatedTo) element;
 				connections.add(new Connection(element, trace.getItem(), trace));
 			} else {
-
-				for (RelatedTo trace : traces) {
-					if (trace.getItem().contains(element)) {
-						connections.add(new Connection(element, trace.getItem(), trace));
-					}
+				for (RelatedTo trace : TraceModelIndex.getIndex(root).getTraces(element)) {
+					connections.add(new Connection(element, trace.getItem(), trace));
 				}
 			}
 		}
@@ -131,12 +219,11 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 	public String isThereATraceBetween(EObject first, EObject second, EObject traceModel) {
 		GenericTraceModel root = (GenericTraceModel) traceModel;
 		List<RelatedTo> relevantLinks = new ArrayList<RelatedTo>();
-		List<RelatedTo> allTraces = root.getTraces();
 		String traceString = "";
 
-		for (RelatedTo trace : allTraces) {
-			if (first != second) {
-				if (trace.getItem().contains(first) && trace.getItem().contains(second)) {
+		if (first != second) {
+			for (RelatedTo trace : TraceModelIndex.getIndex(root).getTraces(first)) {
+				if (EMFHelper.containsUnresolved(trace.getItem(), second)) {
 					relevantLinks.add(trace);
 				}
 			}
@@ -151,61 +238,63 @@ public class GenericMetaModelAdapter extends AbstractMetaModelAdapter implements
 		return traceString + spacer + internalTraceString;
 	}
 
-	private List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			ArrayList<Object> accumulator, int currentDepth, int maximumDepth) {
-		List<Connection> directElements = getConnectedElements(element, traceModel);
-		List<Connection> allElements = new ArrayList<>();
-
-		int currDepth = currentDepth + 1;
-		for (Connection connection : directElements) {
-			if (!accumulator.contains(connection.getTlink())) {
-				allElements.add(connection);
-				accumulator.add(connection.getTlink());
-				for (EObject e : connection.getTargets()) {
-					if (maximumDepth == 0 || currDepth <= maximumDepth) {
-						allElements.addAll(
-								getTransitivelyConnectedElements(e, traceModel, accumulator, currDepth, maximumDepth));
-					}
-				}
-			}
-		}
-
-		return allElements;
-	}
+	@Override
+	public TraceMatrix getTraceMatrix(Collection<EObject> firstElements, Collection<EObject> secondElements,
+			EObject traceModel) {
+		GenericTraceModel root = (GenericTraceModel) traceModel;
+		TraceModelIndex index = TraceModelIndex.getIndex(root);
+		TraceMatrix matrix = new TraceMatrix(firstElements, secondElements);
+		Set<EObject> columns = Collections.newSetFromMap(new IdentityHashMap<>());
+		columns.addAll(secondElements);
+		// Columns by URI to match unresolved items without resolving them
+		Map<URI, EObject> columnURIs = null;
 
-	private List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			List<Object> accumulator, List<String> selectedRelationshipTypes, int currentDepth, int maximumDepth) {
-		List<Connection> directElements = getConnectedElements(element, traceModel, selectedRelationshipTypes);
-		List<Connection> allElements = new ArrayList<>();
-		int currDepth = currentDepth++;
-		for (Connection connection : directElements) {
-			if (!accumulator.contains(connection.getTlink())) {
-				allElements.add(connection);
-				accumulator.add(connection.getTlink());
-				for (EObject e : connection.getTargets()) {
-					if (maximumDepth == 0 || currDepth <= maximumDepth) {
-						allElements.addAll(getTransitivelyConnectedElements(e, traceModel, accumulator,
-								selectedRelationshipTypes, currDepth, maximumDepth));
+		for (EObject first : firstElements) {
+			for (RelatedTo trace : index.getTraces(first)) {
+				for (EObject item : ((InternalEList<EObject>) trace.getItem()).basicList()) {
+					EObject second = item;
+					if (item.eIsProxy()) {
+						if (columnURIs == null) {
+							columnURIs = new HashMap<>();
+							for (EObject column : secondElements) {
+								columnURIs.put(EcoreUtil.getURI(column), column);
+							}
+						}
+						second = columnURIs.get(((InternalEObject) item).eProxyURI());
+					}
+					if (second != null && second != first && columns.contains(second)
+							&& matrix.get(first, second).isEmpty()) {
+						matrix.add(first, second, "X");
 					}
 				}
 			}
 		}
 
-		return allElements;
+		addInternalTraces(matrix, traceModel);
+		return matrix;
 	}
 
 	@Override
-	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel, int maximumDepth) {
-		ArrayList<Object> accumulator = new ArrayList<>();
-		return getTransitivelyConnectedElements(element, traceModel, accumulator, -2, maximumDepth);
+	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
+			int transitivityDepth) {
+		if (transitivityDepth != 0) {
+			return super.getTransitivelyConnectedElements(element, traceModel, transitivityDepth);
+		}
+		return TraceModelIndex.getIndex((GenericTraceModel) traceModel).getTransitiveConnections(element,
+				() -> super.getTransitivelyConnectedElements(element, traceModel, 0));
 	}
 
 	@Override
 	public List<Connection> getTransitivelyConnectedElements(EObject element, EObject traceModel,
-			List<String> selectedRelationshipTypes, int maximumDepth) {
-		List<Object> accumulator = new ArrayList<>();
-		return getTransitivelyConnectedElements(element, traceModel, accumulator, selectedRelationshipTypes, -2,
-				maximumDepth);
+			List<String> selectedRelationshipTypes, int transitivityDepth) {
+		if (transitivityDepth != 0 || !(selectedRelationshipTypes.size() == 0 || selectedRelationshipTypes
+				.contains(GenericTraceMetaModelPackage.eINSTANCE.getRelatedTo().getName()))) {
+			return super.getTransitivelyConnectedElements(element, traceModel, selectedRelationshipTypes,
+					transitivityDepth);
+		}
+		// Only RelatedTo links exist, so the result is the same as without
+		// filtering
+		return getTransitivelyConnectedElements(element, traceModel, 0);
 	}
 
 }
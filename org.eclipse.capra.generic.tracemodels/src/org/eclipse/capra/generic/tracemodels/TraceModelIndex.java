@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.generic.tracemodels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelPackage;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.helpers.TraceModelShards;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Maintains an inverted index from traced items to the {@link RelatedTo} links
+ * that reference them. The index is attached to a {@link GenericTraceModel} as
+ * an adapter and kept in sync with the model through EMF notifications, so
+ * that the links of an item can be retrieved without scanning all traces.
+ * <p>
+ * In addition, the index tracks which items are connected through links using
+ * a union-find structure. This allows caching everything that is reachable
+ * from an item until the connected component of the item changes. Adding a
+ * link merges components incrementally; removing one discards the structure,
+ * which is then rebuilt on the next query.
+ * <p>
+ * Traced items are indexed without resolving them. Unresolved proxies are
+ * indexed by their URI until an object with that URI is looked up or traced
+ * by a resolved reference, which then stands in for the URI. Thus, the models
+ * containing the traced items are only loaded if the items are accessed.
+ * <p>
+ * Links of a sharded trace model are only indexed once they have been
+ * resolved. Before the links of an item are looked up, the links stored in
+ * shards that might refer to the item are resolved, so that unrelated shards
+ * are never loaded.
+ */
+public class TraceModelIndex extends EContentAdapter {
+
+	// Keyed by the traced items or by the URIs of unresolved proxies
+	private final Map<Object, Set<RelatedTo>> item2Traces = new HashMap<>();
+	private final Map<RelatedTo, List<Object>> trace2Items = new IdentityHashMap<>();
+	// Objects standing in for the URIs of proxies that refer to them
+	private final Map<URI, EObject> aliases = new HashMap<>();
+
+	// Union-find over the traced items, valid only if components are not dirty
+	private final Map<Object, Object> parents = new HashMap<>();
+	private boolean componentsDirty = true;
+	// Reachable connections per component root and start item
+	private final Map<Object, Map<Object, List<Connection>>> closures = new HashMap<>();
+	private long modificationCount = 0;
+
+	private final GenericTraceModel traceModel;
+	// Keys of the shards whose links have been resolved
+	private final Set<String> resolvedShards = new HashSet<>();
+
+	private TraceModelIndex(GenericTraceModel traceModel) {
+		this.traceModel = traceModel;
+	}
+
+	/**
+	 * Returns the index for the given trace model. The index is built on first
+	 * access and maintained afterwards.
+	 *
+	 * @param traceModel
+	 *            the trace model to return the index for
+	 * @return the index attached to the trace model
+	 */
+	public static synchronized TraceModelIndex getIndex(GenericTraceModel traceModel) {
+		TraceModelIndex index = (TraceModelIndex) EcoreUtil.getExistingAdapter(traceModel, TraceModelIndex.class);
+		if (index == null) {
+			index = new TraceModelIndex(traceModel);
+			traceModel.eAdapters().add(index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns all links that reference the given item.
+	 *
+	 * @param item
+	 *            the traced item
+	 * @return the links referencing the item in the order they were indexed
+	 */
+	public synchronized List<RelatedTo> getTraces(EObject item) {
+		resolveShards(item);
+		Set<RelatedTo> traces = item2Traces.get(getKey(item));
+		if (traces == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(traces);
+	}
+
+	/**
+	 * Returns all connections reachable from the given item without a depth
+	 * limit. The result is computed by the given function on the first request
+	 * and reused until links are added to or removed from the connected
+	 * component of the item.
+	 *
+	 * @param item
+	 *            the traced item to start from
+	 * @param closure
+	 *            computes the reachable connections if they are not cached
+	 * @return a new list with the reachable connections
+	 */
+	public List<Connection> getTransitiveConnections(EObject item, Supplier<List<Connection>> closure) {
+		long computedAt;
+		Object key;
+		synchronized (this) {
+			resolveShards(item);
+			key = getKey(item);
+			if (!item2Traces.containsKey(key)) {
+				return closure.get();
+			}
+			List<Connection> cached = closures.getOrDefault(findComponent(key), Collections.emptyMap()).get(key);
+			if (cached != null) {
+				return new ArrayList<>(cached);
+			}
+			computedAt = modificationCount;
+		}
+		// Computed outside the lock since it queries this index again
+		List<Connection> connections = closure.get();
+		synchronized (this) {
+			if (computedAt == modificationCount) {
+				closures.computeIfAbsent(findComponent(key), r -> new HashMap<>()).put(key,
+						new ArrayList<>(connections));
+			}
+		}
+		return connections;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == TraceModelIndex.class;
+	}
+
+	@Override
+	protected boolean resolve() {
+		// Shards are only loaded when links are looked up
+		return false;
+	}
+
+	private void resolveShards(EObject item) {
+		Set<String> keys = new HashSet<>();
+		for (String key : TraceModelShards.getLookupKeys(item)) {
+			if (resolvedShards.add(key)) {
+				keys.add(key);
+			}
+		}
+		if (keys.isEmpty()) {
+			return;
+		}
+		EList<RelatedTo> traces = traceModel.getTraces();
+		for (int i = 0; i < traces.size(); i++) {
+			InternalEObject trace = (InternalEObject) ((InternalEList<RelatedTo>) traces).basicGet(i);
+			if (trace.eIsProxy() && mayContain(trace.eProxyURI(), keys)) {
+				// Indexed through the notification of the resolved proxy
+				traces.get(i);
+			}
+		}
+	}
+
+	private static boolean mayContain(URI uri, Set<String> keys) {
+		for (String key : keys) {
+			if (TraceModelShards.mayContain(uri, key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected synchronized void addAdapter(Notifier notifier) {
+		super.addAdapter(notifier);
+		if (notifier instanceof RelatedTo && !((EObject) notifier).eIsProxy()) {
+			indexTrace((RelatedTo) notifier);
+		}
+	}
+
+	@Override
+	protected synchronized void removeAdapter(Notifier notifier) {
+		super.removeAdapter(notifier);
+		if (notifier instanceof RelatedTo) {
+			unindexTrace((RelatedTo) notifier);
+		}
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.getNotifier() instanceof RelatedTo
+				&& notification.getFeature() == GenericTraceMetaModelPackage.eINSTANCE.getRelatedTo_Item()
+				&& notification.getEventType() != Notification.REMOVING_ADAPTER) {
+			RelatedTo trace = (RelatedTo) notification.getNotifier();
+			// Proxies resolved while the trace is being indexed are already
+			// covered by the items collected for it
+			if (notification.getEventType() == Notification.RESOLVE && !trace2Items.containsKey(trace)) {
+				return;
+			}
+			unindexTrace(trace);
+			indexTrace(trace);
+		}
+	}
+
+	/**
+	 * Returns the key the links of the given item are indexed by. If the item
+	 * has been indexed by its URI so far, it replaces its URI as the key.
+	 */
+	private Object getKey(EObject item) {
+		if (item.eIsProxy()) {
+			URI uri = ((InternalEObject) item).eProxyURI();
+			EObject alias = aliases.get(uri);
+			return alias != null && !alias.eIsProxy() ? alias : uri;
+		}
+		if (item.eResource() == null || item2Traces.containsKey(item)) {
+			return item;
+		}
+		URI uri = EcoreUtil.getURI(item);
+		EObject alias = aliases.get(uri);
+		if (alias != null && !alias.eIsProxy()) {
+			// An object with the same URI, e.g., loaded into another resource
+			// set, is already standing in for the URI
+			return item;
+		}
+		aliases.put(uri, item);
+		// Links indexed by the URI or by an alias that has been unloaded since
+		for (Object previous : alias != null ? Arrays.asList(alias, uri) : Arrays.asList(uri)) {
+			Set<RelatedTo> traces = item2Traces.remove(previous);
+			if (traces == null) {
+				continue;
+			}
+			for (RelatedTo trace : traces) {
+				trace2Items.get(trace).replaceAll(key -> key.equals(previous) ? item : key);
+			}
+			item2Traces.computeIfAbsent(item, i -> new LinkedHashSet<>()).addAll(traces);
+			if (!componentsDirty) {
+				unionItems(Arrays.asList(previous, item));
+			}
+		}
+		return item;
+	}
+
+	private void indexTrace(RelatedTo trace) {
+		List<Object> items = new ArrayList<>();
+		for (EObject item : ((InternalEList<EObject>) trace.getItem()).basicList()) {
+			items.add(getKey(item));
+		}
+		trace2Items.put(trace, items);
+		for (Object item : items) {
+			item2Traces.computeIfAbsent(item, i -> new LinkedHashSet<>()).add(trace);
+		}
+		modificationCount++;
+		if (!componentsDirty) {
+			unionItems(items);
+		}
+	}
+
+	private void unindexTrace(RelatedTo trace) {
+		List<Object> items = trace2Items.remove(trace);
+		if (items == null) {
+			return;
+		}
+		// Components might split, which union-find cannot express
+		modificationCount++;
+		componentsDirty = true;
+		parents.clear();
+		closures.clear();
+		for (Object item : items) {
+			Set<RelatedTo> traces = item2Traces.get(item);
+			if (traces != null) {
+				traces.remove(trace);
+				if (traces.isEmpty()) {
+					item2Traces.remove(item);
+				}
+			}
+		}
+	}
+
+	private Object findComponent(Object item) {
+		if (componentsDirty) {
+			for (List<Object> items : trace2Items.values()) {
+				unionItems(items);
+			}
+			componentsDirty = false;
+		}
+		Object root = findRoot(item);
+		// Path compression
+		Object current = item;
+		while (current != root) {
+			Object next = parents.get(current);
+			parents.put(current, root);
+			current = next;
+		}
+		return root;
+	}
+
+	private void unionItems(List<Object> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		Object root = findRoot(items.get(0));
+		closures.remove(root);
+		for (Object item : items) {
+			Object other = findRoot(item);
+			if (other != root) {
+				closures.remove(other);
+				parents.put(other, root);
+			}
+		}
+	}
+
+	private Object findRoot(Object item) {
+		Object root = item;
+		Object parent;
+		while ((parent = parents.getOrDefault(root, root)) != root) {
+			root = parent;
+		}
+		return root;
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.app4mc;
+
+import static org.eclipse.capra.testsuite.RelationshipIndexTestHelper.assertIndexMatchesModelWalk;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.app4mc.amalthea.model.AccessPath;
+import org.eclipse.app4mc.amalthea.model.AmaltheaFactory;
+import org.eclipse.app4mc.amalthea.model.ComplexNode;
+import org.eclipse.app4mc.amalthea.model.Connector;
+import org.eclipse.app4mc.amalthea.model.QualifiedPort;
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class APP4MCConnectionExtractorTest {
+
+	private static final RelationshipFilter ALL = RelationshipFilter.of(Collections.emptyList());
+
+	private EAnnotation model;
+	private ComplexNode core;
+	private ComplexNode memory;
+	private ComplexNode otherMemory;
+	private AccessPath path;
+	private QualifiedPort sourcePort;
+	private QualifiedPort targetPort;
+	private Connector connector;
+
+	@Before
+	public void createModel() {
+		AmaltheaFactory factory = AmaltheaFactory.eINSTANCE;
+		core = factory.createCore();
+		memory = factory.createMemory();
+		otherMemory = factory.createMemory();
+		path = factory.createLatencyAccessPath();
+		path.setSource(core);
+		path.setTarget(memory);
+		sourcePort = factory.createQualifiedPort();
+		targetPort = factory.createQualifiedPort();
+		connector = factory.createConnector();
+		connector.setSourcePort(sourcePort);
+		connector.setTargetPort(targetPort);
+
+		// The elements are kept in an annotation, so that the test does not
+		// depend on the structure of AMALTHEA hardware models
+		model = EcoreFactory.eINSTANCE.createEAnnotation();
+		for (EObject element : Arrays.asList(core, memory, otherMemory, path, sourcePort, targetPort, connector)) {
+			if (element.eContainer() == null) {
+				model.getContents().add(element);
+			}
+		}
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		RelationshipIndex index = RelationshipIndex.getIndex(core, new APP4MCConnectionExtractor());
+		assertEquals(Arrays.asList(path), index.getRelationships(core));
+		assertEquals(Arrays.asList(path), index.getRelationships(memory));
+		assertEquals(Arrays.asList(connector), index.getRelationships(targetPort));
+		assertTrue(index.getRelationships(otherMemory).isEmpty());
+		assertIndexMatchesModelWalk(model, new APP4MCConnectionExtractor());
+
+		// Changed end of an access path
+		path.setTarget(otherMemory);
+		assertEquals(Arrays.asList(path), index.getRelationships(otherMemory));
+		assertIndexMatchesModelWalk(model, new APP4MCConnectionExtractor());
+
+		// Removed connector
+		EcoreUtil.delete(connector);
+		assertIndexMatchesModelWalk(model, new APP4MCConnectionExtractor());
+	}
+
+	@Test
+	public void testAccessPathOfNode() {
+		// Used to be missed, since the investigated node was checked for being
+		// an access path, and listed both ends of the path otherwise
+		List<Connection> links = new ArrayList<>();
+		new APP4MCHandler().addInternalLinks(core, links, new HashSet<>(), ALL);
+		assertEquals(Arrays.asList(new Connection(core, Arrays.asList(memory), path)), links);
+
+		links.clear();
+		new APP4MCHandler().addInternalLinks(memory, links, new HashSet<>(), ALL);
+		assertEquals(Arrays.asList(new Connection(memory, Arrays.asList(core), path)), links);
+	}
+}
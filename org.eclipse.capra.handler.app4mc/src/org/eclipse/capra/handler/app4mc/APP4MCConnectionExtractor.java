@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.app4mc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.app4mc.amalthea.model.AccessPath;
+import org.eclipse.app4mc.amalthea.model.Connector;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.capra.core.helpers.RelationshipIndex.RelationshipExtractor;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Determines the qualified ports attached to a connector and the complex nodes
+ * at the ends of an access path of an AMALTHEA hardware model, so that the
+ * connections of a port or node can be looked up in a
+ * {@link RelationshipIndex}.
+ */
+public class APP4MCConnectionExtractor implements RelationshipExtractor {
+
+	@Override
+	public List<? extends EObject> getRelatedElements(EObject content) {
+		if (content instanceof Connector) {
+			Connector connector = (Connector) content;
+			return Arrays.asList(connector.getSourcePort(), connector.getTargetPort());
+		} else if (content instanceof AccessPath) {
+			AccessPath path = (AccessPath) content;
+			return Arrays.asList(path.getSource(), path.getTarget());
+		}
+		return Collections.emptyList();
+	}
+}
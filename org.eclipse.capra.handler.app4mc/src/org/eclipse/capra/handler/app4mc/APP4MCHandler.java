@@ -12,24 +12,28 @@ package org.eclipse.capra.handler.app4mc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.app4mc.amalthea.model.AccessPath;
+import org.eclipse.app4mc.amalthea.model.AmaltheaPackage;
 import org.eclipse.app4mc.amalthea.model.ComplexNode;
 import org.eclipse.app4mc.amalthea.model.Connector;
 import org.eclipse.app4mc.amalthea.model.IAnnotatable;
 import org.eclipse.app4mc.amalthea.model.QualifiedPort;
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
 import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
 import org.eclipse.core.resources.IResourceDelta;
-import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
  * Handler to allow tracing to and from arbitrary model elements handled by EMF.
  */
 public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 
+	private static final APP4MCConnectionExtractor CONNECTIONS = new APP4MCConnectionExtractor();
+
 	@Override
 	public EObject createWrapper(IAnnotatable artifact, EObject artifactModel) {
 		return artifact;
@@ -47,23 +51,19 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 
 	@Override
 	public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
-		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, selectedRelationshipTypes);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, relationshipFilter);
 		if (Connector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Connector connector = Connector.class.cast(investigatedElement);
 				QualifiedPort sourcePort = connector.getSourcePort();
 				QualifiedPort targetPort = connector.getTargetPort();
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(sourcePort);
 				relatedElements.add(targetPort);
-				int connectionHash = investigatedElement.hashCode() + connector.hashCode() + sourcePort.hashCode()
-						+ targetPort.hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (AccessPath.class.isAssignableFrom(investigatedElement.getClass())) {
@@ -73,23 +73,17 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 			List<EObject> relatedElements = new ArrayList<>();
 			relatedElements.add(source);
 			relatedElements.add(target);
-			int connectionHash = investigatedElement.hashCode() + path.hashCode() + source.hashCode()
-					+ target.hashCode();
-			if (!duplicationCheck.contains(connectionHash)) {
-				Connection conn = new Connection(investigatedElement, relatedElements, path);
+			Connection conn = new Connection(investigatedElement, relatedElements, path);
+			if (duplicationCheck.add(conn)) {
 				allElements.add(conn);
-				duplicationCheck.add(connectionHash);
 			}
-		} else {
-			EObject root = EcoreUtil.getRootContainer(investigatedElement);
-			TreeIterator<EObject> modelContents = root.eAllContents();
-			while (modelContents.hasNext()) {
-				EObject content = modelContents.next();
-				if (selectedRelationshipTypes.size() == 0
-						|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+		} else if (relationshipFilter.acceptsAnyOf(AmaltheaPackage.eINSTANCE)) {
+			// Only the connectors and access paths of the element are visited,
+			// and only if any AMALTHEA relationship is selected
+			for (EObject content : getConnections(investigatedElement)) {
+				if (relationshipFilter.accepts(content)) {
 					if (Connector.class.isAssignableFrom(content.getClass())) {
-						if (selectedRelationshipTypes.size() == 0
-								|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+						if (relationshipFilter.accepts(content)) {
 							Connector connector = Connector.class.cast(content);
 							QualifiedPort sourcePort = connector.getSourcePort();
 							QualifiedPort targetPort = connector.getTargetPort();
@@ -103,25 +97,18 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 								relatedElements.add(sourcePort);
 							}
 							if (isConnected) {
-								int connectionHash = investigatedElement.hashCode() + connector.hashCode();
-								for (EObject el : relatedElements) {
-									connectionHash += el.hashCode();
-								}
-								if (!duplicationCheck.contains(connectionHash)) {
-									Connection conn = new Connection(investigatedElement, relatedElements, connector);
+								Connection conn = new Connection(investigatedElement, relatedElements, connector);
+								if (duplicationCheck.add(conn)) {
 									allElements.add(conn);
-									duplicationCheck.add(connectionHash);
 								}
 							}
 						}
-					} else if (AccessPath.class.isAssignableFrom(investigatedElement.getClass())) {
-						AccessPath path = AccessPath.class.cast(investigatedElement);
+					} else if (AccessPath.class.isAssignableFrom(content.getClass())) {
+						AccessPath path = AccessPath.class.cast(content);
 						ComplexNode source = path.getSource();
 						ComplexNode target = path.getTarget();
 						boolean isConnected = false;
 						List<EObject> relatedElements = new ArrayList<>();
-						relatedElements.add(source);
-						relatedElements.add(target);
 						if (source.hashCode() == investigatedElement.hashCode()) {
 							isConnected = true;
 							relatedElements.add(target);
@@ -130,14 +117,9 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 							relatedElements.add(source);
 						}
 						if (isConnected) {
-							int connectionHash = investigatedElement.hashCode() + path.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, path);
+							Connection conn = new Connection(investigatedElement, relatedElements, path);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					}
@@ -146,6 +128,20 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 		}
 	}
 
+	/**
+	 * Returns the connectors attached to the given port and the access paths
+	 * starting or ending at the given node, as maintained by the
+	 * {@link RelationshipIndex} of its model.
+	 */
+	private static List<EObject> getConnections(EObject element) {
+		return RelationshipIndex.getIndex(element, CONNECTIONS).getRelationships(element);
+	}
+
+	@Override
+	public boolean providesInternalTraces() {
+		return true;
+	}
+
 	@Override
 	public String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel) {
 		String traceString = "";
@@ -193,11 +189,10 @@ public class APP4MCHandler extends AbstractArtifactHandler<IAnnotatable> {
 			}
 			return "";
 		} else {
-			EObject root = EcoreUtil.getRootContainer(first);
-			TreeIterator<EObject> modelContents = root.eAllContents();
 			boolean isRelated = false;
-			while (modelContents.hasNext()) {
-				EObject content = modelContents.next();
+			// Only the connectors and access paths of the first element can
+			// relate it to the second one
+			for (EObject content : getConnections(first)) {
 				if (Connector.class.isAssignableFrom(content.getClass())) {
 					Connector connector = Connector.class.cast(content);
 					QualifiedPort sourcePort = connector.getSourcePort();
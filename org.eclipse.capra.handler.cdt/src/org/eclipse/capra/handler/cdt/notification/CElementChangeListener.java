@@ -10,14 +10,19 @@
  *******************************************************************************/
 package org.eclipse.capra.handler.cdt.notification;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.core.helpers.TraceModelSession;
+import org.eclipse.capra.generic.tracemodels.ArtifactWrapperIndex;
 import org.eclipse.capra.handler.cdt.CDTHandler;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper.IssueType;
@@ -35,8 +40,6 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
@@ -51,39 +54,73 @@ public class CElementChangeListener implements IElementChangedListener {
 	@Override
 	public void elementChanged(ElementChangedEvent event) {
 
-		TracePersistenceAdapter tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject awc = tracePersistenceAdapter.getArtifactWrappers(new ResourceSetImpl());
-		List<ArtifactWrapper> cArtifacts = ((ArtifactWrapperContainer) awc).getArtifacts().stream()
-				.filter(p -> p.getArtifactHandler().equals(CDTHandler.class.getName())).collect(Collectors.toList());
-
-		if (cArtifacts.size() == 0)
+		// Reconciling a working copy, e.g., after each keystroke in the
+		// editor, does not affect the artifacts until the file is saved
+		if (event.getType() == ElementChangedEvent.POST_RECONCILE)
 			return;
 
-		IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
-		IFile wrapperContainer = ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+		List<ICElementDelta> deltas = new ArrayList<>();
+		collectDeltas(event.getDelta(), deltas);
+		if (deltas.isEmpty())
+			return;
 
+		// The artifact model is looked up in the job, since the session must
+		// not be accessed while the workspace is notifying listeners
 		new WorkspaceJob(CapraNotificationHelper.NOTIFICATION_JOB) {
 			@Override
 			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-				handleDelta(event.getDelta(), cArtifacts, wrapperContainer);
+				Map<ICElementDelta, List<ArtifactWrapper>> affectedArtifacts = new LinkedHashMap<>();
+				IFile wrapperContainer = TraceModelSession.read((traceModel, awc) -> {
+					ArtifactWrapperIndex index = ArtifactWrapperIndex.getIndex((ArtifactWrapperContainer) awc);
+					for (ICElementDelta delta : deltas) {
+						// The URIs of the wrapped children of the affected
+						// element start with the URI of the element
+						Set<ArtifactWrapper> cArtifacts = new LinkedHashSet<>(index.getArtifactsWithUriPrefix(
+								CDTHandler.class.getName(), delta.getElement().getHandleIdentifier()));
+						if (delta.getMovedToElement() != null)
+							cArtifacts.addAll(index.getArtifactsWithUriPrefix(CDTHandler.class.getName(),
+									delta.getMovedToElement().getHandleIdentifier()));
+						if (!cArtifacts.isEmpty())
+							affectedArtifacts.put(delta, new ArrayList<>(cArtifacts));
+					}
+
+					if (affectedArtifacts.isEmpty())
+						return null;
+
+					IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
+					return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+				});
+
+				if (wrapperContainer != null) {
+					Set<String> changedUris = new LinkedHashSet<>();
+					affectedArtifacts.forEach(
+							(delta, cArtifacts) -> handleDelta(delta, cArtifacts, wrapperContainer, changedUris));
+					if (!changedUris.isEmpty())
+						TraceModelSession.write((traceModel, awc) -> ArtifactLabels.refreshLabels(awc,
+								CDTHandler.class.getName(), changedUris));
+				}
 				return Status.OK_STATUS;
 			}
 		}.schedule();
 	}
 
-	private void handleDelta(ICElementDelta delta, List<ArtifactWrapper> cArtifacts, IFile wrapperContainer) {
+	private void collectDeltas(ICElementDelta delta, List<ICElementDelta> deltas) {
 
 		// Visit all the affected children of affected element
 		for (ICElementDelta subDelta : delta.getAffectedChildren())
-			handleDelta(subDelta, cArtifacts, wrapperContainer);
+			collectDeltas(subDelta, deltas);
+
+		if (getIssueType(delta) != null && delta.getElement().getHandleIdentifier() != null)
+			deltas.add(delta);
+	}
 
+	private IssueType getIssueType(ICElementDelta delta) {
 		int flags = delta.getFlags();
 		int changeType = delta.getKind();
 		ICElement affectedElement = delta.getElement();
-		IssueType issueType = null;
 
 		if (changeType == ICElementDelta.ADDED)
-			issueType = IssueType.ADDED;
+			return IssueType.ADDED;
 		// TODO doesn't work if a source folder is renamed - it says that the
 		// children have been deleted, instead of that their ancestor was
 		// renamed. But renaming the src folder isn't good practice anyway.
@@ -91,54 +128,63 @@ public class CElementChangeListener implements IElementChangedListener {
 
 			if ((flags & ICElementDelta.F_MOVED_TO) != 0)
 				if (delta.getMovedToElement().getElementName().equals(affectedElement.getElementName()))
-					issueType = IssueType.MOVED;
+					return IssueType.MOVED;
 				else
-					issueType = IssueType.RENAMED;
+					return IssueType.RENAMED;
 			else {
 				if (!(affectedElement instanceof ITranslationUnit
 						&& ((ITranslationUnit) affectedElement).isWorkingCopy()))
-					issueType = IssueType.DELETED;
+					return IssueType.DELETED;
 			}
 
-		} else if (changeType == ICElementDelta.CHANGED)
-			issueType = IssueType.CHANGED;
-
-		if (issueType != null) {
-			String affectedElementUri = affectedElement.getHandleIdentifier();
-			if (affectedElementUri != null) {
-				for (ArtifactWrapper aw : cArtifacts) {
-					String artifactUri = aw.getUri();
-					// If the change type is "CHANGED", meaning that the element
-					// wasn't deleted, renamed, added or moved, only consider
-					// making a marker if the URI of the affected element is the
-					// same as the URI in the wrapper.
-					if (issueType == IssueType.CHANGED && !artifactUri.equals(affectedElementUri))
-						continue;
-					// Otherwise (the change is either "delete", "move" or
-					// "rename"), consider making the marker for the affected
-					// element as well as its children, who's URIs have changed
-					// and need updating.
-					IssueType[] markersToDelete = null;
-					String deleteMarkerUri = "";
-					if (issueType == IssueType.MOVED || issueType == IssueType.RENAMED) {
-						deleteMarkerUri = delta.getMovedToElement().getHandleIdentifier();
-						markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
-					} else if (issueType == IssueType.DELETED) {
-						markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.CHANGED };
-						deleteMarkerUri = affectedElementUri;
-					} else if (issueType == IssueType.ADDED) {
-						markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
-						deleteMarkerUri = affectedElementUri;
-					}
+		} else if (changeType == ICElementDelta.CHANGED && (flags & ~ICElementDelta.F_CHILDREN) != 0)
+			// Changes that only consist of changes of the children are
+			// handled with the deltas of the children
+			return IssueType.CHANGED;
 
-					if (!deleteMarkerUri.isEmpty() && artifactUri.contains(deleteMarkerUri))
-						CapraNotificationHelper.deleteCapraMarker(artifactUri, markersToDelete, wrapperContainer);
+		return null;
+	}
 
-					if (artifactUri.contains(affectedElementUri)) {
-						HashMap<String, String> markerInfo = generateMarkerInfo(aw, delta, issueType);
-						CapraNotificationHelper.createCapraMarker(markerInfo, wrapperContainer);
-					}
-				}
+	private void handleDelta(ICElementDelta delta, List<ArtifactWrapper> cArtifacts, IFile wrapperContainer,
+			Set<String> changedUris) {
+
+		IssueType issueType = getIssueType(delta);
+		String affectedElementUri = delta.getElement().getHandleIdentifier();
+		for (ArtifactWrapper aw : cArtifacts) {
+			String artifactUri = aw.getUri();
+			// The display names of the element and its children
+			// might have changed
+			if (artifactUri.startsWith(affectedElementUri))
+				changedUris.add(artifactUri);
+			// If the change type is "CHANGED", meaning that the element
+			// wasn't deleted, renamed, added or moved, only consider
+			// making a marker if the URI of the affected element is the
+			// same as the URI in the wrapper.
+			if (issueType == IssueType.CHANGED && !artifactUri.equals(affectedElementUri))
+				continue;
+			// Otherwise (the change is either "delete", "move" or
+			// "rename"), consider making the marker for the affected
+			// element as well as its children, who's URIs have changed
+			// and need updating.
+			IssueType[] markersToDelete = null;
+			String deleteMarkerUri = "";
+			if (issueType == IssueType.MOVED || issueType == IssueType.RENAMED) {
+				deleteMarkerUri = delta.getMovedToElement().getHandleIdentifier();
+				markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
+			} else if (issueType == IssueType.DELETED) {
+				markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.CHANGED };
+				deleteMarkerUri = affectedElementUri;
+			} else if (issueType == IssueType.ADDED) {
+				markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
+				deleteMarkerUri = affectedElementUri;
+			}
+
+			if (!deleteMarkerUri.isEmpty() && artifactUri.contains(deleteMarkerUri))
+				CapraNotificationHelper.deleteCapraMarker(artifactUri, markersToDelete, wrapperContainer);
+
+			if (artifactUri.contains(affectedElementUri)) {
+				HashMap<String, String> markerInfo = generateMarkerInfo(aw, delta, issueType);
+				CapraNotificationHelper.createCapraMarker(markerInfo, wrapperContainer);
 			}
 		}
 	}
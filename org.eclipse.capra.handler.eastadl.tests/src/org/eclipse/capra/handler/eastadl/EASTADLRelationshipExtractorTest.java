@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.eastadl;
+
+import static org.eclipse.capra.testsuite.RelationshipIndexTestHelper.assertIndexMatchesModelWalk;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.eatop.eastadl21.DeriveRequirement;
+import org.eclipse.eatop.eastadl21.Eastadl21Factory;
+import org.eclipse.eatop.eastadl21.Requirement;
+import org.eclipse.eatop.eastadl21.RequirementsLink;
+import org.eclipse.eatop.eastadl21.Satisfy;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EASTADLRelationshipExtractorTest {
+
+	private static final RelationshipFilter ALL = RelationshipFilter.of(Collections.emptyList());
+
+	private EAnnotation model;
+	private Requirement first;
+	private Requirement second;
+	private Requirement third;
+	private RequirementsLink link;
+	private DeriveRequirement derivation;
+	private Satisfy satisfaction;
+
+	@Before
+	public void createModel() {
+		Eastadl21Factory factory = Eastadl21Factory.eINSTANCE;
+		first = factory.createRequirement();
+		second = factory.createRequirement();
+		third = factory.createRequirement();
+		link = factory.createRequirementsLink();
+		link.getSource().add(first);
+		link.getTarget().add(second);
+		derivation = factory.createDeriveRequirement();
+		derivation.getDerivedFrom().add(first);
+		derivation.getDerived().add(third);
+		satisfaction = factory.createSatisfy();
+		satisfaction.getSatisfiedRequirement().add(second);
+
+		// The elements are kept in an annotation, so that the test does not
+		// depend on the package structure of EAST-ADL
+		model = EcoreFactory.eINSTANCE.createEAnnotation();
+		model.getContents().addAll(Arrays.asList(first, second, third, link, derivation, satisfaction));
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		RelationshipIndex index = RelationshipIndex.getIndex(first, new EASTADLRelationshipExtractor());
+		assertEquals(Arrays.asList(link, derivation), index.getRelationships(first));
+		assertEquals(Arrays.asList(link, satisfaction), index.getRelationships(second));
+		assertEquals(Arrays.asList(link), index.getRelationshipsBetween(first, second));
+		assertIndexMatchesModelWalk(model, new EASTADLRelationshipExtractor());
+
+		// Changed end of a relationship
+		link.getTarget().add(third);
+		assertEquals(Arrays.asList(link), index.getRelationshipsBetween(second, third));
+		assertIndexMatchesModelWalk(model, new EASTADLRelationshipExtractor());
+
+		// Removed relationship
+		EcoreUtil.delete(derivation);
+		assertIndexMatchesModelWalk(model, new EASTADLRelationshipExtractor());
+	}
+
+	@Test
+	public void testRequirementsLinkOfRequirement() {
+		// Used to fail, since the investigated requirement was cast to a link
+		List<Connection> links = new ArrayList<>();
+		new EASTADLHandler().addInternalLinks(first, links, new HashSet<>(), ALL);
+		assertTrue(links.contains(new Connection(first, Arrays.asList(second), link)));
+		assertTrue(links.contains(new Connection(first, Arrays.asList(third), derivation)));
+		assertEquals(2, links.size());
+		assertEquals("RequirementsLink", new EASTADLHandler().isThereAnInternalTraceBetween(first, second, null));
+	}
+}
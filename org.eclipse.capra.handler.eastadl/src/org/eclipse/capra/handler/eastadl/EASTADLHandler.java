@@ -12,9 +12,12 @@ package org.eclipse.capra.handler.eastadl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
 import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.eatop.eastadl21.ClampConnector;
 import org.eclipse.eatop.eastadl21.ClampConnector_port;
@@ -48,15 +51,15 @@ import org.eclipse.eatop.eastadl21.UseCase;
 import org.eclipse.eatop.eastadl21.VVCase;
 import org.eclipse.eatop.eastadl21.VVProcedure;
 import org.eclipse.eatop.eastadl21.Verify;
-import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
  * Handler to allow tracing to and from arbitrary model elements handled by EMF.
  */
 public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 
+	private static final EASTADLRelationshipExtractor RELATIONSHIPS = new EASTADLRelationshipExtractor();
+
 	@Override
 	public EObject createWrapper(EAElement artifact, EObject artifactModel) {
 		return artifact;
@@ -74,256 +77,175 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 
 	@Override
 	public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
-		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, selectedRelationshipTypes);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, relationshipFilter);
 		if (Realization.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Realization rel = Realization.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getRealized().forEach(refBy -> relatedElements.add(refBy));
 				rel.getRealizedBy().forEach(req -> relatedElements.add(req));
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Extend.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Extend rel = Extend.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(rel.getExtendedCase());
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode() + rel.getExtendedCase().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Include.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Include rel = Include.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(rel.getAddition());
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode() + rel.getAddition().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (FeatureLink.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				FeatureLink rel = FeatureLink.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(rel.getStart());
 				relatedElements.add(rel.getEnd());
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode() + rel.getStart().hashCode()
-						+ rel.getEnd().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Refine.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Refine rel = Refine.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getRefinedBy().forEach(refBy -> relatedElements.add(refBy));
 				rel.getRefinedRequirement().forEach(req -> relatedElements.add(req));
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Verify.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Verify rel = Verify.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getVerifiedByCase().forEach(refBy -> relatedElements.add(refBy));
 				rel.getVerifiedRequirement().forEach(req -> relatedElements.add(req));
 				rel.getVerifiedByProcedure().forEach(req -> relatedElements.add(req));
 
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Satisfy.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Satisfy rel = Satisfy.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getSatisfiedBy().forEach(refBy -> relatedElements.add(refBy));
 				rel.getSatisfiedRequirement().forEach(req -> relatedElements.add(req));
 				rel.getSatisfiedUseCase().forEach(req -> relatedElements.add(req));
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (DeriveRequirement.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				DeriveRequirement rel = DeriveRequirement.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getDerived().forEach(refBy -> relatedElements.add(refBy));
 				rel.getDerivedFrom().forEach(req -> relatedElements.add(req));
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (RequirementsLink.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				RequirementsLink rel = RequirementsLink.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				rel.getSource().forEach(refBy -> relatedElements.add(refBy));
 				rel.getTarget().forEach(req -> relatedElements.add(req));
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Transition.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Transition transition = Transition.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(transition.getFrom());
 				relatedElements.add(transition.getTo());
-				int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-						+ transition.getFrom().hashCode() + transition.getTo().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (FaultFailurePropagationLink.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				FaultFailurePropagationLink propLink = FaultFailurePropagationLink.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(propLink.getFromPort());
 				relatedElements.add(propLink.getToPort());
-				int connectionHash = investigatedElement.hashCode() + propLink.hashCode()
-						+ propLink.getFromPort().hashCode() + propLink.getToPort().hashCode();
 				;
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, propLink);
+				Connection conn = new Connection(investigatedElement, relatedElements, propLink);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (FunctionConnector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				FunctionConnector funcConnector = FunctionConnector.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				funcConnector.getPort().forEach(port -> relatedElements.add(port));
-				int connectionHash = investigatedElement.hashCode() + funcConnector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, funcConnector);
+				Connection conn = new Connection(investigatedElement, relatedElements, funcConnector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (HardwareConnector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				HardwareConnector hardwareConnector = HardwareConnector.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				hardwareConnector.getPort().forEach(port -> relatedElements.add(port));
-				int connectionHash = investigatedElement.hashCode() + hardwareConnector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+				Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (HardwarePortConnector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				HardwarePortConnector hardwareConnector = HardwarePortConnector.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				hardwareConnector.getPort().forEach(port -> relatedElements.add(port));
-				int connectionHash = investigatedElement.hashCode() + hardwareConnector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+				Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (ClampConnector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				ClampConnector clampConnector = ClampConnector.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				clampConnector.getPort().forEach(port -> relatedElements.add(port));
-				int connectionHash = investigatedElement.hashCode() + clampConnector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, clampConnector);
+				Connection conn = new Connection(investigatedElement, relatedElements, clampConnector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else {
-			EObject root = EcoreUtil.getRootContainer(investigatedElement);
-			TreeIterator<EObject> modelContents = root.eAllContents();
-			while (modelContents.hasNext()) {
-				EObject content = modelContents.next();
-				if (selectedRelationshipTypes.size() == 0
-						|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+			// Only the relationships referring to the element are visited
+			for (EObject content : getRelationships(investigatedElement)) {
+				if (relationshipFilter.accepts(content)) {
 					if (Realization.class.isAssignableFrom(content.getClass())) {
 						Realization rel = Realization.class.cast(content);
 						List<EObject> relatedElements = new ArrayList<>();
@@ -343,14 +265,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Extend.class.isAssignableFrom(content.getClass())) {
@@ -363,14 +280,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							relatedElements.add(rel);
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Include.class.isAssignableFrom(content.getClass())) {
@@ -383,14 +295,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							relatedElements.add(rel);
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (FeatureLink.class.isAssignableFrom(content.getClass())) {
@@ -407,14 +314,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							relatedElements.add(start);
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Refine.class.isAssignableFrom(content.getClass())) {
@@ -438,14 +340,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Verify.class.isAssignableFrom(content.getClass())) {
@@ -477,14 +374,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Satisfy.class.isAssignableFrom(content.getClass())) {
@@ -516,14 +408,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (DeriveRequirement.class.isAssignableFrom(content.getClass())) {
@@ -545,18 +432,13 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (RequirementsLink.class.isAssignableFrom(content.getClass())) {
-						RequirementsLink rel = RequirementsLink.class.cast(investigatedElement);
+						RequirementsLink rel = RequirementsLink.class.cast(content);
 						List<EObject> relatedElements = new ArrayList<>();
 						boolean isRelatedToElement = false;
 						for (Requirement req : rel.getSource()) {
@@ -574,14 +456,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							Connection conn = new Connection(investigatedElement, relatedElements, rel);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Transition.class.isAssignableFrom(content.getClass())) {
@@ -598,14 +475,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							relatedElements.add(fromState);
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + transition.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (FaultFailurePropagationLink.class.isAssignableFrom(content.getClass())) {
@@ -622,14 +494,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							relatedElements.add(fromPort);
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + propLink.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, propLink);
+							Connection conn = new Connection(investigatedElement, relatedElements, propLink);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (FunctionConnector.class.isAssignableFrom(content.getClass())) {
@@ -644,14 +511,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + funcConnector.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, funcConnector);
+							Connection conn = new Connection(investigatedElement, relatedElements, funcConnector);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (HardwareConnector.class.isAssignableFrom(content.getClass())) {
@@ -666,15 +528,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + hardwareConnector.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements,
-										hardwareConnector);
+							Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (HardwarePortConnector.class.isAssignableFrom(content.getClass())) {
@@ -690,15 +546,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + hardwareConnector.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements,
-										hardwareConnector);
+							Connection conn = new Connection(investigatedElement, relatedElements, hardwareConnector);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (ClampConnector.class.isAssignableFrom(content.getClass())) {
@@ -713,14 +563,9 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + clampConnector.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, clampConnector);
+							Connection conn = new Connection(investigatedElement, relatedElements, clampConnector);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					}
@@ -729,6 +574,27 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 		}
 	}
 
+	/**
+	 * Returns the relationships that refer to the given element, as maintained
+	 * by the {@link RelationshipIndex} of its model.
+	 */
+	private static List<EObject> getRelationships(EObject element) {
+		return RelationshipIndex.getIndex(element, RELATIONSHIPS).getRelationships(element);
+	}
+
+	/**
+	 * Returns the relationships that refer to both given elements, as
+	 * maintained by the {@link RelationshipIndex} of their model.
+	 */
+	private static List<EObject> getRelationshipsBetween(EObject first, EObject second) {
+		return RelationshipIndex.getIndex(first, RELATIONSHIPS).getRelationshipsBetween(first, second);
+	}
+
+	@Override
+	public boolean providesInternalTraces() {
+		return true;
+	}
+
 	@Override
 	public String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel) {
 		if (Realization.class.isAssignableFrom(first.getClass())
@@ -1021,13 +887,11 @@ public class EASTADLHandler extends AbstractArtifactHandler<EAElement> {
 			return "";
 		} else {
 			String traceString = "";
-			EObject root = EcoreUtil.getRootContainer(first);
-			TreeIterator<EObject> modelContents = root.eAllContents();
 			boolean isRelated = false;
 			String leftArrow = Character.toString((char) 0x2190);
 			String upArrow = Character.toString((char) 0x2191);
-			while (modelContents.hasNext()) {
-				EObject content = modelContents.next();
+			// Only the relationships referring to both elements are visited
+			for (EObject content : getRelationshipsBetween(first, second)) {
 				if (Realization.class.isAssignableFrom(content.getClass())) {
 					Realization rel = Realization.class.cast(content);
 					boolean relationContainsFirstElement = false;
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.eastadl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.capra.core.helpers.RelationshipIndex.RelationshipExtractor;
+import org.eclipse.eatop.eastadl21.ClampConnector;
+import org.eclipse.eatop.eastadl21.DeriveRequirement;
+import org.eclipse.eatop.eastadl21.Extend;
+import org.eclipse.eatop.eastadl21.FaultFailurePropagationLink;
+import org.eclipse.eatop.eastadl21.FeatureLink;
+import org.eclipse.eatop.eastadl21.FunctionConnector;
+import org.eclipse.eatop.eastadl21.HardwareConnector;
+import org.eclipse.eatop.eastadl21.HardwarePortConnector;
+import org.eclipse.eatop.eastadl21.Include;
+import org.eclipse.eatop.eastadl21.Realization;
+import org.eclipse.eatop.eastadl21.Refine;
+import org.eclipse.eatop.eastadl21.RequirementsLink;
+import org.eclipse.eatop.eastadl21.Satisfy;
+import org.eclipse.eatop.eastadl21.Transition;
+import org.eclipse.eatop.eastadl21.Verify;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Determines the elements connected by the relationships handled by
+ * {@link EASTADLHandler}, e.g., realizations, satisfy links or connectors, so
+ * that they can be looked up in a {@link RelationshipIndex}.
+ */
+public class EASTADLRelationshipExtractor implements RelationshipExtractor {
+
+	@Override
+	public List<EObject> getRelatedElements(EObject content) {
+		List<EObject> elements = new ArrayList<>();
+		if (content instanceof Realization) {
+			elements.addAll(((Realization) content).getRealized());
+			elements.addAll(((Realization) content).getRealizedBy());
+		} else if (content instanceof Extend) {
+			elements.add(((Extend) content).getExtendedCase());
+		} else if (content instanceof Include) {
+			elements.add(((Include) content).getAddition());
+		} else if (content instanceof FeatureLink) {
+			elements.add(((FeatureLink) content).getStart());
+			elements.add(((FeatureLink) content).getEnd());
+		} else if (content instanceof Refine) {
+			elements.addAll(((Refine) content).getRefinedBy());
+			elements.addAll(((Refine) content).getRefinedRequirement());
+		} else if (content instanceof Verify) {
+			elements.addAll(((Verify) content).getVerifiedByCase());
+			elements.addAll(((Verify) content).getVerifiedRequirement());
+			elements.addAll(((Verify) content).getVerifiedByProcedure());
+		} else if (content instanceof Satisfy) {
+			elements.addAll(((Satisfy) content).getSatisfiedBy());
+			elements.addAll(((Satisfy) content).getSatisfiedRequirement());
+			elements.addAll(((Satisfy) content).getSatisfiedUseCase());
+		} else if (content instanceof DeriveRequirement) {
+			elements.addAll(((DeriveRequirement) content).getDerived());
+			elements.addAll(((DeriveRequirement) content).getDerivedFrom());
+		} else if (content instanceof RequirementsLink) {
+			elements.addAll(((RequirementsLink) content).getSource());
+			elements.addAll(((RequirementsLink) content).getTarget());
+		} else if (content instanceof Transition) {
+			elements.add(((Transition) content).getFrom());
+			elements.add(((Transition) content).getTo());
+		} else if (content instanceof FaultFailurePropagationLink) {
+			elements.add(((FaultFailurePropagationLink) content).getFromPort());
+			elements.add(((FaultFailurePropagationLink) content).getToPort());
+		} else if (content instanceof FunctionConnector) {
+			elements.addAll(((FunctionConnector) content).getPort());
+		} else if (content instanceof HardwareConnector) {
+			elements.addAll(((HardwareConnector) content).getPort());
+		} else if (content instanceof HardwarePortConnector) {
+			elements.addAll(((HardwarePortConnector) content).getPort());
+		} else if (content instanceof ClampConnector) {
+			elements.addAll(((ClampConnector) content).getPort());
+		}
+		return elements;
+	}
+}
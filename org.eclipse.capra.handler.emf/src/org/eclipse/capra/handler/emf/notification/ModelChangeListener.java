@@ -12,12 +12,13 @@ package org.eclipse.capra.handler.emf.notification;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
 import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper.IssueType;
 import org.eclipse.core.resources.IFile;
@@ -39,6 +40,7 @@ import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 
 /**
  * Listens to changes in the target model and produces a notification, if they
@@ -66,41 +68,55 @@ public class ModelChangeListener extends EContentAdapter {
 	}
 
 	private void compareTracedItems(Resource changedResource) {
-		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		ResourceSetImpl newResourceSet = new ResourceSetImpl();
-		EObject traceModel = persistenceAdapter.getTraceModel(newResourceSet);
-		EList<RelatedTo> traces = ((GenericTraceModel) traceModel).getTraces();
+		URI changedFileUri = CapraNotificationHelper.getFileUri(changedResource);
+		Set<URI> tracedItemUris = new LinkedHashSet<>();
+
+		// Collect the items from the same resource as the one that was
+		// changed. Only their URIs are needed, so proxies are not resolved.
+		IFile traceContainer = TraceModelSession.read((traceModel, artifactModel) -> {
+			if (traceModel.eResource() == null) {
+				return null;
+			}
+			for (RelatedTo trace : ((GenericTraceModel) traceModel).getTraces()) {
+				for (EObject tracedItem : ((InternalEList<EObject>) trace.getItem()).basicList()) {
+					URI itemUri = EcoreUtil.getURI(tracedItem);
+					if (isFromResource(itemUri, changedFileUri)) {
+						tracedItemUris.add(itemUri);
+					}
+				}
+			}
+			IPath path = new Path(EcoreUtil.getURI(traceModel).toPlatformString(false));
+			return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+		});
 
-		if (traces.size() == 0)
+		if (traceContainer == null || tracedItemUris.isEmpty())
 			return;
 
-		IPath path = new Path(EcoreUtil.getURI(traceModel).toPlatformString(false));
-		IFile traceContainer = ResourcesPlugin.getWorkspace().getRoot().getFile(path);
-
-		// Traverse the traces and the items that they are referencing and
-		// check, if the items are from the same resource as the one that was
-		// changed. If yes, check if the changes affect the items.
-		for (RelatedTo trace : traces) {
-			for (EObject tracedItem : trace.getItem()) {
-				Resource oldResource = tracedItem.eResource();
-				if (oldResource == null)
-					oldResource = newResourceSet.getResource(EcoreUtil.getURI(tracedItem).trimFragment(), true);
-
-				if (oldResource != null) {
-					if (CapraNotificationHelper.getFileUri(oldResource)
-							.equals(CapraNotificationHelper.getFileUri(changedResource))) {
-						IComparisonScope scope = new DefaultComparisonScope(changedResource, oldResource, null);
-						// Build a comparison object with EMFCompare and
-						// recursively resolve the Match elements.
-						Comparison comparison = EMFCompare.builder().build().compare(scope);
-						for (Match match : comparison.getMatches())
-							resolveMatch(tracedItem, match, null, traceContainer);
-					}
-				}
+		// The previously saved state of the model is loaded separately, since
+		// the session might have to follow the changes once they are saved.
+		ResourceSetImpl newResourceSet = new ResourceSetImpl();
+		Resource oldResource = newResourceSet.getResource(tracedItemUris.iterator().next().trimFragment(), true);
+		IComparisonScope scope = new DefaultComparisonScope(changedResource, oldResource, null);
+		// Build a comparison object with EMFCompare and recursively resolve
+		// the Match elements for each item that could be affected.
+		Comparison comparison = EMFCompare.builder().build().compare(scope);
+		for (URI itemUri : tracedItemUris) {
+			EObject tracedItem = oldResource.getEObject(itemUri.fragment());
+			if (tracedItem != null) {
+				for (Match match : comparison.getMatches())
+					resolveMatch(tracedItem, match, null, traceContainer);
 			}
 		}
 	}
 
+	private static boolean isFromResource(URI itemUri, URI fileUri) {
+		URI resourceUri = itemUri.trimFragment();
+		if (resourceUri.isPlatformResource()
+				&& ResourcesPlugin.getWorkspace().getRoot().findMember(resourceUri.toPlatformString(true)) == null)
+			return false;
+		return CapraNotificationHelper.convertToFileUri(resourceUri).equals(fileUri);
+	}
+
 	private void resolveMatch(EObject tracedItem, Match match, DifferenceKind diffKind, IFile traceContainer) {
 		EList<Diff> differences = match.getDifferences();
 		if (!differences.isEmpty())
@@ -10,14 +10,14 @@
  *******************************************************************************/
 package org.eclipse.capra.handler.file.notification;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.handler.file.IFileHandler;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper.IssueType;
@@ -34,8 +34,6 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
@@ -49,39 +47,41 @@ public class FileChangeListener implements IResourceChangeListener {
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
 
-		TracePersistenceAdapter tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject awc = tracePersistenceAdapter.getArtifactWrappers(new ResourceSetImpl());
-		List<ArtifactWrapper> fileArtifacts = ((ArtifactWrapperContainer) awc).getArtifacts().stream()
-				.filter(p -> p.getArtifactHandler().equals(IFileHandler.class.getName())).collect(Collectors.toList());
-
-		if (fileArtifacts.size() == 0)
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
 			return;
 
-		IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
-		IFile wrapperContainer = ResourcesPlugin.getWorkspace().getRoot().getFile(path);
-		IResourceDeltaVisitor visitor = new IResourceDeltaVisitor() {
-
+		// The artifact model is looked up in the job, since the session must
+		// not be accessed while the workspace is notifying listeners
+		WorkspaceJob job = new WorkspaceJob(CapraNotificationHelper.NOTIFICATION_JOB) {
 			@Override
-			public boolean visit(IResourceDelta delta) throws CoreException {
-				WorkspaceJob job = new WorkspaceJob(CapraNotificationHelper.NOTIFICATION_JOB) {
-					@Override
-					public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-						handleDelta(delta, fileArtifacts, wrapperContainer);
-						return Status.OK_STATUS;
-					}
-				};
-				job.schedule();
-				return true;
+			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+				List<ArtifactWrapper> fileArtifacts = new ArrayList<>();
+				IFile wrapperContainer = TraceModelSession.read((traceModel, awc) -> {
+					((ArtifactWrapperContainer) awc).getArtifacts().stream()
+							.filter(p -> p.getArtifactHandler().equals(IFileHandler.class.getName()))
+							.forEach(fileArtifacts::add);
+
+					if (fileArtifacts.size() == 0)
+						return null;
+
+					IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
+					return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+				});
+
+				if (wrapperContainer != null) {
+					delta.accept(new IResourceDeltaVisitor() {
+						@Override
+						public boolean visit(IResourceDelta child) throws CoreException {
+							handleDelta(child, fileArtifacts, wrapperContainer);
+							return true;
+						}
+					});
+				}
+				return Status.OK_STATUS;
 			}
 		};
-
-		try {
-			IResourceDelta delta = event.getDelta();
-			if (delta != null)
-				delta.accept(visitor);
-		} catch (CoreException e) {
-			e.printStackTrace();
-		}
+		job.schedule();
 	}
 
 	/**
@@ -99,6 +99,7 @@ public class FileChangeListener implements IResourceChangeListener {
 		for (ArtifactWrapper aw : fileArtifacts) {
 
 			if (aw.getUri().equals(delta.getFullPath().toString())) {
+				ArtifactLabels.invalidate(IFileHandler.class.getName(), aw.getUri());
 				int changeType = delta.getKind();
 				IssueType issueType = null;
 
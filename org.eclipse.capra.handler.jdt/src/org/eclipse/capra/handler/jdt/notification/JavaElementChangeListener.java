@@ -10,14 +10,19 @@
  *******************************************************************************/
 package org.eclipse.capra.handler.jdt.notification;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.core.helpers.TraceModelSession;
+import org.eclipse.capra.generic.tracemodels.ArtifactWrapperIndex;
 import org.eclipse.capra.handler.jdt.JavaElementHandler;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper;
 import org.eclipse.capra.ui.notification.CapraNotificationHelper.IssueType;
@@ -30,8 +35,6 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -53,28 +56,54 @@ public class JavaElementChangeListener implements IElementChangedListener {
 	@Override
 	public void elementChanged(ElementChangedEvent event) {
 
-		TracePersistenceAdapter tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject awc = tracePersistenceAdapter.getArtifactWrappers(new ResourceSetImpl());
-		List<ArtifactWrapper> javaArtifacts = ((ArtifactWrapperContainer) awc).getArtifacts().stream()
-				.filter(p -> p.getArtifactHandler().equals(JavaElementHandler.class.getName()))
-				.collect(Collectors.toList());
-
-		if (javaArtifacts.size() == 0)
+		// Reconciling a working copy, e.g., after each keystroke in the
+		// editor, does not affect the artifacts until the file is saved
+		if (event.getType() == ElementChangedEvent.POST_RECONCILE)
 			return;
 
-		IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
-		IFile wrapperContainer = ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+		List<IJavaElementDelta> deltas = new ArrayList<>();
+		collectDeltas(event.getDelta(), deltas);
+		if (deltas.isEmpty())
+			return;
 
+		// The artifact model is looked up in the job, since the session must
+		// not be accessed while the workspace is notifying listeners
 		new WorkspaceJob(CapraNotificationHelper.NOTIFICATION_JOB) {
 			@Override
 			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-				handleDelta(event.getDelta(), javaArtifacts, wrapperContainer);
+				Map<IJavaElementDelta, List<ArtifactWrapper>> affectedArtifacts = new LinkedHashMap<>();
+				IFile wrapperContainer = TraceModelSession.read((traceModel, awc) -> {
+					ArtifactWrapperIndex index = ArtifactWrapperIndex.getIndex((ArtifactWrapperContainer) awc);
+					for (IJavaElementDelta delta : deltas) {
+						// The URIs of the wrapped children of the affected
+						// element start with the URI of the element
+						List<ArtifactWrapper> javaArtifacts = index.getArtifactsWithUriPrefix(
+								JavaElementHandler.class.getName(), delta.getElement().getHandleIdentifier());
+						if (!javaArtifacts.isEmpty())
+							affectedArtifacts.put(delta, javaArtifacts);
+					}
+
+					if (affectedArtifacts.isEmpty())
+						return null;
+
+					IPath path = new Path(EcoreUtil.getURI(awc).toPlatformString(false));
+					return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+				});
+
+				if (wrapperContainer != null) {
+					Set<String> changedUris = new LinkedHashSet<>();
+					affectedArtifacts.forEach(
+							(delta, javaArtifacts) -> handleDelta(delta, javaArtifacts, wrapperContainer, changedUris));
+					if (!changedUris.isEmpty())
+						TraceModelSession.write((traceModel, awc) -> ArtifactLabels.refreshLabels(awc,
+								JavaElementHandler.class.getName(), changedUris));
+				}
 				return Status.OK_STATUS;
 			}
 		}.schedule();
 	}
 
-	private void handleDelta(IJavaElementDelta delta, List<ArtifactWrapper> javaArtifacts, IFile wrapperContainer) {
+	private void collectDeltas(IJavaElementDelta delta, List<IJavaElementDelta> deltas) {
 
 		// If the changes are not made manually (by typing in the
 		// editor) this recursion only goes as far as the source file. The
@@ -86,57 +115,66 @@ public class JavaElementChangeListener implements IElementChangedListener {
 		if (!(delta.getElement() instanceof ICompilationUnit))
 			// Only go as far as the source file
 			for (IJavaElementDelta subDelta : delta.getAffectedChildren())
-				handleDelta(subDelta, javaArtifacts, wrapperContainer);
+				collectDeltas(subDelta, deltas);
+
+		if (getIssueType(delta) != null && delta.getElement().getHandleIdentifier() != null)
+			deltas.add(delta);
+	}
 
+	private IssueType getIssueType(IJavaElementDelta delta) {
 		int flags = delta.getFlags();
 		int changeType = delta.getKind();
-		IssueType issueType = null;
 
 		if (changeType == IJavaElementDelta.ADDED)
-			issueType = IssueType.ADDED;
+			return IssueType.ADDED;
 		else if (changeType == IJavaElementDelta.REMOVED) {
 
 			if ((flags & IJavaElementDelta.F_MOVED_TO) != 0)
 				if (delta.getMovedToElement().getElementName().equals(delta.getElement().getElementName()))
-					issueType = IssueType.MOVED;
+					return IssueType.MOVED;
 				else
-					issueType = IssueType.RENAMED;
+					return IssueType.RENAMED;
 			else
-				issueType = IssueType.DELETED;
+				return IssueType.DELETED;
 
 		} else if (changeType == IJavaElementDelta.CHANGED && (flags & IJavaElementDelta.F_PRIMARY_RESOURCE) != 0)
 			// This is only true if a source file changes.
-			issueType = IssueType.CHANGED;
-
-		if (issueType != null) {
-			String affectedElementUri = delta.getElement().getHandleIdentifier();
-			if (affectedElementUri != null) {
-				for (ArtifactWrapper aw : javaArtifacts) {
-					String artifactUri = aw.getUri();
-					// Only create a marker if a signature of a
-					// method/variable/class... has changed inside of a source
-					// file.
-
-					IssueType[] markersToDelete = null;
-					String deleteMarkerUri = "";
-					IJavaElement element = JavaCore.create(artifactUri);
-					if (element != null && element.exists()) {
-						deleteMarkerUri = artifactUri;
-						markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
-					} else if (issueType == IssueType.DELETED) {
-						markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.CHANGED };
-						deleteMarkerUri = affectedElementUri;
-					}
+			return IssueType.CHANGED;
 
-					if (!deleteMarkerUri.isEmpty() && artifactUri.contains(deleteMarkerUri))
-						CapraNotificationHelper.deleteCapraMarker(artifactUri, markersToDelete, wrapperContainer);
+		return null;
+	}
 
-					if (artifactUri.contains(affectedElementUri)) {
-						HashMap<String, String> markerInfo = generateMarkerInfo(aw, delta, issueType);
-						CapraNotificationHelper.createCapraMarker(markerInfo, wrapperContainer);
-					}
-				}
+	private void handleDelta(IJavaElementDelta delta, List<ArtifactWrapper> javaArtifacts, IFile wrapperContainer,
+			Set<String> changedUris) {
+
+		IssueType issueType = getIssueType(delta);
+		String affectedElementUri = delta.getElement().getHandleIdentifier();
+		for (ArtifactWrapper aw : javaArtifacts) {
+			String artifactUri = aw.getUri();
+			// The display names of the element and its children
+			// might have changed
+			changedUris.add(artifactUri);
+
+			// Only create a marker if a signature of a
+			// method/variable/class... has changed inside of a source
+			// file.
+
+			IssueType[] markersToDelete = null;
+			String deleteMarkerUri = "";
+			IJavaElement element = JavaCore.create(artifactUri);
+			if (element != null && element.exists()) {
+				deleteMarkerUri = artifactUri;
+				markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.DELETED };
+			} else if (issueType == IssueType.DELETED) {
+				markersToDelete = new IssueType[] { IssueType.MOVED, IssueType.RENAMED, IssueType.CHANGED };
+				deleteMarkerUri = affectedElementUri;
 			}
+
+			if (!deleteMarkerUri.isEmpty() && artifactUri.contains(deleteMarkerUri))
+				CapraNotificationHelper.deleteCapraMarker(artifactUri, markersToDelete, wrapperContainer);
+
+			HashMap<String, String> markerInfo = generateMarkerInfo(aw, delta, issueType);
+			CapraNotificationHelper.createCapraMarker(markerInfo, wrapperContainer);
 		}
 	}
 
@@ -12,8 +12,10 @@ package org.eclipse.capra.handler.muml;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
 import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.emf.common.util.EList;
@@ -47,40 +49,30 @@ public class MUMLHandler extends AbstractArtifactHandler<ExtendableElement> {
 
 	@Override
 	public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
-		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, selectedRelationshipTypes);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, relationshipFilter);
 		if (Transition.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Transition transition = Transition.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(transition.getSource());
 				relatedElements.add(transition.getTarget());
-				int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-						+ transition.getTarget().hashCode() + transition.getSource().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Connector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Connector connector = Connector.class.cast(investigatedElement);
 				EList<ConnectorEndpoint> connectedEnds = connector.getConnectorEndpoints();
 				List<EObject> relatedElements = new ArrayList<>();
 				connectedEnds.forEach(connectedEnd -> {
 					relatedElements.add(connectedEnd);
 				});
-				int connectionHash = investigatedElement.hashCode() + connector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else {
@@ -88,35 +80,25 @@ public class MUMLHandler extends AbstractArtifactHandler<ExtendableElement> {
 			TreeIterator<EObject> modelContents = root.eAllContents();
 			while (modelContents.hasNext()) {
 				EObject content = modelContents.next();
-				if (selectedRelationshipTypes.size() == 0
-						|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+				if (relationshipFilter.accepts(content)) {
 					if (Transition.class.isAssignableFrom(content.getClass())) {
 						Transition transition = Transition.class.cast(content);
 						List<EObject> relatedElements = new ArrayList<>();
 						if (transition.getSource().hashCode() == investigatedElement.hashCode()) {
 							relatedElements.add(transition.getTarget());
-							int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-									+ transition.getTarget().hashCode();
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						} else if (transition.getTarget().hashCode() == investigatedElement.hashCode()) {
 							relatedElements.add(transition.getSource());
-							int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-									+ transition.getSource().hashCode();
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
-							Connection conn = new Connection(investigatedElement, relatedElements, transition);
-							allElements.add(conn);
 						}
 					} else if (Connector.class.isAssignableFrom(content.getClass())) {
-						if (selectedRelationshipTypes.size() == 0
-								|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+						if (relationshipFilter.accepts(content)) {
 							Connector connector = Connector.class.cast(content);
 							EList<ConnectorEndpoint> connectedEnds = connector.getConnectorEndpoints();
 							List<EObject> relatedElements = new ArrayList<>();
@@ -129,14 +111,9 @@ public class MUMLHandler extends AbstractArtifactHandler<ExtendableElement> {
 								}
 							}
 							if (isConnected) {
-								int connectionHash = investigatedElement.hashCode() + connector.hashCode();
-								for (EObject el : relatedElements) {
-									connectionHash += el.hashCode();
-								}
-								if (!duplicationCheck.contains(connectionHash)) {
-									Connection conn = new Connection(investigatedElement, relatedElements, connector);
+								Connection conn = new Connection(investigatedElement, relatedElements, connector);
+								if (duplicationCheck.add(conn)) {
 									allElements.add(conn);
-									duplicationCheck.add(connectionHash);
 								}
 							}
 						}
@@ -146,6 +123,11 @@ public class MUMLHandler extends AbstractArtifactHandler<ExtendableElement> {
 		}
 	}
 
+	@Override
+	public boolean providesInternalTraces() {
+		return true;
+	}
+
 	@Override
 	public String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel) {
 		String traceString = "";
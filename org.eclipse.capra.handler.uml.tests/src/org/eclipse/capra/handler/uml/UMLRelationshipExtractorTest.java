@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.uml;
+
+import static org.eclipse.capra.testsuite.RelationshipIndexTestHelper.assertIndexMatchesModelWalk;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.uml2.uml.Activity;
+import org.eclipse.uml2.uml.ActivityEdge;
+import org.eclipse.uml2.uml.ActivityNode;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Dependency;
+import org.eclipse.uml2.uml.Generalization;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.Lifeline;
+import org.eclipse.uml2.uml.Message;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.Region;
+import org.eclipse.uml2.uml.StateMachine;
+import org.eclipse.uml2.uml.Transition;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.Vertex;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UMLRelationshipExtractorTest {
+
+	private static final RelationshipFilter ALL = RelationshipFilter.of(Collections.emptyList());
+
+	private Model model;
+	private Class a;
+	private Class b;
+	private Class c;
+	private Dependency dependency;
+	private Generalization generalization;
+	private ActivityNode firstNode;
+	private ActivityNode secondNode;
+	private ActivityEdge flow;
+	private Vertex firstState;
+	private Vertex secondState;
+	private Vertex thirdState;
+	private Transition transition;
+	private Lifeline sender;
+	private Lifeline receiver;
+	private Lifeline otherReceiver;
+	private MessageOccurrenceSpecification receiveEvent;
+	private Message message;
+
+	@Before
+	public void createModel() {
+		model = UMLFactory.eINSTANCE.createModel();
+		a = model.createOwnedClass("A", false);
+		b = model.createOwnedClass("B", false);
+		c = model.createOwnedClass("C", false);
+		dependency = a.createDependency(b);
+		generalization = b.createGeneralization(a);
+
+		Activity activity = (Activity) model.createPackagedElement("activity", UMLPackage.Literals.ACTIVITY);
+		firstNode = activity.createOwnedNode("first", UMLPackage.Literals.OPAQUE_ACTION);
+		secondNode = activity.createOwnedNode("second", UMLPackage.Literals.OPAQUE_ACTION);
+		flow = activity.createEdge("flow", UMLPackage.Literals.CONTROL_FLOW);
+		flow.setSource(firstNode);
+		flow.setTarget(secondNode);
+
+		StateMachine stateMachine = (StateMachine) model.createPackagedElement("states",
+				UMLPackage.Literals.STATE_MACHINE);
+		Region region = stateMachine.createRegion("region");
+		firstState = region.createSubvertex("first", UMLPackage.Literals.STATE);
+		secondState = region.createSubvertex("second", UMLPackage.Literals.STATE);
+		thirdState = region.createSubvertex("third", UMLPackage.Literals.STATE);
+		transition = region.createTransition("transition");
+		transition.setSource(firstState);
+		transition.setTarget(secondState);
+
+		Interaction interaction = (Interaction) model.createPackagedElement("interaction",
+				UMLPackage.Literals.INTERACTION);
+		sender = interaction.createLifeline("sender");
+		receiver = interaction.createLifeline("receiver");
+		otherReceiver = interaction.createLifeline("otherReceiver");
+		MessageOccurrenceSpecification sendEvent = (MessageOccurrenceSpecification) interaction
+				.createFragment("send", UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION);
+		sendEvent.setCovered(sender);
+		receiveEvent = (MessageOccurrenceSpecification) interaction.createFragment("receive",
+				UMLPackage.Literals.MESSAGE_OCCURRENCE_SPECIFICATION);
+		receiveEvent.setCovered(receiver);
+		message = interaction.createMessage("message");
+		message.setSendEvent(sendEvent);
+		message.setReceiveEvent(receiveEvent);
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		RelationshipIndex index = RelationshipIndex.getIndex(a, new UMLRelationshipExtractor());
+		assertEquals(new HashSet<>(Arrays.asList(dependency, generalization)),
+				new HashSet<>(index.getRelationships(a)));
+		assertEquals(Arrays.asList(flow), index.getRelationshipsBetween(firstNode, secondNode));
+		assertEquals(Arrays.asList(transition), index.getRelationships(secondState));
+		assertEquals(Arrays.asList(message), index.getRelationships(receiver));
+		assertTrue(index.getRelationships(c).isEmpty());
+		assertIndexMatchesModelWalk(model, new UMLRelationshipExtractor());
+
+		// New relationship
+		Dependency other = c.createDependency(a);
+		assertEquals(Arrays.asList(other), index.getRelationships(c));
+		assertIndexMatchesModelWalk(model, new UMLRelationshipExtractor());
+
+		// Changed end of a relationship
+		transition.setTarget(thirdState);
+		assertIndexMatchesModelWalk(model, new UMLRelationshipExtractor());
+
+		// Changed end that is not held by the relationship itself
+		receiveEvent.setCovered(otherReceiver);
+		assertTrue(index.getRelationships(receiver).isEmpty());
+		assertIndexMatchesModelWalk(model, new UMLRelationshipExtractor());
+
+		// Removed relationship
+		dependency.destroy();
+		assertIndexMatchesModelWalk(model, new UMLRelationshipExtractor());
+	}
+
+	@Test
+	public void testTransitionOfState() {
+		List<Connection> links = new ArrayList<>();
+		new UMLHandler().addInternalLinks(firstState, links, new HashSet<>(), ALL);
+		assertTrue(links.contains(new Connection(firstState, Arrays.asList(secondState), transition)));
+	}
+}
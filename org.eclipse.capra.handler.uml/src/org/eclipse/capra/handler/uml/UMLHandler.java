@@ -12,11 +12,12 @@ package org.eclipse.capra.handler.uml;
 
 import java.util.ArrayList;
 import java.util.List;
-
-import javax.sound.sampled.Port;
+import java.util.Set;
 
 import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
 import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
+import org.eclipse.capra.core.helpers.RelationshipIndex;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.TreeIterator;
@@ -27,17 +28,22 @@ import org.eclipse.uml2.uml.ActivityEdge;
 import org.eclipse.uml2.uml.Connector;
 import org.eclipse.uml2.uml.ConnectorEnd;
 import org.eclipse.uml2.uml.DirectedRelationship;
+import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.Interface;
 import org.eclipse.uml2.uml.Message;
 import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.Port;
 import org.eclipse.uml2.uml.Relationship;
 import org.eclipse.uml2.uml.Transition;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Handler to allow tracing to and from arbitrary model elements handled by EMF.
  */
 public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 
+	private static final UMLRelationshipExtractor RELATIONSHIPS = new UMLRelationshipExtractor();
+
 	@Override
 	public EObject createWrapper(EModelElement artifact, EObject artifactModel) {
 		return artifact;
@@ -55,56 +61,42 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 
 	@Override
 	public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
-			ArrayList<Integer> duplicationCheck, List<String> selectedRelationshipTypes) {
-		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, selectedRelationshipTypes);
+			Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+		this.includeContainmentLinks(investigatedElement, allElements, duplicationCheck, relationshipFilter);
 		if (Relationship.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Relationship rel = Relationship.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
-				int connectionHash = investigatedElement.hashCode() + rel.hashCode();
-				for (Element element : rel.getRelatedElements()) {
-					relatedElements.add(element);
-					connectionHash += element.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				relatedElements.addAll(rel.getRelatedElements());
+				Connection conn = new Connection(investigatedElement, relatedElements, rel);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (ActivityEdge.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				ActivityEdge activityEdge = ActivityEdge.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(activityEdge.getTarget());
 				relatedElements.add(activityEdge.getSource());
-				int connectionHash = investigatedElement.hashCode() + activityEdge.hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, activityEdge);
+				Connection conn = new Connection(investigatedElement, relatedElements, activityEdge);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Transition.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Transition transition = Transition.class.cast(investigatedElement);
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.add(transition.getSource());
 				relatedElements.add(transition.getTarget());
-				int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-						+ transition.getTarget().hashCode() + transition.getSource().hashCode();
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				Connection conn = new Connection(investigatedElement, relatedElements, transition);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Message.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Message msg = Message.class.cast(investigatedElement);
 				MessageOccurrenceSpecification receiver = (MessageOccurrenceSpecification) msg.getReceiveEvent();
 				MessageOccurrenceSpecification sender = (MessageOccurrenceSpecification) msg.getSendEvent();
@@ -112,38 +104,27 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 				relatedElements.add(sender.getCovered());
 				relatedElements.add(receiver.getCovered());
 				if (receiver != null) {
-					int connectionHash = investigatedElement.hashCode() + msg.hashCode()
-							+ msg.getMessageSort().hashCode() + sender.getCovered().hashCode()
-							+ receiver.getCovered().hashCode();
-					if (!duplicationCheck.contains(connectionHash)) {
-						Connection conn = new Connection(investigatedElement, relatedElements, msg);
+					Connection conn = new Connection(investigatedElement, relatedElements, msg);
+					if (duplicationCheck.add(conn)) {
 						allElements.add(conn);
-						duplicationCheck.add(connectionHash);
 					}
 				}
 			}
 		} else if (Port.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Port port = Port.class.cast(investigatedElement);
 				EList<Interface> provideds = port.getProvideds();
 				EList<Interface> requireds = port.getRequireds();
 				List<EObject> relatedElements = new ArrayList<>();
 				relatedElements.addAll(requireds);
 				relatedElements.addAll(provideds);
-				int connectionHash = investigatedElement.hashCode() + port.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, port);
+				Connection conn = new Connection(investigatedElement, relatedElements, port);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
 		} else if (Connector.class.isAssignableFrom(investigatedElement.getClass())) {
-			if (selectedRelationshipTypes.size() == 0
-					|| selectedRelationshipTypes.contains(investigatedElement.eClass().getName())) {
+			if (relationshipFilter.accepts(investigatedElement)) {
 				Connector connector = Connector.class.cast(investigatedElement);
 				EList<ConnectorEnd> connectedEnds = connector.getEnds();
 				List<EObject> relatedElements = new ArrayList<>();
@@ -154,23 +135,16 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 						relatedElements.add(connectedEnd);
 					}
 				});
-				int connectionHash = investigatedElement.hashCode() + connector.hashCode();
-				for (EObject el : relatedElements) {
-					connectionHash += el.hashCode();
-				}
-				if (!duplicationCheck.contains(connectionHash)) {
-					Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				Connection conn = new Connection(investigatedElement, relatedElements, connector);
+				if (duplicationCheck.add(conn)) {
 					allElements.add(conn);
-					duplicationCheck.add(connectionHash);
 				}
 			}
-		} else {
-			EObject root = EcoreUtil.getRootContainer(investigatedElement);
-			TreeIterator<EObject> modelContents = root.eAllContents();
-			while (modelContents.hasNext()) {
-				EObject content = modelContents.next();
-				if (selectedRelationshipTypes.size() == 0
-						|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+		} else if (relationshipFilter.acceptsAnyOf(UMLPackage.eINSTANCE)) {
+			// Only the relationships referring to the element are visited, and
+			// only if any UML relationship is selected
+			for (EObject content : getRelationships(investigatedElement)) {
+				if (relationshipFilter.accepts(content)) {
 					if (Relationship.class.isAssignableFrom(content.getClass())) {
 						Relationship relation = Relationship.class.cast(content);
 						boolean isRelatedToElement = false;
@@ -183,19 +157,13 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 							}
 						}
 						if (isRelatedToElement) {
-							int connectionHash = investigatedElement.hashCode() + relation.hashCode();
-							for (EObject element : relatedElements) {
-								connectionHash += element.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, relation);
+							Connection conn = new Connection(investigatedElement, relatedElements, relation);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (ActivityEdge.class.isAssignableFrom(content.getClass())) {
-						if (selectedRelationshipTypes.size() == 0
-								|| selectedRelationshipTypes.contains(content.eClass().getName())) {
+						if (relationshipFilter.accepts(content)) {
 							ActivityEdge activityEdge = ActivityEdge.class.cast(content);
 							List<EObject> relatedElements = new ArrayList<>();
 							if (activityEdge.getTarget().hashCode() == investigatedElement.hashCode()) {
@@ -203,11 +171,9 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 							} else if (activityEdge.getSource().hashCode() == investigatedElement.hashCode()) {
 								relatedElements.add(activityEdge.getTarget());
 							}
-							int connectionHash = investigatedElement.hashCode() + activityEdge.hashCode();
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, activityEdge);
+							Connection conn = new Connection(investigatedElement, relatedElements, activityEdge);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Transition.class.isAssignableFrom(content.getClass())) {
@@ -215,21 +181,15 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 						List<EObject> relatedElements = new ArrayList<>();
 						if (transition.getSource().hashCode() == investigatedElement.hashCode()) {
 							relatedElements.add(transition.getTarget());
-							int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-									+ transition.getTarget().hashCode();
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						} else if (transition.getTarget().hashCode() == investigatedElement.hashCode()) {
 							relatedElements.add(transition.getSource());
-							int connectionHash = investigatedElement.hashCode() + transition.hashCode()
-									+ transition.getSource().hashCode();
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							Connection conn = new Connection(investigatedElement, relatedElements, transition);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Message.class.isAssignableFrom(content.getClass())) {
@@ -241,21 +201,15 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 						if (receiver != null && receiver.getCovered() != null) {
 							if (receiver.getCovered().hashCode() == investigatedElement.hashCode()) {
 								relatedElements.add(sender.getCovered());
-								int connectionHash = investigatedElement.hashCode() + msg.hashCode()
-										+ msg.getMessageSort().hashCode() + sender.getCovered().hashCode();
-								if (!duplicationCheck.contains(connectionHash)) {
-									Connection conn = new Connection(investigatedElement, relatedElements, msg);
+								Connection conn = new Connection(investigatedElement, relatedElements, msg);
+								if (duplicationCheck.add(conn)) {
 									allElements.add(conn);
-									duplicationCheck.add(connectionHash);
 								}
 							} else if (sender.getCovered().hashCode() == investigatedElement.hashCode()) {
 								relatedElements.add(receiver.getCovered());
-								int connectionHash = investigatedElement.hashCode() + msg.hashCode()
-										+ msg.getMessageSort().hashCode() + receiver.getCovered().hashCode();
-								if (!duplicationCheck.contains(connectionHash)) {
-									Connection conn = new Connection(investigatedElement, relatedElements, msg);
+								Connection conn = new Connection(investigatedElement, relatedElements, msg);
+								if (duplicationCheck.add(conn)) {
 									allElements.add(conn);
-									duplicationCheck.add(connectionHash);
 								}
 							}
 						}
@@ -284,14 +238,9 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 							relatedElements.addAll(provideds);
 						}
 						if (investigatedIsProvided || investigatedIsRequired) {
-							int connectionHash = investigatedElement.hashCode() + port.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, port);
+							Connection conn = new Connection(investigatedElement, relatedElements, port);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					} else if (Connector.class.isAssignableFrom(content.getClass())) {
@@ -315,14 +264,9 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 							}
 						}
 						if (isConnected) {
-							int connectionHash = investigatedElement.hashCode() + connector.hashCode();
-							for (EObject el : relatedElements) {
-								connectionHash += el.hashCode();
-							}
-							if (!duplicationCheck.contains(connectionHash)) {
-								Connection conn = new Connection(investigatedElement, relatedElements, connector);
+							Connection conn = new Connection(investigatedElement, relatedElements, connector);
+							if (duplicationCheck.add(conn)) {
 								allElements.add(conn);
-								duplicationCheck.add(connectionHash);
 							}
 						}
 					}
@@ -331,6 +275,20 @@ public class UMLHandler extends AbstractArtifactHandler<EModelElement> {
 		}
 	}
 
+	/**
+	 * Returns the relationships, activity edges, transitions, messages, ports
+	 * and connectors that refer to the given element, as maintained by the
+	 * {@link RelationshipIndex} of its model.
+	 */
+	private static List<EObject> getRelationships(EObject element) {
+		return RelationshipIndex.getIndex(element, RELATIONSHIPS).getRelationships(element);
+	}
+
+	@Override
+	public boolean providesInternalTraces() {
+		return true;
+	}
+
 	@Override
 	public String isThereAnInternalTraceBetween(EObject first, EObject second, EObject traceModel) {
 		String traceString = "";
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.handler.uml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.capra.core.helpers.RelationshipIndex.RelationshipExtractor;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.uml2.uml.ActivityEdge;
+import org.eclipse.uml2.uml.Connector;
+import org.eclipse.uml2.uml.ConnectorEnd;
+import org.eclipse.uml2.uml.Message;
+import org.eclipse.uml2.uml.MessageEnd;
+import org.eclipse.uml2.uml.MessageOccurrenceSpecification;
+import org.eclipse.uml2.uml.Port;
+import org.eclipse.uml2.uml.Relationship;
+import org.eclipse.uml2.uml.Transition;
+
+/**
+ * Determines the elements connected by the relationships, activity edges,
+ * transitions, messages, ports and connectors handled by {@link UMLHandler},
+ * so that they can be looked up in a {@link RelationshipIndex}.
+ */
+public class UMLRelationshipExtractor implements RelationshipExtractor {
+
+	@Override
+	public List<? extends EObject> getRelatedElements(EObject content) {
+		if (content instanceof Relationship) {
+			return ((Relationship) content).getRelatedElements();
+		} else if (content instanceof ActivityEdge) {
+			ActivityEdge activityEdge = (ActivityEdge) content;
+			return asList(activityEdge.getSource(), activityEdge.getTarget());
+		} else if (content instanceof Transition) {
+			Transition transition = (Transition) content;
+			return asList(transition.getSource(), transition.getTarget());
+		} else if (content instanceof Message) {
+			Message msg = (Message) content;
+			return asList(getCovered(msg.getSendEvent()), getCovered(msg.getReceiveEvent()));
+		} else if (content instanceof Port) {
+			Port port = (Port) content;
+			List<EObject> interfaces = new ArrayList<>(port.getProvideds());
+			interfaces.addAll(port.getRequireds());
+			return interfaces;
+		} else if (content instanceof Connector) {
+			List<EObject> ends = new ArrayList<>();
+			for (ConnectorEnd connectedEnd : ((Connector) content).getEnds()) {
+				ends.add(connectedEnd.getPartWithPort() != null ? connectedEnd.getPartWithPort() : connectedEnd);
+			}
+			return ends;
+		}
+		return Collections.emptyList();
+	}
+
+	private static EObject getCovered(MessageEnd end) {
+		return end instanceof MessageOccurrenceSpecification ? ((MessageOccurrenceSpecification) end).getCovered()
+				: null;
+	}
+
+	private static List<EObject> asList(EObject first, EObject second) {
+		List<EObject> elements = new ArrayList<>(2);
+		elements.add(first);
+		elements.add(second);
+		return elements;
+	}
+}
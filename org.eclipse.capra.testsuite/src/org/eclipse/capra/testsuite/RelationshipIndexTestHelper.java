@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.capra.core.helpers.RelationshipIndex.RelationshipExtractor;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Compares a {@link RelationshipIndex} with a walk of the whole model. Used by
+ * the tests of the relationship extractors of the artifact handlers.
+ */
+public class RelationshipIndexTestHelper {
+
+	private RelationshipIndexTestHelper() {
+	}
+
+	/**
+	 * Asserts that the index of the given extractor returns the same
+	 * relationships for every element of the model, and for every pair of
+	 * elements, as a walk of all contents of the model does.
+	 *
+	 * @param model
+	 *            an element of the model to check
+	 * @param extractor
+	 *            determines the elements a relationship refers to
+	 */
+	public static void assertIndexMatchesModelWalk(EObject model, RelationshipExtractor extractor) {
+		RelationshipIndex index = RelationshipIndex.getIndex(model, extractor);
+		List<EObject> contents = getAllContents(model);
+		for (EObject element : contents) {
+			List<EObject> expected = walk(contents, extractor, element, element);
+			assertEquals(element.toString(), expected, index.getRelationships(element));
+			for (EObject other : contents) {
+				assertEquals(element + " " + other, walk(contents, extractor, element, other),
+						index.getRelationshipsBetween(element, other));
+			}
+		}
+	}
+
+	/**
+	 * Returns the contents of the model in the order the index visits them.
+	 */
+	private static List<EObject> getAllContents(EObject model) {
+		EObject root = EcoreUtil.getRootContainer(model);
+		Resource resource = root.eResource();
+		List<EObject> contents = new ArrayList<>();
+		if (resource != null) {
+			resource.getAllContents().forEachRemaining(contents::add);
+		} else {
+			root.eAllContents().forEachRemaining(contents::add);
+		}
+		return contents;
+	}
+
+	/**
+	 * Returns the relationships among the contents that refer to both given
+	 * elements.
+	 */
+	private static List<EObject> walk(List<EObject> contents, RelationshipExtractor extractor, EObject first,
+			EObject second) {
+		List<EObject> relationships = new ArrayList<>();
+		for (EObject content : contents) {
+			List<? extends EObject> elements = extractor.getRelatedElements(content);
+			if (elements.contains(first) && elements.contains(second)) {
+				relationships.add(content);
+			}
+		}
+		return relationships;
+	}
+}
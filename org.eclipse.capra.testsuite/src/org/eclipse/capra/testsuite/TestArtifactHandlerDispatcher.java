@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
+import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.capra.core.handlers.PriorityHandler;
+import org.eclipse.capra.core.helpers.ArtifactHandlerDispatcher;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestArtifactHandlerDispatcher {
+
+	private EClass first;
+	private EClass second;
+	private CountingHandler classHandler;
+	private CountingHandler otherClassHandler;
+	private NamePriorityHandler priorityHandler;
+
+	@Before
+	public void init() {
+		first = EcoreFactory.eINSTANCE.createEClass();
+		first.setName("First");
+		second = EcoreFactory.eINSTANCE.createEClass();
+		second.setName("Second");
+		classHandler = new CountingHandler();
+		otherClassHandler = new CountingHandler();
+		priorityHandler = new NamePriorityHandler();
+	}
+
+	@Test
+	public void testCandidatesAreDeterminedOncePerClass() {
+		ArtifactHandlerDispatcher dispatcher = new ArtifactHandlerDispatcher(Arrays.asList(classHandler),
+				Optional.of(priorityHandler));
+		assertSame(classHandler, dispatcher.getHandler(first).get());
+		assertSame(classHandler, dispatcher.getHandler(second).get());
+		assertEquals(1, classHandler.checks);
+		// The priority handler is only asked if there is a choice
+		assertTrue(priorityHandler.artifacts.isEmpty());
+
+		assertFalse(dispatcher.getHandler("not an EClass").isPresent());
+		assertFalse(dispatcher.getHandler("still not an EClass").isPresent());
+		assertEquals(2, classHandler.checks);
+	}
+
+	@Test
+	public void testPriorityHandlerDecidesPerInstance() {
+		ArtifactHandlerDispatcher dispatcher = new ArtifactHandlerDispatcher(
+				Arrays.asList(classHandler, otherClassHandler), Optional.of(priorityHandler));
+		assertSame(classHandler, dispatcher.getHandler(first).get());
+		assertSame(otherClassHandler, dispatcher.getHandler(second).get());
+		assertSame(classHandler, dispatcher.getHandler(first).get());
+		assertEquals(Arrays.asList(first, second, first), priorityHandler.artifacts);
+		assertEquals(1, classHandler.checks);
+		assertEquals(1, otherClassHandler.checks);
+	}
+
+	@Test
+	public void testNoChoiceWithoutPriorityHandler() {
+		ArtifactHandlerDispatcher dispatcher = new ArtifactHandlerDispatcher(
+				Arrays.asList(classHandler, otherClassHandler), Optional.empty());
+		assertFalse(dispatcher.getHandler(first).isPresent());
+	}
+
+	/**
+	 * Chooses the first of the given handlers for classes whose name starts
+	 * with "F", the last one otherwise, and remembers the artifacts it was
+	 * asked about.
+	 */
+	private static class NamePriorityHandler implements PriorityHandler {
+
+		private final List<Object> artifacts = new ArrayList<>();
+
+		@Override
+		public <T> IArtifactHandler<? extends T> getSelectedHandler(
+				Collection<? extends IArtifactHandler<? extends T>> handlers, Object artifact) {
+			artifacts.add(artifact);
+			List<IArtifactHandler<? extends T>> candidates = new ArrayList<>(handlers);
+			if (((EClass) artifact).getName().startsWith("F")) {
+				return candidates.get(0);
+			}
+			return candidates.get(candidates.size() - 1);
+		}
+	}
+
+	/**
+	 * Handles classes and counts how often it was asked whether it can handle
+	 * an artifact.
+	 */
+	private static class CountingHandler extends AbstractArtifactHandler<EClass> {
+
+		private int checks = 0;
+
+		@Override
+		public boolean canHandleArtifact(Object artifact) {
+			checks++;
+			return super.canHandleArtifact(artifact);
+		}
+
+		@Override
+		public EObject createWrapper(EClass artifact, EObject artifactModel) {
+			return artifact;
+		}
+
+		@Override
+		public EClass resolveWrapper(EObject wrapper) {
+			return (EClass) wrapper;
+		}
+
+		@Override
+		public String getDisplayName(EClass artifact) {
+			return artifact.getName();
+		}
+
+		@Override
+		public String generateMarkerMessage(IResourceDelta delta, String wrapperUri) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.generic.tracemodels.GenericArtifactMetaModelAdapter;
+import org.eclipse.capra.handler.file.IFileHandler;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestArtifactLabels {
+
+	// Not a registered handler, so that wrapped artifacts cannot be resolved
+	private static final String HANDLER = "unknownHandler";
+
+	private GenericArtifactMetaModelAdapter adapter;
+	private ArtifactWrapperContainer container;
+
+	@Before
+	public void init() {
+		adapter = new GenericArtifactMetaModelAdapter();
+		container = (ArtifactWrapperContainer) adapter.createModel();
+		ArtifactLabels.invalidateAll();
+	}
+
+	@Test
+	public void testLabelsAreCachedUntilInvalidated() {
+		ArtifactWrapper file = (ArtifactWrapper) adapter.createArtifact(container, IFileHandler.class.getName(),
+				"/p/a.txt", "wrapper", "/p/a.txt");
+		assertEquals("a.txt", ArtifactLabels.getDisplayName(file));
+		assertNull(ArtifactLabels.getWrapperLabel(EcoreFactory.eINSTANCE.createEClass()));
+
+		// Unresolvable artifacts are labelled with the name of their wrapper
+		ArtifactWrapper element = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "/p/a.txt#b", "b",
+				"/p/a.txt");
+		assertEquals("b", ArtifactLabels.getWrapperLabel(element));
+		element.setName("c");
+		assertEquals("b", ArtifactLabels.getWrapperLabel(element));
+
+		// Invalidating a container invalidates the elements in it
+		ArtifactLabels.invalidate(HANDLER, "/p/a.txt");
+		assertEquals("c", ArtifactLabels.getWrapperLabel(element));
+	}
+
+	@Test
+	public void testInvalidationMatchesWholeUris() {
+		ArtifactWrapper file = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "/p/a.txt", "a",
+				"/p/a.txt");
+		ArtifactWrapper similar = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "/p/a.txt2", "a2",
+				"/p/a.txt2");
+		ArtifactWrapper contained = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "/p/a.txt/b",
+				"b", "/p/a.txt");
+		assertEquals("a", ArtifactLabels.getWrapperLabel(file));
+		assertEquals("a2", ArtifactLabels.getWrapperLabel(similar));
+		assertEquals("b", ArtifactLabels.getWrapperLabel(contained));
+		file.setName("x");
+		similar.setName("x2");
+		contained.setName("y");
+
+		ArtifactLabels.invalidate(HANDLER, "/p/a.txt");
+		assertEquals("x", ArtifactLabels.getWrapperLabel(file));
+		assertEquals("y", ArtifactLabels.getWrapperLabel(contained));
+		// Only shares a prefix with the invalidated URI
+		assertEquals("a2", ArtifactLabels.getWrapperLabel(similar));
+	}
+
+	@Test
+	public void testStoredLabelsAreUsedWithoutResolving() {
+		ArtifactWrapper element = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "/p/a.txt#b", "b",
+				"/p/a.txt");
+		adapter.setArtifactLabel(element, "stored", "fingerprint");
+		assertEquals("stored", ArtifactLabels.getWrapperLabel(element));
+		assertEquals("fingerprint", adapter.getArtifactFingerprint(element));
+
+		// Unresolvable artifacts keep their stored label
+		assertFalse(ArtifactLabels.refreshLabels(container, HANDLER, Arrays.asList("/p/a.txt#b")));
+		assertEquals("stored", ArtifactLabels.getDisplayName(element));
+	}
+
+	@Test
+	public void testStoredLabelsAreOnlyUsedForTheirFingerprint() throws CoreException {
+		IProject project = TestHelper.createSimpleProject("LabelsProject");
+		try {
+			IFile file = TestHelper.createEmptyFileInProject("a.txt", project.getName());
+			String path = file.getFullPath().toString();
+			ArtifactWrapper wrapper = (ArtifactWrapper) adapter.createArtifact(container,
+					IFileHandler.class.getName(), path, "wrapper", path);
+			IFileHandler handler = new IFileHandler();
+			ArtifactLabels.storeLabel(wrapper, handler, file);
+			assertEquals("a.txt", wrapper.getLabel());
+			assertEquals(Long.toHexString(file.getModificationStamp()), wrapper.getFingerprint());
+
+			// The stored label is used as long as the file has not changed
+			wrapper.setLabel("stored");
+			assertEquals("stored", ArtifactLabels.getWrapperLabel(wrapper));
+
+			// A change that was not reported makes the stored label stale
+			file.setContents(new ByteArrayInputStream("changed".getBytes()), true, false,
+					new NullProgressMonitor());
+			assertEquals("a.txt", ArtifactLabels.getWrapperLabel(wrapper));
+
+			ArtifactLabels.storeLabel(wrapper, handler, file);
+			assertEquals("a.txt", wrapper.getLabel());
+			assertEquals(Long.toHexString(file.getModificationStamp()), wrapper.getFingerprint());
+		} finally {
+			project.delete(true, new NullProgressMonitor());
+		}
+	}
+}
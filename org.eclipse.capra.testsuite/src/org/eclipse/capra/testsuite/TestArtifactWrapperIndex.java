@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.generic.tracemodels.ArtifactWrapperIndex;
+import org.eclipse.capra.generic.tracemodels.GenericArtifactMetaModelAdapter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestArtifactWrapperIndex {
+
+	private static final String HANDLER = "org.eclipse.capra.handler.file.FileHandler";
+
+	private GenericArtifactMetaModelAdapter adapter;
+	private ArtifactWrapperContainer container;
+
+	@Before
+	public void init() {
+		adapter = new GenericArtifactMetaModelAdapter();
+		container = (ArtifactWrapperContainer) adapter.createModel();
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		ArtifactWrapper a = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "a.txt", "a", "a.txt");
+		assertSame(a, adapter.createArtifact(container, HANDLER, "a.txt", "a", "a.txt"));
+		assertEquals(1, container.getArtifacts().size());
+		assertNull(adapter.getArtifact(container, "otherHandler", "a.txt"));
+
+		ArtifactWrapperIndex index = ArtifactWrapperIndex.getIndex(container);
+		assertEquals(Arrays.asList(a), index.getArtifacts("a.txt"));
+
+		// URI changed on an existing wrapper
+		a.setUri("b.txt");
+		assertNull(adapter.getArtifact(container, HANDLER, "a.txt"));
+		assertSame(a, adapter.getArtifact(container, HANDLER, "b.txt"));
+		assertTrue(index.getArtifacts("a.txt").isEmpty());
+
+		// Wrapper removed from the container
+		container.getArtifacts().remove(a);
+		assertNull(adapter.getArtifact(container, HANDLER, "b.txt"));
+	}
+
+	@Test
+	public void testLookupByUriPrefix() {
+		ArtifactWrapper pkg = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "=p/src<a", "a", "p/src/a");
+		ArtifactWrapper cls = (ArtifactWrapper) adapter.createArtifact(container, HANDLER, "=p/src<a{A.java", "A",
+				"p/src/a/A.java");
+		adapter.createArtifact(container, "otherHandler", "=p/src<a{B.java", "B", "p/src/a/B.java");
+		adapter.createArtifact(container, HANDLER, "=p/src<b", "b", "p/src/b");
+
+		ArtifactWrapperIndex index = ArtifactWrapperIndex.getIndex(container);
+		assertEquals(Arrays.asList(pkg, cls), index.getArtifactsWithUriPrefix(HANDLER, "=p/src<a"));
+		assertEquals(Arrays.asList(cls), index.getArtifactsWithUriPrefix(HANDLER, "=p/src<a{"));
+		assertTrue(index.getArtifactsWithUriPrefix(HANDLER, "=q").isEmpty());
+
+		cls.setUri("=p/src<b{A.java");
+		assertEquals(Arrays.asList(pkg), index.getArtifactsWithUriPrefix(HANDLER, "=p/src<a"));
+	}
+}
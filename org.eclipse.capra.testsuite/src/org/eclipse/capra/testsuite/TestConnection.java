@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Test;
+
+public class TestConnection {
+
+	@Test
+	public void testConnectionsAreEqualRegardlessOfTargetOrder() {
+		EObject a = EcoreFactory.eINSTANCE.createEClass();
+		EObject b = EcoreFactory.eINSTANCE.createEClass();
+		EObject c = EcoreFactory.eINSTANCE.createEClass();
+		EObject link = EcoreFactory.eINSTANCE.createEReference();
+		EObject otherLink = EcoreFactory.eINSTANCE.createEReference();
+
+		Connection connection = new Connection(a, Arrays.asList(b, c), link);
+		Connection reordered = new Connection(a, Arrays.asList(c, b), link);
+		assertEquals(connection, reordered);
+		assertEquals(connection.hashCode(), reordered.hashCode());
+
+		assertNotEquals(connection, new Connection(a, Arrays.asList(b, c), otherLink));
+		assertNotEquals(connection, new Connection(a, Arrays.asList(b), link));
+		assertNotEquals(connection, new Connection(a, Arrays.asList(b, b), link));
+
+		Set<Connection> connections = new HashSet<>();
+		assertTrue(connections.add(connection));
+		assertFalse(connections.add(reordered));
+		assertTrue(connections.add(new Connection(a, Arrays.asList(b, b), link)));
+	}
+
+	@Test
+	public void testMirroredConnectionsAreEqual() {
+		EObject a = EcoreFactory.eINSTANCE.createEClass();
+		EObject b = EcoreFactory.eINSTANCE.createEClass();
+		EObject c = EcoreFactory.eINSTANCE.createEClass();
+		EObject link = EcoreFactory.eINSTANCE.createEReference();
+
+		// The same link found from either of its ends
+		Connection connection = new Connection(a, Arrays.asList(b), link);
+		Connection mirrored = new Connection(b, Arrays.asList(a), link);
+		assertEquals(connection, mirrored);
+		assertEquals(connection.hashCode(), mirrored.hashCode());
+		assertEquals(new Connection(a, Arrays.asList(b, c), link), new Connection(c, Arrays.asList(b, a), link));
+
+		Set<Connection> connections = new HashSet<>();
+		assertTrue(connections.add(connection));
+		assertFalse(connections.add(mirrored));
+	}
+
+	@Test
+	public void testRepeatedEndsAreCounted() {
+		EObject a = EcoreFactory.eINSTANCE.createEClass();
+		EObject b = EcoreFactory.eINSTANCE.createEClass();
+		EObject c = EcoreFactory.eINSTANCE.createEClass();
+		EObject link = EcoreFactory.eINSTANCE.createEReference();
+
+		// Contain the same elements, but not equally often
+		Connection connection = new Connection(a, Arrays.asList(b, b, c), link);
+		Connection other = new Connection(a, Arrays.asList(b, c, c), link);
+		assertNotEquals(connection, other);
+		assertNotEquals(other, connection);
+		assertEquals(connection, new Connection(b, Arrays.asList(c, a, b), link));
+	}
+}
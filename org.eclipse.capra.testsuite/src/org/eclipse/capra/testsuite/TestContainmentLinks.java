@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.capra.core.handlers.AbstractArtifactHandler;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.ETypedElement;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestContainmentLinks {
+
+	private static final RelationshipFilter ALL = RelationshipFilter.of(Collections.emptyList());
+
+	private EClass node;
+	private EReference children;
+
+	@Before
+	public void init() {
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("tree");
+		ePackage.setNsURI("http://www.eclipse.org/capra/test/tree");
+		node = EcoreFactory.eINSTANCE.createEClass();
+		node.setName("Node");
+		ePackage.getEClassifiers().add(node);
+		children = createContainment("children", ETypedElement.UNBOUNDED_MULTIPLICITY);
+	}
+
+	@Test
+	public void testContainmentLinksFollowChangedClass() {
+		EObject parent = EcoreUtil.create(node);
+		EObject child = EcoreUtil.create(node);
+		getList(parent, children).add(child);
+		assertEquals(Arrays.asList(new Connection(parent, Arrays.asList(child), children)),
+				getContainmentLinks(parent));
+		assertTrue(getContainmentLinks(child).isEmpty());
+
+		// A containment added to the class after its references were cached
+		EReference first = createContainment("first", 1);
+		parent.eSet(first, EcoreUtil.create(node));
+		List<Connection> links = getContainmentLinks(parent);
+		assertEquals(2, links.size());
+		assertTrue(links.contains(new Connection(parent, Arrays.asList((EObject) parent.eGet(first)), first)));
+	}
+
+	@Test
+	public void testCacheIsRemovedWhenFeaturesChange() {
+		EObject parent = EcoreUtil.create(node);
+		getList(parent, children).add(EcoreUtil.create(node));
+		List<Adapter> adapters = new ArrayList<>(node.eAdapters());
+		assertEquals(1, getContainmentLinks(parent).size());
+		List<Adapter> cache = new ArrayList<>(node.eAdapters());
+		cache.removeAll(adapters);
+		assertEquals(1, cache.size());
+
+		// Reused as long as the class does not change
+		getContainmentLinks(parent);
+		assertTrue(node.eAdapters().contains(cache.get(0)));
+		assertEquals(adapters.size() + 1, node.eAdapters().size());
+
+		createContainment("first", 1);
+		assertFalse(node.eAdapters().contains(cache.get(0)));
+	}
+
+	private EReference createContainment(String name, int upperBound) {
+		EReference reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName(name);
+		reference.setEType(node);
+		reference.setContainment(true);
+		reference.setUpperBound(upperBound);
+		node.getEStructuralFeatures().add(reference);
+		return reference;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EList<EObject> getList(EObject element, EReference reference) {
+		return (EList<EObject>) element.eGet(reference);
+	}
+
+	private static List<Connection> getContainmentLinks(EObject element) {
+		List<Connection> links = new ArrayList<>();
+		new ContainmentHandler().addInternalLinks(element, links, new HashSet<>(), ALL);
+		return links;
+	}
+
+	/**
+	 * Only reports the containment links of an element.
+	 */
+	private static class ContainmentHandler extends AbstractArtifactHandler<Object> {
+
+		@Override
+		public void addInternalLinks(EObject investigatedElement, List<Connection> allElements,
+				Set<Connection> duplicationCheck, RelationshipFilter relationshipFilter) {
+			includeContainmentLinks(investigatedElement, allElements, duplicationCheck, relationshipFilter);
+		}
+
+		@Override
+		public EObject createWrapper(Object artifact, EObject artifactModel) {
+			return (EObject) artifact;
+		}
+
+		@Override
+		public Object resolveWrapper(EObject wrapper) {
+			return wrapper;
+		}
+
+		@Override
+		public String getDisplayName(Object artifact) {
+			return artifact.toString();
+		}
+
+		@Override
+		public String generateMarkerMessage(IResourceDelta delta, String wrapperUri) {
+			return null;
+		}
+	}
+}
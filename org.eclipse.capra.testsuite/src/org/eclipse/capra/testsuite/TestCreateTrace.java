@@ -28,8 +28,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelPackage;
+import org.eclipse.capra.core.adapters.TraceDescription;
+import org.eclipse.capra.core.helpers.TraceHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.ui.views.SelectionView;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.managedbuilder.core.BuildException;
@@ -93,6 +97,41 @@ public class TestCreateTrace {
 		assertTrue(thereIsATraceBetween(_A, _B));
 	}
 
+	@Test
+	public void testBatchLinkCreation() throws CoreException, IOException {
+		createSimpleProject("TestProject");
+		IProject testProject = getProject("TestProject");
+		EPackage a = createEcoreModel("modelA");
+		createEClassInEPackage(a, "A");
+		createEClassInEPackage(a, "B");
+		createEClassInEPackage(a, "C");
+		save(testProject, a);
+
+		ResourceSet rs = new ResourceSetImpl();
+		EPackage _a = load(testProject, "modelA.ecore", rs);
+		EClass _A = (EClass) _a.getEClassifier("A");
+		EClass _B = (EClass) _a.getEClassifier("B");
+		EClass _C = (EClass) _a.getEClassifier("C");
+
+		// Create two traces sharing an element in one step
+		EClass relatedTo = GenericTraceMetaModelPackage.eINSTANCE.getRelatedTo();
+		assertTrue(TraceHelper.createAndSaveTraces(
+				Arrays.asList(new TraceDescription<>(relatedTo, Arrays.asList(_A, _B)),
+						new TraceDescription<>(relatedTo, Arrays.asList(_B, _C)))));
+		TraceModelSession.awaitSaved();
+
+		assertTrue(thereIsATraceBetween(_A, _B));
+		assertTrue(thereIsATraceBetween(_B, _C));
+		assertFalse(thereIsATraceBetween(_A, _C));
+
+		// Traces left with fewer than two artifacts are not created
+		assertFalse(TraceHelper.createAndSaveTraces(
+				Arrays.asList(new TraceDescription<>(relatedTo, Arrays.asList(_A, "no handler")),
+						new TraceDescription<>(relatedTo, Arrays.asList(_C)))));
+		TraceModelSession.awaitSaved();
+		assertFalse(thereIsATraceBetween(_A, _C));
+	}
+
 	@Test
 	public void testLinkCreationJavaEltToEClass() throws CoreException, IOException {
 		// Create a project
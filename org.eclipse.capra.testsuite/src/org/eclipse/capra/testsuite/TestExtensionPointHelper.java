@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers | University of Gothenburg and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.testsuite.extension.UiTransferExtensionDummy;
+import org.eclipse.core.internal.registry.ExtensionRegistry;
+import org.eclipse.core.runtime.ContributorFactoryOSGi;
+import org.eclipse.core.runtime.IContributor;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.Platform;
+import org.junit.Test;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Checks that the executable extensions are instantiated once and discarded
+ * when the extension registry changes.
+ */
+@SuppressWarnings("restriction")
+public class TestExtensionPointHelper {
+
+	private static final String TRANSFER_EXTENSION_POINT_ID = "org.eclipse.capra.ui.transfers";
+	private static final String DYNAMIC_EXTENSION_ID = "org.eclipse.capra.testsuite.dynamicTransfer";
+	private static final String EMF_HANDLER_ID = "org.eclipse.capra.handler.emf.EMFHandler";
+	private static final long REGISTRY_EVENT_TIMEOUT = 10000;
+
+	@Test
+	public void testExtensionsAreInstantiatedOnce() {
+		List<Object> transfers = ExtensionPointHelper.getExtensions(TRANSFER_EXTENSION_POINT_ID, "class");
+		assertSame(transfers, ExtensionPointHelper.getExtensions(TRANSFER_EXTENSION_POINT_ID, "class"));
+
+		IArtifactHandler<?> handler = ExtensionPointHelper.getArtifactHandler(EMF_HANDLER_ID).get();
+		assertSame(handler, ExtensionPointHelper.getArtifactHandler(EMF_HANDLER_ID).get());
+	}
+
+	@Test
+	public void testCacheIsDiscardedWhenRegistryChanges() throws InterruptedException {
+		List<Object> transfers = ExtensionPointHelper.getExtensions(TRANSFER_EXTENSION_POINT_ID, "class");
+		IArtifactHandler<?> handler = ExtensionPointHelper.getArtifactHandler(EMF_HANDLER_ID).get();
+
+		IExtensionRegistry registry = Platform.getExtensionRegistry();
+		Object token = ((ExtensionRegistry) registry).getTemporaryUserToken();
+		IContributor contributor = ContributorFactoryOSGi.createContributor(FrameworkUtil.getBundle(getClass()));
+		String contribution = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plugin>"
+				+ "<extension id=\"dynamicTransfer\" point=\"" + TRANSFER_EXTENSION_POINT_ID + "\">"
+				+ "<transfer class=\"" + UiTransferExtensionDummy.class.getName() + "\"/></extension></plugin>";
+
+		long generation = ExtensionPointHelper.getRegistryGeneration();
+		assertTrue(registry.addContribution(new ByteArrayInputStream(contribution.getBytes(StandardCharsets.UTF_8)),
+				contributor, false, null, null, token));
+		try {
+			awaitRegistryChange(generation);
+			List<Object> changedTransfers = ExtensionPointHelper.getExtensions(TRANSFER_EXTENSION_POINT_ID,
+					"class");
+			assertEquals(transfers.size() + 1, changedTransfers.size());
+			assertNotSame(transfers.get(0), changedTransfers.get(0));
+			// Extensions of other extension points are kept
+			assertSame(handler, ExtensionPointHelper.getArtifactHandler(EMF_HANDLER_ID).get());
+		} finally {
+			generation = ExtensionPointHelper.getRegistryGeneration();
+			IExtension extension = registry.getExtension(TRANSFER_EXTENSION_POINT_ID, DYNAMIC_EXTENSION_ID);
+			registry.removeExtension(extension, token);
+			awaitRegistryChange(generation);
+		}
+		assertEquals(transfers.size(),
+				ExtensionPointHelper.getExtensions(TRANSFER_EXTENSION_POINT_ID, "class").size());
+	}
+
+	/**
+	 * Waits for the registry listener of {@link ExtensionPointHelper}, which
+	 * is notified asynchronously.
+	 */
+	private static void awaitRegistryChange(long generation) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + REGISTRY_EVENT_TIMEOUT;
+		while (ExtensionPointHelper.getRegistryGeneration() == generation) {
+			assertTrue("Registry change was not reported", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+}
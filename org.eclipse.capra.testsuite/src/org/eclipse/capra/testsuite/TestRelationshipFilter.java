@@ -0,0 +1,48 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.capra.core.adapters.RelationshipFilter;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Test;
+
+public class TestRelationshipFilter {
+
+	@Test
+	public void testEmptySelectionAcceptsAll() {
+		RelationshipFilter filter = RelationshipFilter.of(Collections.emptyList());
+		assertTrue(filter.acceptsAll());
+		assertTrue(filter.accepts(EcorePackage.Literals.EREFERENCE));
+		assertTrue(filter.accepts(EcoreFactory.eINSTANCE.createEAttribute()));
+		assertTrue(filter.acceptsAnyOf(EcoreFactory.eINSTANCE.createEPackage()));
+	}
+
+	@Test
+	public void testSelectionAcceptsSelectedTypesOnly() {
+		RelationshipFilter filter = RelationshipFilter.of(Arrays.asList("EReference", "Unknown"));
+		assertFalse(filter.acceptsAll());
+		assertTrue(filter.accepts(EcoreFactory.eINSTANCE.createEReference()));
+		assertFalse(filter.accepts(EcoreFactory.eINSTANCE.createEAttribute()));
+		assertTrue(filter.acceptsAnyOf(EcorePackage.eINSTANCE));
+
+		EPackage otherPackage = EcoreFactory.eINSTANCE.createEPackage();
+		otherPackage.getEClassifiers().add(EcoreFactory.eINSTANCE.createEClass());
+		assertFalse(filter.acceptsAnyOf(otherPackage));
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.eclipse.capra.testsuite.RelationshipIndexTestHelper.assertIndexMatchesModelWalk;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.capra.core.helpers.RelationshipIndex;
+import org.eclipse.capra.core.helpers.RelationshipIndex.RelationshipExtractor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRelationshipIndex {
+
+	private EPackage model;
+	private EClass a;
+	private EClass b;
+	private EClass c;
+	private EReference reference;
+
+	@Before
+	public void createModel() {
+		model = EcoreFactory.eINSTANCE.createEPackage();
+		model.setName("model");
+		a = createClass("A");
+		b = createClass("B");
+		c = createClass("C");
+		b.getESuperTypes().add(a);
+		reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName("reference");
+		reference.setEType(c);
+		a.getEStructuralFeatures().add(reference);
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		RelationshipIndex index = RelationshipIndex.getIndex(a, new SuperTypes());
+		assertEquals(Arrays.asList(b), index.getRelationships(a));
+		assertTrue(index.getRelationships(c).isEmpty());
+		assertIndexMatchesModelWalk(model, new SuperTypes());
+
+		// Changed end of a relationship
+		c.getESuperTypes().add(b);
+		assertEquals(Arrays.asList(b, c), index.getRelationships(b));
+		assertEquals(Arrays.asList(c), index.getRelationshipsBetween(b, c));
+		assertIndexMatchesModelWalk(model, new SuperTypes());
+
+		// Removed relationship
+		EcoreUtil.delete(b);
+		assertTrue(index.getRelationships(a).isEmpty());
+		assertIndexMatchesModelWalk(model, new SuperTypes());
+	}
+
+	@Test
+	public void testIndexesArePerModelAndExtractor() {
+		RelationshipIndex index = RelationshipIndex.getIndex(a, new SuperTypes());
+		assertSame(index, RelationshipIndex.getIndex(reference, new SuperTypes()));
+
+		RelationshipIndex types = RelationshipIndex.getIndex(a, new ReferenceTypes());
+		assertNotSame(index, types);
+		assertEquals(Arrays.asList(reference), types.getRelationships(c));
+		assertTrue(index.getRelationships(c).isEmpty());
+
+		EPackage other = EcoreFactory.eINSTANCE.createEPackage();
+		assertNotSame(index, RelationshipIndex.getIndex(other, new SuperTypes()));
+	}
+
+	@Test
+	public void testIndexIsRemovedWhenResourceIsUnloaded() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = new XMIResourceImpl(URI.createURI("memory:/model.ecore"));
+		resource.getContents().add(model);
+		resourceSet.getResources().add(resource);
+
+		RelationshipIndex index = RelationshipIndex.getIndex(a, new SuperTypes());
+		assertEquals(Arrays.asList(b), index.getRelationships(a));
+		assertTrue(resource.eAdapters().contains(index));
+		assertTrue(a.eAdapters().contains(index));
+
+		resource.unload();
+		assertFalse(resource.eAdapters().contains(index));
+		assertFalse(model.eAdapters().contains(index));
+		assertFalse(a.eAdapters().contains(index));
+	}
+
+	private EClass createClass(String name) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		model.getEClassifiers().add(eClass);
+		return eClass;
+	}
+
+	/**
+	 * Treats classes with super types as relationships between the class and
+	 * its super types.
+	 */
+	private static class SuperTypes implements RelationshipExtractor {
+
+		@Override
+		public List<? extends EObject> getRelatedElements(EObject content) {
+			if (content instanceof EClass && !((EClass) content).getESuperTypes().isEmpty()) {
+				List<EObject> elements = new ArrayList<>();
+				elements.add(content);
+				elements.addAll(((EClass) content).getESuperTypes());
+				return elements;
+			}
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Relates references to their types.
+	 */
+	private static class ReferenceTypes implements RelationshipExtractor {
+
+		@Override
+		public List<? extends EObject> getRelatedElements(EObject content) {
+			if (content instanceof EReference) {
+				return Collections.singletonList(((EReference) content).getEType());
+			}
+			return Collections.emptyList();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.GenericArtifactMetaModel.GenericArtifactMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.generic.tracemodels.GenericMetaModelAdapter;
+import org.eclipse.capra.generic.tracemodels.TraceModelIndex;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTraceModelIndex {
+
+	private GenericTraceModel traceModel;
+	private EClass a;
+	private EClass b;
+	private EClass c;
+
+	@Before
+	public void init() {
+		traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+		a = createEClass("A");
+		b = createEClass("B");
+		c = createEClass("C");
+	}
+
+	@Test
+	public void testIndexFollowsModelChanges() {
+		RelatedTo ab = createTrace(a, b);
+		TraceModelIndex index = TraceModelIndex.getIndex(traceModel);
+		assertEquals(Arrays.asList(ab), index.getTraces(a));
+		assertTrue(index.getTraces(c).isEmpty());
+
+		// Links added after the index has been built
+		RelatedTo bc = createTrace(b, c);
+		assertEquals(Arrays.asList(ab, bc), index.getTraces(b));
+		assertEquals(Arrays.asList(bc), index.getTraces(c));
+
+		// Items changed on an existing link
+		ab.getItem().add(c);
+		assertEquals(Arrays.asList(bc, ab), index.getTraces(c));
+		ab.getItem().remove(a);
+		assertTrue(index.getTraces(a).isEmpty());
+
+		// Links removed from the model
+		traceModel.getTraces().remove(bc);
+		assertEquals(Arrays.asList(ab), index.getTraces(b));
+		assertEquals(Arrays.asList(ab), index.getTraces(c));
+	}
+
+	@Test
+	public void testTransitiveConnectionsFollowModelChanges() {
+		GenericMetaModelAdapter adapter = new GenericMetaModelAdapter();
+		RelatedTo ab = createTrace(a, b);
+		assertEquals(Arrays.asList(ab), links(adapter.getTransitivelyConnectedElements(a, traceModel, 0)));
+
+		// Components merged by a new link
+		RelatedTo bc = createTrace(b, c);
+		assertEquals(Arrays.asList(ab, bc), links(adapter.getTransitivelyConnectedElements(a, traceModel, 0)));
+		assertEquals(Arrays.asList(bc, ab), links(adapter.getTransitivelyConnectedElements(c, traceModel, 0)));
+
+		// Component split by removing a link
+		traceModel.getTraces().remove(ab);
+		assertTrue(adapter.getTransitivelyConnectedElements(a, traceModel, 0).isEmpty());
+		assertEquals(Arrays.asList(bc), links(adapter.getTransitivelyConnectedElements(c, traceModel, 0)));
+	}
+
+	@Test
+	public void testProxiesAreMatchedWithoutResolving() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.createResource(URI.createURI("platform:/resource/p/model.ecore"));
+		resource.getContents().add(b);
+		EClass proxy = EcoreFactory.eINSTANCE.createEClass();
+		((InternalEObject) proxy).eSetProxyURI(EcoreUtil.getURI(b));
+		RelatedTo ab = createTrace(a, proxy);
+
+		TraceModelIndex index = TraceModelIndex.getIndex(traceModel);
+		assertEquals(Arrays.asList(ab), index.getTraces(b));
+		assertTrue(((InternalEList<EObject>) ab.getItem()).basicGet(1).eIsProxy());
+
+		// Links created later refer to the element itself
+		RelatedTo bc = createTrace(b, c);
+		assertEquals(Arrays.asList(ab, bc), index.getTraces(b));
+		assertTrue(new GenericMetaModelAdapter().isThereATraceBetween(a, b, traceModel).startsWith("X"));
+		assertTrue(((InternalEList<EObject>) ab.getItem()).basicGet(1).eIsProxy());
+	}
+
+	@Test
+	public void testDeletingTracesRemovesUnusedWrappers() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.createResource(URI.createURI("platform:/resource/p/traces.xmi")).getContents().add(traceModel);
+		ArtifactWrapperContainer artifacts = GenericArtifactMetaModelFactory.eINSTANCE
+				.createArtifactWrapperContainer();
+		resourceSet.createResource(URI.createURI("platform:/resource/p/artifacts.xmi")).getContents()
+				.add(artifacts);
+		ArtifactWrapper x = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+		ArtifactWrapper y = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+		artifacts.getArtifacts().addAll(Arrays.asList(x, y));
+		ArtifactWrapper proxy = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+		((InternalEObject) proxy).eSetProxyURI(EcoreUtil.getURI(y));
+		RelatedTo ax = createTrace(a, x);
+		RelatedTo bx = createTrace(b, x);
+		RelatedTo cy = createTrace(c, proxy);
+
+		// Wrappers still used by other traces are kept
+		GenericMetaModelAdapter adapter = new GenericMetaModelAdapter();
+		adapter.deleteTrace(a, x, traceModel);
+		assertEquals(Arrays.asList(bx, cy), traceModel.getTraces());
+		assertEquals(Arrays.asList(x, y), artifacts.getArtifacts());
+
+		// The proxy refers to the wrapper by position, which changes
+		adapter.deleteTraces(Arrays.asList(ax, bx), traceModel);
+		assertEquals(Arrays.asList(cy), traceModel.getTraces());
+		assertEquals(Arrays.asList(y), artifacts.getArtifacts());
+		assertSame(y, cy.getItem().get(1));
+	}
+
+	private static List<EObject> links(List<Connection> connections) {
+		List<EObject> links = new ArrayList<>();
+		for (Connection connection : connections) {
+			links.add(connection.getTlink());
+		}
+		return links;
+	}
+
+	private RelatedTo createTrace(EObject... items) {
+		RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+		trace.getItem().addAll(Arrays.asList(items));
+		traceModel.getTraces().add(trace);
+		return trace;
+	}
+
+	private static EClass createEClass(String name) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		return eClass;
+	}
+}
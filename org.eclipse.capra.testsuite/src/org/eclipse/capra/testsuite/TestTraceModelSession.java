@@ -0,0 +1,185 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.eclipse.capra.testsuite.TestHelper.clearWorkspace;
+import static org.eclipse.capra.testsuite.TestHelper.createEClassInEPackage;
+import static org.eclipse.capra.testsuite.TestHelper.createEcoreModel;
+import static org.eclipse.capra.testsuite.TestHelper.createSimpleProject;
+import static org.eclipse.capra.testsuite.TestHelper.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.GenericArtifactMetaModel.GenericArtifactMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
+import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTraceModelSession {
+
+	@Before
+	public void init() throws CoreException {
+		clearWorkspace();
+		TraceModelSession.invalidate();
+	}
+
+	@Test
+	public void testSessionIsReloadedOnExternalChangesOnly() {
+		TraceModelSession.write((traceModel, artifactModel) -> {
+			addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "a", "b");
+			return true;
+		});
+
+		// Saving through the session keeps the loaded copy
+		EObject loaded = TraceModelSession.read((traceModel, artifactModel) -> traceModel);
+		TraceModelSession.write((traceModel, artifactModel) -> {
+			addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "b", "c");
+			return true;
+		});
+		assertSame(loaded, TraceModelSession.read((traceModel, artifactModel) -> traceModel));
+
+		// Saving a separately loaded copy replaces it
+		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+		ResourceSet resourceSet = new ResourceSetImpl();
+		GenericTraceModel external = (GenericTraceModel) persistenceAdapter.getTraceModel(resourceSet);
+		ArtifactWrapperContainer externalArtifacts = (ArtifactWrapperContainer) persistenceAdapter
+				.getArtifactWrappers(resourceSet);
+		assertEquals(2, external.getTraces().size());
+		addTrace(external, externalArtifacts, "c", "d");
+		persistenceAdapter.saveTracesAndArtifacts(external, externalArtifacts);
+
+		EObject reloaded = TraceModelSession.read((traceModel, artifactModel) -> traceModel);
+		assertNotSame(loaded, reloaded);
+		assertEquals(3, ((GenericTraceModel) reloaded).getTraces().size());
+	}
+
+	@Test
+	public void testUnsavedAdditionsAreReverted() {
+		TraceModelSession.write((traceModel, artifactModel) -> {
+			addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "a", "b");
+			return true;
+		});
+
+		int wrappers = TraceModelSession.preview((traceModel, artifactModel) -> {
+			addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "c");
+			return ((ArtifactWrapperContainer) artifactModel).getArtifacts().size();
+		});
+		assertEquals(3, wrappers);
+
+		assertFalse(TraceModelSession.write((traceModel, artifactModel) -> {
+			addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "d");
+			return false;
+		}));
+
+		assertTrue(TraceModelSession.read((traceModel, artifactModel) -> {
+			return ((GenericTraceModel) traceModel).getTraces().size() == 1
+					&& ((ArtifactWrapperContainer) artifactModel).getArtifacts().size() == 2;
+		}));
+	}
+
+	@Test
+	public void testBackgroundWritesAreSavedTogether() {
+		List<Integer> saved = new ArrayList<>();
+		for (String uri : Arrays.asList("b", "c")) {
+			assertTrue(TraceModelSession.writeInBackground((traceModel, artifactModel) -> {
+				addTrace((GenericTraceModel) traceModel, (ArtifactWrapperContainer) artifactModel, "a", uri);
+				return true;
+			}, (traceModel, artifactModel) -> {
+				int size = ((GenericTraceModel) traceModel).getTraces().size();
+				return () -> saved.add(size);
+			}));
+		}
+
+		// Queries see the modifications before they have been saved
+		assertEquals(2, (int) TraceModelSession
+				.read((traceModel, artifactModel) -> ((GenericTraceModel) traceModel).getTraces().size()));
+
+		TraceModelSession.awaitSaved();
+		assertEquals(Arrays.asList(2, 2), saved);
+		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+		GenericTraceModel persisted = (GenericTraceModel) persistenceAdapter.getTraceModel(new ResourceSetImpl());
+		assertEquals(2, persisted.getTraces().size());
+	}
+
+	@Test
+	public void testProxiesAreResolvedBeforeQueries() throws CoreException, IOException {
+		IProject project = createSimpleProject("SessionProject");
+		EPackage first = createEcoreModel("first");
+		createEClassInEPackage(first, "A");
+		save(project, first);
+		EPackage second = createEcoreModel("second");
+		createEClassInEPackage(second, "B");
+		((EClass) second.getEClassifiers().get(0)).getESuperTypes().add((EClass) first.getEClassifiers().get(0));
+		save(project, second);
+
+		TraceModelSession.write((traceModel, artifactModel) -> {
+			RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+			trace.getItem().add(TraceModelSession.resolve(second.getEClassifiers().get(0)));
+			((GenericTraceModel) traceModel).getTraces().add(trace);
+			return true;
+		});
+		TraceModelSession.invalidate();
+
+		// Neither the trace links nor the traced models refer to proxies
+		assertTrue(TraceModelSession.read((traceModel, artifactModel) -> {
+			RelatedTo trace = ((GenericTraceModel) traceModel).getTraces().get(0);
+			EObject item = getBasicList(trace.getItem()).get(0);
+			return !item.eIsProxy() && getBasicList(((EClass) item).getESuperTypes()).stream()
+					.noneMatch(EObject::eIsProxy);
+		}));
+	}
+
+	private static <T extends EObject> List<T> getBasicList(List<T> list) {
+		return ((InternalEList<T>) list).basicList();
+	}
+
+	private static void addTrace(GenericTraceModel traceModel, ArtifactWrapperContainer artifactModel,
+			String... uris) {
+		RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+		for (String uri : uris) {
+			ArtifactWrapper wrapper = artifactModel.getArtifacts().stream().filter(a -> a.getUri().equals(uri))
+					.findFirst().orElse(null);
+			if (wrapper == null) {
+				wrapper = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+				wrapper.setUri(uri);
+				wrapper.setName(uri);
+				wrapper.setPath(uri);
+				wrapper.setArtifactHandler("handler");
+				artifactModel.getArtifacts().add(wrapper);
+			}
+			trace.getItem().add(wrapper);
+		}
+		traceModel.getTraces().add(trace);
+	}
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.eclipse.capra.testsuite.TestHelper.clearWorkspace;
+import static org.eclipse.capra.testsuite.TestHelper.getProject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.GenericArtifactMetaModel.GenericArtifactMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
+import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.generic.persistance.PersistencePreferences;
+import org.eclipse.capra.generic.tracemodels.TraceModelIndex;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTracePersistence {
+
+	private static final String PROJECT_NAME = "__WorkspaceTraceModels";
+
+	private TracePersistenceAdapter persistenceAdapter;
+
+	@Before
+	public void init() throws CoreException {
+		clearWorkspace();
+		persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+	}
+
+	@Test
+	public void testAdditionsAreJournaled() throws CoreException {
+		GenericTraceModel traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+		ArtifactWrapperContainer artifactModel = GenericArtifactMetaModelFactory.eINSTANCE
+				.createArtifactWrapperContainer();
+		addTrace(traceModel, artifactModel, "a", "b");
+		persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+
+		IProject project = getProject(PROJECT_NAME);
+		IFile traceFile = project.getFile("traceModel.xmi");
+		long snapshotStamp = traceFile.getModificationStamp();
+		assertFalse(project.getFile("traceModel.xmi.journal").exists());
+
+		// Adding a trace to the loaded model only writes the journal
+		ResourceSet resourceSet = new ResourceSetImpl();
+		traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(resourceSet);
+		artifactModel = (ArtifactWrapperContainer) persistenceAdapter.getArtifactWrappers(resourceSet);
+		addTrace(traceModel, artifactModel, "b", "c");
+		persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+		assertTrue(project.getFile("traceModel.xmi.journal").exists());
+		assertEquals(snapshotStamp, traceFile.getModificationStamp());
+
+		// The journal is replayed on loading, also if only the time stamp of
+		// the snapshot has changed
+		traceFile.setLocalTimeStamp(traceFile.getLocalTimeStamp() + 60000);
+		resourceSet = new ResourceSetImpl();
+		traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(resourceSet);
+		assertEquals(2, traceModel.getTraces().size());
+		ArtifactWrapper c = (ArtifactWrapper) traceModel.getTraces().get(1).getItem().get(1);
+		assertEquals("c", c.getUri());
+
+		// Other changes are written as a new snapshot
+		artifactModel = (ArtifactWrapperContainer) persistenceAdapter.getArtifactWrappers(resourceSet);
+		traceModel.getTraces().remove(0);
+		persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+		assertFalse(project.getFile("traceModel.xmi.journal").exists());
+		traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(new ResourceSetImpl());
+		assertEquals(1, traceModel.getTraces().size());
+	}
+
+	@Test
+	public void testShardsAreLoadedPerProject() {
+		PersistencePreferences.getPreferences().putBoolean(PersistencePreferences.SHARD_TRACE_MODEL, true);
+		try {
+			GenericTraceModel traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+			ArtifactWrapperContainer artifactModel = GenericArtifactMetaModelFactory.eINSTANCE
+					.createArtifactWrapperContainer();
+			ResourceSet resourceSet = new ResourceSetImpl();
+			EClass a = createEClass(resourceSet, "p1", "A");
+			EClass b = createEClass(resourceSet, "p1", "B");
+			EClass c = createEClass(resourceSet, "p2", "C");
+			addTrace(traceModel, a, b);
+			addTrace(traceModel, b, c);
+			persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+
+			IFolder shards = getProject(PROJECT_NAME).getFolder("traceModel.xmi.shards");
+			assertTrue(shards.getFile("p1.xmi").exists());
+			assertTrue(shards.getFile("p1+p2.xmi").exists());
+
+			// Looking up the links of an element only loads its shards
+			resourceSet = new ResourceSetImpl();
+			c = createEClass(resourceSet, "p2", "C");
+			traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(resourceSet);
+			assertEquals(1, TraceModelIndex.getIndex(traceModel).getTraces(c).size());
+			assertNull(resourceSet.getResource(getShardURI("p1"), false));
+			assertTrue(resourceSet.getResource(getShardURI("p1+p2"), false).isLoaded());
+
+			// Disabling sharding stores all links in the trace model again
+			PersistencePreferences.getPreferences().putBoolean(PersistencePreferences.SHARD_TRACE_MODEL, false);
+			artifactModel = (ArtifactWrapperContainer) persistenceAdapter.getArtifactWrappers(resourceSet);
+			persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+			assertFalse(shards.exists());
+			traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(new ResourceSetImpl());
+			assertEquals(2, traceModel.getTraces().size());
+			assertFalse(traceModel.getTraces().get(0).eIsProxy());
+		} finally {
+			PersistencePreferences.getPreferences().remove(PersistencePreferences.SHARD_TRACE_MODEL);
+		}
+	}
+
+	@Test
+	public void testLinksOfWrappersAreShardedByWrappedProject() {
+		PersistencePreferences.getPreferences().putBoolean(PersistencePreferences.SHARD_TRACE_MODEL, true);
+		try {
+			GenericTraceModel traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+			ArtifactWrapperContainer artifactModel = GenericArtifactMetaModelFactory.eINSTANCE
+					.createArtifactWrapperContainer();
+			addTrace(traceModel, artifactModel, "/p1/A.java", "/p1/B.java");
+			addTrace(traceModel, artifactModel, "/p1/B.java", "/p2/C.java");
+			persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
+
+			IFolder shards = getProject(PROJECT_NAME).getFolder("traceModel.xmi.shards");
+			assertTrue(shards.getFile("p1.xmi").exists());
+			assertTrue(shards.getFile("p1+p2.xmi").exists());
+			assertFalse(shards.getFile(PROJECT_NAME + ".xmi").exists());
+
+			// Looking up the links of a wrapper only loads the shards of the
+			// wrapped project
+			ResourceSet resourceSet = new ResourceSetImpl();
+			traceModel = (GenericTraceModel) persistenceAdapter.getTraceModel(resourceSet);
+			artifactModel = (ArtifactWrapperContainer) persistenceAdapter.getArtifactWrappers(resourceSet);
+			ArtifactWrapper c = artifactModel.getArtifacts().stream().filter(w -> w.getUri().equals("/p2/C.java"))
+					.findFirst().get();
+			assertEquals(1, TraceModelIndex.getIndex(traceModel).getTraces(c).size());
+			assertNull(resourceSet.getResource(getShardURI("p1"), false));
+			assertTrue(resourceSet.getResource(getShardURI("p1+p2"), false).isLoaded());
+		} finally {
+			PersistencePreferences.getPreferences().remove(PersistencePreferences.SHARD_TRACE_MODEL);
+		}
+	}
+
+	private static URI getShardURI(String name) {
+		return URI.createPlatformResourceURI(PROJECT_NAME + "/traceModel.xmi.shards/" + name + ".xmi", true);
+	}
+
+	private static EClass createEClass(ResourceSet resourceSet, String projectName, String name) {
+		URI uri = URI.createPlatformResourceURI(projectName + "/" + name + ".ecore", true);
+		Resource resource = resourceSet.createResource(uri);
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		resource.getContents().add(eClass);
+		return eClass;
+	}
+
+	private static void addTrace(GenericTraceModel traceModel, EClass... items) {
+		RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+		for (EClass item : items) {
+			trace.getItem().add(item);
+		}
+		traceModel.getTraces().add(trace);
+	}
+
+	private static void addTrace(GenericTraceModel traceModel, ArtifactWrapperContainer artifactModel,
+			String... uris) {
+		RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+		for (String uri : uris) {
+			ArtifactWrapper wrapper = artifactModel.getArtifacts().stream().filter(a -> a.getUri().equals(uri))
+					.findFirst().orElse(null);
+			if (wrapper == null) {
+				wrapper = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+				wrapper.setUri(uri);
+				wrapper.setName(uri);
+				wrapper.setPath(uri);
+				wrapper.setArtifactHandler("handler");
+				artifactModel.getArtifacts().add(wrapper);
+			}
+			trace.getItem().add(wrapper);
+		}
+		traceModel.getTraces().add(trace);
+	}
+}
@@ -17,9 +17,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelPackage;
+import org.eclipse.capra.core.adapters.TraceMatrix;
+import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
 import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
 import org.eclipse.capra.ui.plantuml.DiagramTextProviderHandler;
@@ -159,6 +162,20 @@ public class TestTraceabiltyMatrix {
 
 		String plantUMLTextForSelectedClasses = provider.getDiagramText(selectedClasses);
 		assertTrue(plantUMLTextForSelectedClasses.equals(EXPECTED_TEXT_FOR_SELECTED_CLASSES));
+
+		// The bulk matrix has to agree with the checks for individual pairs
+		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
+		TraceMetaModelAdapter traceAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
+		EObject traceModel = persistenceAdapter.getTraceModel(rs);
+		List<EObject> classes = Arrays.asList(_A, _B, _AA, _BB);
+		TraceMatrix matrix = traceAdapter.getTraceMatrix(classes, classes, traceModel);
+		for (EObject first : classes) {
+			for (EObject second : classes) {
+				assertEquals(traceAdapter.isThereATraceBetween(first, second, traceModel), matrix.get(first, second));
+			}
+		}
+		assertEquals("X", matrix.get(_A, _B));
+		assertEquals("", matrix.get(_A, _BB));
 	}
 
 	private void removeTraceModel(ResourceSet rs) {
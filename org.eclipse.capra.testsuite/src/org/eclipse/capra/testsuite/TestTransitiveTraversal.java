@@ -0,0 +1,79 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.core.adapters.Connection;
+import org.eclipse.capra.generic.tracemodels.GenericMetaModelAdapter;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTransitiveTraversal {
+
+	private static final int CHAIN_LENGTH = 10000;
+
+	private GenericTraceModel traceModel;
+	private GenericMetaModelAdapter adapter;
+	private List<EClass> chain;
+	private List<RelatedTo> traces;
+
+	@Before
+	public void init() {
+		traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+		adapter = new GenericMetaModelAdapter();
+		chain = new ArrayList<>();
+		traces = new ArrayList<>();
+		for (int i = 0; i < CHAIN_LENGTH; i++) {
+			EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+			eClass.setName("C" + i);
+			chain.add(eClass);
+			if (i > 0) {
+				RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+				trace.getItem().addAll(Arrays.asList(chain.get(i - 1), eClass));
+				traceModel.getTraces().add(trace);
+				traces.add(trace);
+			}
+		}
+	}
+
+	@Test
+	public void testUnlimitedDepthOnLongChain() {
+		List<Connection> connections = adapter.getTransitivelyConnectedElements(chain.get(0), traceModel, 0);
+		assertEquals(traces, links(connections));
+	}
+
+	@Test
+	public void testLimitedDepth() {
+		List<Connection> connections = adapter.getTransitivelyConnectedElements(chain.get(0), traceModel, 1);
+		assertEquals(traces.subList(0, 4), links(connections));
+		connections = adapter.getTransitivelyConnectedElements(chain.get(0), traceModel, Collections.emptyList(), 1);
+		assertEquals(traces.subList(0, 4), links(connections));
+	}
+
+	private static List<Object> links(List<Connection> connections) {
+		List<Object> links = new ArrayList<>();
+		for (Connection connection : connections) {
+			links.add(connection.getTlink());
+		}
+		return links;
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *  Copyright (c) 2016 Chalmers | University of Gothenburg, rt-labs and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *   Contributors:
+ *      Chalmers|Gothenburg University and rt-labs - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.capra.testsuite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
+import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
+import org.eclipse.capra.GenericArtifactMetaModel.GenericArtifactMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
+import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
+import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
+import org.eclipse.capra.generic.persistance.TraceModelFormat;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares load and save times of the trace model formats. Not part of the
+ * regular test run since it takes several minutes and needs a large heap.
+ */
+@Ignore("Benchmark, run manually")
+public class TracePersistenceBenchmark {
+
+	private static final int[] SIZES = { 10000, 100000, 1000000 };
+
+	@Test
+	public void compareFormats() throws IOException {
+		File directory = new File(System.getProperty("java.io.tmpdir"), "capraBenchmark");
+		directory.mkdirs();
+		for (int size : SIZES) {
+			for (TraceModelFormat format : TraceModelFormat.values()) {
+				measure(directory, format, size);
+			}
+		}
+	}
+
+	private static void measure(File directory, TraceModelFormat format, int size) throws IOException {
+		URI traceUri = URI.createFileURI(new File(directory, "traceModel." + format.getFileExtension()).getPath());
+		URI artifactUri = URI
+				.createFileURI(new File(directory, "artifactWrappers." + format.getFileExtension()).getPath());
+
+		ResourceSet resourceSet = createResourceSet(format);
+		Resource traceResource = resourceSet.createResource(traceUri);
+		Resource artifactResource = resourceSet.createResource(artifactUri);
+		traceResource.getContents().add(createTraceModel(size, artifactResource));
+
+		long start = System.nanoTime();
+		artifactResource.save(format.getSaveOptions());
+		traceResource.save(format.getSaveOptions());
+		long saveTime = System.nanoTime() - start;
+
+		resourceSet = createResourceSet(format);
+		start = System.nanoTime();
+		Resource loaded = resourceSet.createResource(traceUri);
+		loaded.load(format.getLoadOptions(resourceSet));
+		resourceSet.createResource(artifactUri).load(format.getLoadOptions(resourceSet));
+		EcoreUtil.resolveAll(loaded);
+		long loadTime = System.nanoTime() - start;
+
+		assertEquals(size, ((GenericTraceModel) loaded.getContents().get(0)).getTraces().size());
+		System.out.println(String.format("%s, %d links: save %d ms, load %d ms, %d kB", format, size,
+				saveTime / 1000000, loadTime / 1000000,
+				(new File(traceUri.toFileString()).length() + new File(artifactUri.toFileString()).length()) / 1024));
+	}
+
+	private static ResourceSet createResourceSet(TraceModelFormat format) {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(format.getFileExtension(),
+				format == TraceModelFormat.XMI ? (Resource.Factory) XMIResourceImpl::new
+						: (Resource.Factory) BinaryResourceImpl::new);
+		return resourceSet;
+	}
+
+	private static GenericTraceModel createTraceModel(int size, Resource artifactResource) {
+		ArtifactWrapperContainer container = GenericArtifactMetaModelFactory.eINSTANCE
+				.createArtifactWrapperContainer();
+		artifactResource.getContents().add(container);
+		GenericTraceModel traceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
+		ArtifactWrapper previous = createWrapper(container, 0);
+		for (int i = 1; i <= size; i++) {
+			ArtifactWrapper next = createWrapper(container, i);
+			RelatedTo trace = GenericTraceMetaModelFactory.eINSTANCE.createRelatedTo();
+			trace.getItem().add(previous);
+			trace.getItem().add(next);
+			traceModel.getTraces().add(trace);
+			previous = next;
+		}
+		return traceModel;
+	}
+
+	private static ArtifactWrapper createWrapper(ArtifactWrapperContainer container, int i) {
+		ArtifactWrapper wrapper = GenericArtifactMetaModelFactory.eINSTANCE.createArtifactWrapper();
+		wrapper.setName("artifact" + i);
+		wrapper.setUri("/project/artifact" + i);
+		wrapper.setPath("/project/artifact" + i);
+		wrapper.setArtifactHandler("org.eclipse.capra.handler.file.FileHandler");
+		container.getArtifacts().add(wrapper);
+		return wrapper;
+	}
+}
@@ -12,27 +12,26 @@
 package org.eclipse.capra.ui.notification;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
-import org.eclipse.capra.GenericTraceMetaModel.GenericTraceMetaModelFactory;
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
 import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
 import org.eclipse.capra.core.adapters.Connection;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
+import org.eclipse.capra.core.helpers.EMFHelper;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
+import org.eclipse.capra.generic.tracemodels.ArtifactWrapperIndex;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 import org.eclipse.ui.IMarkerResolution;
 
 /**
@@ -56,77 +55,55 @@ public class DeleteQuickFix implements IMarkerResolution {
 
 	@Override
 	public void run(IMarker marker) {
-
-		ResourceSet resourceSet = new ResourceSetImpl();
-		TracePersistenceAdapter tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		ArtifactWrapperContainer awc = (ArtifactWrapperContainer) tracePersistenceAdapter
-				.getArtifactWrappers(resourceSet);
-		GenericTraceModel traceModel = (GenericTraceModel) tracePersistenceAdapter.getTraceModel(resourceSet);
-
-		List<RelatedTo> traces = traceModel.getTraces();
-		TraceMetaModelAdapter traceMetamodelAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
-		List<ArtifactWrapper> artifacts = ((ArtifactWrapperContainer) awc).getArtifacts();
-		List<RelatedTo> toDelete = new ArrayList<>();
-
-		String artifactContainerFileName = awc.eResource().getURI().lastSegment();
 		String markerContainerFileName = new File(marker.getResource().toString()).getName();
 		String markerUri = marker.getAttribute(CapraNotificationHelper.OLD_URI, null);
+		TraceMetaModelAdapter traceMetamodelAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
+
+		TraceModelSession.write((model, artifactModel) -> {
+			ArtifactWrapperContainer awc = (ArtifactWrapperContainer) artifactModel;
+			GenericTraceModel traceModel = (GenericTraceModel) model;
+			List<EObject> toDelete = new ArrayList<>();
+
+			String artifactContainerFileName = awc.eResource().getURI().lastSegment();
 
-		if (markerContainerFileName.equals(artifactContainerFileName)) {
-			// The element that the marker points to is a Capra artifact.
-			int index = 0;
-			for (ArtifactWrapper aw : artifacts) {
-				if (aw.getUri().equals(markerUri)) {
+			if (markerContainerFileName.equals(artifactContainerFileName)) {
+				// The element that the marker points to is a Capra artifact.
+				for (ArtifactWrapper aw : ArtifactWrapperIndex.getIndex(awc).getArtifacts(markerUri)) {
 					List<Connection> connections = traceMetamodelAdapter.getConnectedElements(aw, traceModel);
-					connections.forEach(c -> {
-						for (RelatedTo t : traces)
-							if (c.getTlink().equals(t))
-								toDelete.add(t);
-					});
+					connections.forEach(c -> toDelete.add(c.getTlink()));
+					if (connections.isEmpty()) {
+						// Not removed along with its traces, so references to
+						// the wrappers after it have to be resolved first
+						EMFHelper.resolveReferencesTo(traceModel, awc.eResource().getURI());
+						EcoreUtil.remove(aw);
+					}
 					break;
 				}
-				index++;
-			}
-
-			// Delete selected artifacts.
-			ArtifactWrapper toRemove = awc.getArtifacts().get(index);
-			EcoreUtil.delete(toRemove);
-			URI artifactModelURI = EcoreUtil.getURI(awc);
-			Resource resourceForArtifacts = resourceSet.createResource(artifactModelURI);
-			resourceForArtifacts.getContents().add(awc);
-
-			try {
-				resourceForArtifacts.save(null);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		} else {
-			// The element that the marker points to is an EObject and is not
-			// contained in the Capra artifact model.
-			URI deletedEObjectUri = URI.createURI(markerUri);
-			for (RelatedTo trace : traceModel.getTraces()) {
-				for (EObject item : trace.getItem()) {
-					URI itemUri = CapraNotificationHelper.getFileUri(item);
-					if (deletedEObjectUri.equals(itemUri)) {
-						toDelete.add(trace);
-						break;
+			} else {
+				// The element that the marker points to is an EObject and is
+				// not contained in the Capra artifact model.
+				URI deletedEObjectUri = URI.createURI(markerUri);
+				for (RelatedTo trace : traceModel.getTraces()) {
+					EList<EObject> items = trace.getItem();
+					for (int i = 0; i < items.size(); i++) {
+						URI itemUri = CapraNotificationHelper
+								.getFileUri(((InternalEList<EObject>) items).basicGet(i));
+						if (deletedEObjectUri.equals(itemUri)) {
+							toDelete.add(trace);
+							break;
+						}
 					}
 				}
 			}
-		}
 
-		// Delete selected traces.
-		traces.removeAll(toDelete);
-		GenericTraceModel newTraceModel = GenericTraceMetaModelFactory.eINSTANCE.createGenericTraceModel();
-		newTraceModel.getTraces().addAll(traces);
-		URI traceModelURI = EcoreUtil.getURI(traceModel);
-		Resource resourceForTraces = resourceSet.createResource(traceModelURI);
-		resourceForTraces.getContents().add(newTraceModel);
+			// Delete selected traces along with the wrappers only they used.
+			traceMetamodelAdapter.deleteTraces(toDelete, traceModel);
+			return true;
+		});
 
 		try {
-			resourceForTraces.save(null);
 			marker.delete();
-		} catch (IOException | CoreException e) {
+		} catch (CoreException e) {
 			e.printStackTrace();
 		}
 	}
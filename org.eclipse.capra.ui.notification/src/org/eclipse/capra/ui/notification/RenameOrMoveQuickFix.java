@@ -11,24 +11,24 @@
 package org.eclipse.capra.ui.notification;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapperContainer;
 import org.eclipse.capra.GenericTraceMetaModel.GenericTraceModel;
 import org.eclipse.capra.GenericTraceMetaModel.RelatedTo;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
+import org.eclipse.capra.core.helpers.TraceModelSession;
+import org.eclipse.capra.generic.tracemodels.ArtifactWrapperIndex;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.InternalEObject;
-import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 import org.eclipse.ui.IMarkerResolution;
 
 /**
@@ -52,54 +52,56 @@ public class RenameOrMoveQuickFix implements IMarkerResolution {
 
 	@Override
 	public void run(IMarker marker) {
-		ResourceSet resourceSet = new ResourceSetImpl();
-		TracePersistenceAdapter tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-		EObject model = tracePersistenceAdapter.getArtifactWrappers(resourceSet);
-
-		String artifactContainerFileName = model.eResource().getURI().lastSegment();
 		String markerFileName = new File(marker.getResource().toString()).getName();
+		String oldArtifactUri = marker.getAttribute(CapraNotificationHelper.OLD_URI, null);
+		String newArtifactUri = marker.getAttribute(CapraNotificationHelper.NEW_URI, null);
+
+		TraceModelSession.write((traceModel, artifactModel) -> {
+			String artifactContainerFileName = artifactModel.eResource().getURI().lastSegment();
 
-		if (markerFileName.equals(artifactContainerFileName)) {
-			// The element that the marker points to is a Capra artifact.
-			List<ArtifactWrapper> artifacts = ((ArtifactWrapperContainer) model).getArtifacts();
-			String oldArtifactUri = marker.getAttribute(CapraNotificationHelper.OLD_URI, null);
-			for (ArtifactWrapper aw : artifacts) {
-				if (aw.getUri().equals(oldArtifactUri)) {
-					String newArtifactUri = marker.getAttribute(CapraNotificationHelper.NEW_URI, null);
+			if (markerFileName.equals(artifactContainerFileName)) {
+				// The element that the marker points to is a Capra artifact.
+				List<ArtifactWrapper> artifacts = ArtifactWrapperIndex
+						.getIndex((ArtifactWrapperContainer) artifactModel).getArtifacts(oldArtifactUri);
+				if (!artifacts.isEmpty()) {
+					// The index follows the changed URI through its adapter
+					ArtifactWrapper aw = artifacts.get(0);
 					aw.setUri(newArtifactUri);
 					aw.setPath(newArtifactUri);
 					aw.setName(marker.getAttribute(CapraNotificationHelper.NEW_NAME, null));
-					break;
+					// The stored display name refers to the old artifact
+					aw.setLabel(null);
+					aw.setFingerprint(null);
+					ArtifactLabels.refreshLabels(artifactModel, aw.getArtifactHandler(),
+							Collections.singletonList(newArtifactUri));
 				}
-			}
 
-		} else {
-			// The element that the marker points to is an EObject and is not
-			// contained in the Capra artifact model.
-			model = tracePersistenceAdapter.getTraceModel(resourceSet);
-			List<RelatedTo> traces = ((GenericTraceModel) model).getTraces();
-			String oldArtifactUri = marker.getAttribute(CapraNotificationHelper.OLD_URI, null);
-			URI markerUri = URI.createURI(oldArtifactUri);
-			for (RelatedTo trace : traces) {
-				for (EObject item : trace.getItem()) {
-					URI itemUri = CapraNotificationHelper.getFileUri(item);
-					if (markerUri.equals(itemUri)) {
-						URI newUri = URI.createURI(marker.getAttribute(CapraNotificationHelper.NEW_URI, null));
-						((InternalEObject) item).eSetProxyURI(newUri);
+			} else {
+				// The element that the marker points to is an EObject and is
+				// not contained in the Capra artifact model. The items are
+				// replaced with proxies to the new location, since the
+				// resolved items are shared with the session.
+				List<RelatedTo> traces = ((GenericTraceModel) traceModel).getTraces();
+				URI markerUri = URI.createURI(oldArtifactUri);
+				URI newUri = URI.createURI(newArtifactUri);
+				for (RelatedTo trace : traces) {
+					EList<EObject> items = trace.getItem();
+					for (int i = 0; i < items.size(); i++) {
+						EObject item = ((InternalEList<EObject>) items).basicGet(i);
+						URI itemUri = CapraNotificationHelper.getFileUri(item);
+						if (markerUri.equals(itemUri)) {
+							EObject proxy = EcoreUtil.create(item.eClass());
+							((InternalEObject) proxy).eSetProxyURI(newUri);
+							items.set(i, proxy);
+						}
 					}
 				}
 			}
-		}
-
-		// Update references inside the model (can be artifact or trace model).
-		Resource resource = resourceSet.createResource(EcoreUtil.getURI(model));
-		resource.getContents().add(model);
+			return true;
+		});
 
 		try {
-			resource.save(null);
 			marker.delete();
-		} catch (IOException e) {
-			e.printStackTrace();
 		} catch (CoreException e) {
 			e.printStackTrace();
 		}
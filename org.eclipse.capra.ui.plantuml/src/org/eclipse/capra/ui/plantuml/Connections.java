@@ -17,12 +17,11 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
-import org.eclipse.capra.GenericArtifactMetaModel.ArtifactWrapper;
 import org.eclipse.capra.core.adapters.Connection;
-import org.eclipse.capra.core.handlers.IArtifactHandler;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
 import org.eclipse.capra.core.helpers.EMFHelper;
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.uml2.uml.Dependency;
 import org.eclipse.uml2.uml.DirectedRelationship;
@@ -36,7 +35,7 @@ import org.eclipse.uml2.uml.Element;
  */
 public class Connections {
 
-	private static final String CHARACTERS_TO_BE_REMOVED = "[\", \']";
+	private static final Pattern CHARACTERS_TO_BE_REMOVED = Pattern.compile("[\", \']");
 	private List<Connection> connections;
 	private EObject origin;
 
@@ -139,30 +138,11 @@ public class Connections {
 	 * @return The label to be displayed
 	 */
 	public static String getArtifactLabel(EObject object) {
-		String artifactLabel = null;
-		if (object instanceof ArtifactWrapper) {
-			ArtifactWrapper wrapper = (ArtifactWrapper) object;
-			Collection<IArtifactHandler<?>> artifactHandlers = ExtensionPointHelper.getArtifactHandlers();
-
-			for (IArtifactHandler<?> handler : artifactHandlers) {
-				String handlerName = handler.toString().substring(0, handler.toString().indexOf('@'));
-				if (handlerName.equals(wrapper.getArtifactHandler())) {
-					Object originalObject = handler.resolveWrapper(object);
-					if (originalObject != null) {
-						artifactLabel = handler.withCastedHandler(originalObject, (h, o) -> h.getDisplayName(o))
-								.orElseThrow(IllegalArgumentException::new);
-					} else { // original object cannot be resolved
-								// therefore use the wrapper name
-						String label = EMFHelper.getIdentifier(object);
-						artifactLabel = label.substring(0, label.indexOf(':'));
-					}
-				}
-			}
-		} else {
+		String artifactLabel = ArtifactLabels.getWrapperLabel(object);
+		if (artifactLabel == null) {
 			artifactLabel = EMFHelper.getIdentifier(object);
 		}
 		// remove unwanted characters like ", '
-		return artifactLabel.replaceAll(CHARACTERS_TO_BE_REMOVED, " ");
-
+		return CHARACTERS_TO_BE_REMOVED.matcher(artifactLabel).replaceAll(" ");
 	}
 }
@@ -14,17 +14,16 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.eclipse.capra.core.adapters.ArtifactMetaModelAdapter;
 import org.eclipse.capra.core.adapters.Connection;
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
 import org.eclipse.capra.core.handlers.IArtifactHandler;
 import org.eclipse.capra.core.helpers.ArtifactHelper;
 import org.eclipse.capra.core.helpers.EMFHelper;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.ui.helpers.TraceCreationHelper;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.ui.IEditorPart;
 
@@ -37,7 +36,6 @@ import net.sourceforge.plantuml.eclipse.utils.DiagramTextProvider;
  * @author Anthony Anjorin, Salome Maro
  */
 public class DiagramTextProviderHandler implements DiagramTextProvider {
-	private EObject artifactModel = null;
 
 	@Override
 	public String getDiagramText(IEditorPart editor, ISelection arg1) {
@@ -46,20 +44,21 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 		return getDiagramText(selectedModels);
 	}
 
-	@SuppressWarnings("unchecked")
 	public String getDiagramText(List<Object> selectedModels) {
+		return TraceModelSession.read(
+				(traceModel, artifactModel) -> getDiagramText(selectedModels, traceModel, artifactModel));
+	}
+
+	@SuppressWarnings("unchecked")
+	private String getDiagramText(List<Object> selectedModels, EObject sessionTraceModel, EObject artifactModel) {
 		List<EObject> firstModelElements = null;
 		List<EObject> secondModelElements = null;
 		EObject selectedObject = null;
-		ResourceSet resourceSet = new ResourceSetImpl();
 		EObject traceModel = null;
 		List<Connection> traces = new ArrayList<>();
 
-		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
 		TraceMetaModelAdapter metamodelAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
 
-		artifactModel = persistenceAdapter.getArtifactWrappers(resourceSet);
-
 		if (selectedModels.size() > 0) {
 			ArtifactHelper artifactHelper = new ArtifactHelper(artifactModel);
 			// check if there is a hander for the selected and get its Wrapper
@@ -71,10 +70,9 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 				handler = (IArtifactHandler<Object>) artifactHelper.getHandler(selectedModels.get(0)).orElse(null);
 			}
 			if (handler != null) {
-				selectedObject = handler.createWrapper(selectedModels.get(0), artifactModel);
+				selectedObject = createWrapper(handler, selectedModels.get(0), artifactModel);
 				if (selectedObject != null) {
-					resourceSet = selectedObject.eResource().getResourceSet();
-					traceModel = persistenceAdapter.getTraceModel(resourceSet);
+					traceModel = sessionTraceModel;
 					List<String> selectedRelationshipTypes = SelectRelationshipsHandler.getSelectedRelationshipTypes();
 					if (selectedModels.size() == 1) {
 						if (DisplayTracesHandler.isTraceViewTransitive()) {
@@ -132,14 +130,14 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 						}
 						if (DisplayTracesHandler.isTraceViewTransitive()) {
 							firstModelElements = EMFHelper
-									.linearize(handler.createWrapper(selectedModels.get(0), artifactModel));
+									.linearize(createWrapper(handler, selectedModels.get(0), artifactModel));
 							secondModelElements = EMFHelper.linearize(
-									handlerSecondElement.createWrapper(selectedModels.get(1), artifactModel));
+									createWrapper(handlerSecondElement, selectedModels.get(1), artifactModel));
 						} else {
 							List<EObject> firstObject = new ArrayList<>();
-							firstObject.add(handler.createWrapper(selectedModels.get(0), artifactModel));
+							firstObject.add(createWrapper(handler, selectedModels.get(0), artifactModel));
 							List<EObject> secondObject = new ArrayList<>();
-							secondObject.add(handlerSecondElement.createWrapper(selectedModels.get(1), artifactModel));
+							secondObject.add(createWrapper(handlerSecondElement, selectedModels.get(1), artifactModel));
 							firstModelElements = firstObject;
 							secondModelElements = secondObject;
 						}
@@ -154,7 +152,7 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 									individualhandler = (IArtifactHandler<Object>) artifactHelper.getHandler(r)
 											.orElse(null);
 								}
-								return EMFHelper.linearize(individualhandler.createWrapper(r, artifactModel)).stream();
+								return EMFHelper.linearize(createWrapper(individualhandler, r, artifactModel)).stream();
 							}).collect(Collectors.toList());
 							secondModelElements = firstModelElements;
 						} else {
@@ -164,12 +162,12 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 								if (o.getClass().getPackage().toString().contains("org.eclipse.eatop")) {
 									individualhandler = (IArtifactHandler<Object>) artifactHelper.getEastAdlHandler(o)
 											.orElse(null);
-									Objects.add(individualhandler.createWrapper(o, artifactModel));
+									Objects.add(createWrapper(individualhandler, o, artifactModel));
 								} else {
 									individualhandler = (IArtifactHandler<Object>) artifactHelper.getHandler(o)
 											.orElse(null);
 								}
-								Objects.add(individualhandler.createWrapper(o, artifactModel));
+								Objects.add(createWrapper(individualhandler, o, artifactModel));
 							});
 							firstModelElements = Objects;
 							secondModelElements = firstModelElements;
@@ -186,6 +184,27 @@ public class DiagramTextProviderHandler implements DiagramTextProvider {
 		return true;
 	}
 
+	/**
+	 * Looks up the wrapper of the given artifact in the session without adding
+	 * it to the artifact model, so that diagrams are rendered concurrently with
+	 * other queries. The wrapper is created in a model of its own first to
+	 * determine its handler and URI. Artifacts without a wrapper in the session
+	 * have no trace links, so the new wrapper is displayed instead.
+	 */
+	private static EObject createWrapper(IArtifactHandler<Object> handler, Object artifact, EObject artifactModel) {
+		ArtifactMetaModelAdapter adapter = ExtensionPointHelper.getArtifactWrapperMetaModelAdapter().get();
+		EObject lookupModel = adapter.createModel();
+		EObject wrapper = handler.createWrapper(artifact, lookupModel);
+		if (wrapper == null || wrapper.eContainer() != lookupModel) {
+			// Selected model elements are looked up in the session to find
+			// their links
+			return TraceModelSession.resolve(wrapper);
+		}
+		EObject existing = adapter.getArtifact(artifactModel, adapter.getArtifactHandler(wrapper),
+				adapter.getArtifactUri(wrapper));
+		return existing != null ? existing : wrapper;
+	}
+
 	private static List<EObject> extractLinksFromTraces(List<Connection> traces) {
 		List<EObject> links = new ArrayList<>();
 		for (Connection trace : traces) {
@@ -10,6 +10,7 @@ import org.eclipse.emf.ecore.EObject
 class VisualizationHelper {
 	def static String createMatrix(EObject traceModel, Collection<EObject> firstElements, Collection<EObject> secondElements){
 	val traceAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get()
+	val matrix = if (firstElements != null) traceAdapter.getTraceMatrix(firstElements, secondElements, traceModel)
 	'''
 	@startuml
 	salt
@@ -18,7 +19,7 @@ class VisualizationHelper {
 	.«FOR e : secondElements»|«Connections.getArtifactLabel(e)»«ENDFOR»
 	«FOR first : firstElements»
 	«Connections.getArtifactLabel(first)» «FOR second : secondElements»|
-	«var traceString = traceAdapter.isThereATraceBetween(first, second, traceModel)»«IF !traceString.equals("")»«traceString»«ELSE».«ENDIF»«ENDFOR»	
+	«var traceString = matrix.get(first, second)»«IF !traceString.equals("")»«traceString»«ELSE».«ENDIF»«ENDFOR»	
 	«ENDFOR»
 	«ELSE»
 	Choose two containers to show a traceability matrix of their contents.
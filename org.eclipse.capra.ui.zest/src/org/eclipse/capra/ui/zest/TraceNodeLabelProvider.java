@@ -10,9 +10,7 @@
  *******************************************************************************/
 package org.eclipse.capra.ui.zest;
 
-import java.util.Optional;
-
-import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
 import org.eclipse.jface.viewers.LabelProvider;
 
 /**
@@ -25,12 +23,7 @@ public class TraceNodeLabelProvider extends LabelProvider {
 
 	@Override
 	public String getText(Object element) {
-		return ExtensionPointHelper.getArtifactHandlers().stream()
-			.map(handler -> handler.withCastedHandler(element, (h, e) -> h.getDisplayName(e)))
-			.filter(Optional::isPresent)
-			.map(Optional::get)
-			.findFirst()
-			.orElseGet(element::toString);
+		return ArtifactLabels.getDisplayName(element);
 	}
 
 	// TODO Add labels for the edges
@@ -10,14 +10,14 @@
  *******************************************************************************/
 package org.eclipse.capra.ui.zest;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.ui.helpers.TraceCreationHelper;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.gef4.common.adapt.inject.AdapterInjectionSupport;
 import org.eclipse.gef4.common.adapt.inject.AdapterInjectionSupport.LoggingMode;
 import org.eclipse.gef4.layout.ILayoutAlgorithm;
@@ -58,10 +58,6 @@ public class ZestView extends ViewPart {
 	@Override
 	public void createPartControl(Composite parent) {
 
-		TracePersistenceAdapter tracePersistenceAdapter;
-
-		tracePersistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
-
 		viewer = new ZestContentViewer(new ZestViewModule());
 		viewer.createControl(parent, SWT.NONE);
 		viewer.setLabelProvider(new TraceNodeLabelProvider());
@@ -72,22 +68,20 @@ public class ZestView extends ViewPart {
 
 			@Override
 			public void selectionChanged(IWorkbenchPart part, ISelection selection) {
-				EObject traceModel;
-				TraceMetaModelAdapter metaModelAdapter;
-				ResourceSet resourceSet;
-
 				List<Object> selectedModels = TraceCreationHelper.extractSelectedElements(selection);
 
 				if (selectedModels.size() >= 1 && selectedModels.get(0) instanceof EObject) {
-					EObject selectedEObject = (EObject) selectedModels.get(0);
-					resourceSet = selectedEObject.eResource().getResourceSet();
-					traceModel = tracePersistenceAdapter.getTraceModel(resourceSet);
-					metaModelAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
-					viewer.setContentProvider(
-							new TraceNodeContentProvider(traceModel, metaModelAdapter, selectedModels));
-					viewer.setInput(null);
-					viewer.refresh();
-
+					TraceMetaModelAdapter metaModelAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
+					TraceModelSession.read((traceModel, artifactModel) -> {
+						// Trace links refer to the copy of the element in the
+						// session rather than the one loaded by the editor
+						List<Object> elements = new ArrayList<>(selectedModels);
+						elements.set(0, TraceModelSession.resolve((EObject) selectedModels.get(0)));
+						viewer.setContentProvider(new TraceNodeContentProvider(traceModel, metaModelAdapter, elements));
+						viewer.setInput(null);
+						viewer.refresh();
+						return null;
+					});
 				}
 				// TODO Implement what should be displayed when more than one
 				// element has been selected
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.capra.ui.handlers;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -17,19 +18,17 @@ import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.eclipse.capra.core.adapters.TraceMetaModelAdapter;
-import org.eclipse.capra.core.adapters.TracePersistenceAdapter;
 import org.eclipse.capra.core.helpers.ArtifactHelper;
 import org.eclipse.capra.core.helpers.EMFHelper;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
 import org.eclipse.capra.core.helpers.TraceHelper;
+import org.eclipse.capra.core.helpers.TraceModelSession;
 import org.eclipse.capra.ui.views.SelectionView;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.window.Window;
 import org.eclipse.ui.IWorkbenchWindow;
@@ -50,30 +49,43 @@ public class TraceCreationHandler extends AbstractHandler {
 		List<?> artifacts = SelectionView.getOpenedView().getSelection();
 
 		TraceMetaModelAdapter traceAdapter = ExtensionPointHelper.getTraceMetamodelAdapter().get();
-		TracePersistenceAdapter persistenceAdapter = ExtensionPointHelper.getTracePersistenceAdapter().get();
 
-		ResourceSet resourceSet = new ResourceSetImpl();
-		// add trace model to resource set
-		EObject traceModel = persistenceAdapter.getTraceModel(resourceSet);
-		// add artifact model to resource set
-		EObject artifactModel = persistenceAdapter.getArtifactWrappers(resourceSet);
-
-		ArtifactHelper artifactHelper = new ArtifactHelper(artifactModel);
-		TraceHelper traceHelper = new TraceHelper(traceModel);
+		// The type of trace is chosen without holding the models, since the
+		// dialog might stay open for a while. The wrappers created to find
+		// the available types are only kept for display.
+		List<EObject> selection = new ArrayList<>();
+		Collection<EClass> traceTypes = TraceModelSession.preview((traceModel, artifactModel) -> {
+			selection.addAll(createResolvedWrappers(artifacts, artifactModel));
+			return traceAdapter.getAvailableTraceTypes(selection);
+		});
+		Optional<EClass> chosenType = chooseTraceType.apply(traceTypes, selection);
+		if (!chosenType.isPresent()) {
+			return;
+		}
 
-		// Create the artifact wrappers
-		List<EObject> wrappers = artifactHelper.createWrappers(artifacts);
+		// Saving and annotating large models takes a while, so both are done
+		// in the background. Annotating changes the artifacts, not the models.
+		List<EObject> wrappers = new ArrayList<>();
+		TraceModelSession.writeInBackground((traceModel, artifactModel) -> {
+			wrappers.addAll(createResolvedWrappers(artifacts, artifactModel));
 
-		// Get the type of trace to be created
-		Collection<EClass> traceTypes = traceAdapter.getAvailableTraceTypes(wrappers);
-		Optional<EClass> chosenType = chooseTraceType.apply(traceTypes, wrappers);
+			// The models might have changed while the type was chosen
+			if (wrappers.size() != selection.size()
+					|| !traceAdapter.getAvailableTraceTypes(wrappers).contains(chosenType.get())) {
+				return false;
+			}
+			new TraceHelper(traceModel).createTrace(wrappers, chosenType.get());
+			return true;
+		}, (traceModel, artifactModel) -> new TraceHelper(traceModel).prepareAnnotations(wrappers));
+	}
 
-		// Create trace
-		if (chosenType.isPresent()) {
-			traceHelper.createTrace(wrappers, chosenType.get());
-			persistenceAdapter.saveTracesAndArtifacts(traceModel, artifactModel);
-			traceHelper.annotateTrace(wrappers);
-		}
+	/**
+	 * Creates the artifact wrappers, referring to the copies of selected model
+	 * elements that are loaded into the session.
+	 */
+	private static List<EObject> createResolvedWrappers(List<?> artifacts, EObject artifactModel) {
+		return new ArtifactHelper(artifactModel).createWrappers(artifacts).stream().map(TraceModelSession::resolve)
+				.collect(Collectors.toList());
 	}
 
 	private Optional<EClass> getTraceTypeToCreate(IWorkbenchWindow window, Collection<EClass> traceTypes,
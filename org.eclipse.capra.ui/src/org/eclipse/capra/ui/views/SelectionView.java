@@ -23,6 +23,7 @@ import java.util.stream.Collectors;
 
 import org.eclipse.capra.core.handlers.IArtifactHandler;
 import org.eclipse.capra.core.handlers.PriorityHandler;
+import org.eclipse.capra.core.helpers.ArtifactLabels;
 import org.eclipse.capra.core.helpers.ExtensionPointHelper;
 import org.eclipse.jface.action.IMenuListener;
 import org.eclipse.jface.action.IMenuManager;
@@ -93,12 +94,7 @@ public class SelectionView extends ViewPart {
 
 		@Override
 		public String getText(Object element) {
-			return ExtensionPointHelper.getArtifactHandlers().stream()
-				.map(handler -> handler.withCastedHandler(element, (h, e) -> h.getDisplayName(e)))
-				.filter(Optional::isPresent)
-				.map(Optional::get)
-				.findFirst()
-				.orElseGet(element::toString);
+			return ArtifactLabels.getDisplayName(element);
 		}
 
 		@Override